@@ -0,0 +1,47 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.authentication;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class AuthenticationBenchmark {
+    private byte[] password;
+
+    @Setup
+    public void setup() {
+        password = "correct horse battery staple".getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String encryptData() throws Exception {
+        return AuthenticationService.encryptData(password);
+    }
+
+    @Benchmark
+    public String generateToken() throws Exception {
+        return AuthenticationService.generateToken();
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.benchmarks;
+
+import com.sun.management.ThreadMXBean;
+import io.github.lycoriscafe.yggdrasil.authentication.AuthenticationService;
+import io.github.lycoriscafe.yggdrasil.authentication.Role;
+import io.github.lycoriscafe.yggdrasil.commons.CommonService;
+import io.github.lycoriscafe.yggdrasil.commons.ResponseShape;
+import io.github.lycoriscafe.yggdrasil.commons.SearchModel;
+import io.github.lycoriscafe.yggdrasil.configuration.Priority;
+import io.github.lycoriscafe.yggdrasil.configuration.YggdrasilConfig;
+import io.github.lycoriscafe.yggdrasil.metrics.RequestContext;
+import io.github.lycoriscafe.yggdrasil.rest.admin.AccessLevel;
+import io.github.lycoriscafe.yggdrasil.rest.student.Student;
+import io.github.lycoriscafe.yggdrasil.rest.student.StudentService;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigInteger;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+
+// bytes allocated per call on hot paths, checked against allocation-budgets.properties
+public final class AllocationBudgets {
+    private static final String BUDGETS_RESOURCE = "/allocation-budgets.properties";
+    private static final long WARMUP_NANOS = 3_000_000_000L;
+    private static final int ROUNDS = 5;
+    private static final int CALLS_PER_ROUND = 2_000;
+    private static final String SEARCH_JSON = """
+            {"searchBy": {"classroomId": {"12": false}, "fullName": {"%Perera%": false, "%Silva%": false}},
+             "orderBy": ["fullName", "id"], "ascending": true, "resultsFrom": 0, "resultsOffset": 50}""";
+
+    private static final ThreadMXBean THREADS = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    // results are published here so the JIT cannot drop the calls
+    private static volatile Object sink;
+
+    public static void main(String[] args) throws Exception {
+        Properties budgets = new Properties();
+        try (var inputStream = Objects.requireNonNull(AllocationBudgets.class.getResourceAsStream(BUDGETS_RESOURCE),
+                "allocation-budgets.properties not packaged")) {
+            budgets.load(inputStream);
+        }
+
+        boolean failed = false;
+        System.out.printf("%-28s %12s %12s%n", "case", "bytes/call", "budget");
+        for (var entry : cases().entrySet()) {
+            long bytes;
+            // inside a request like behind an endpoint, so phase timings and statement counts are recorded too
+            try (var context = RequestContext.open(entry.getKey())) {
+                bytes = measure(entry.getValue());
+            }
+            String budget = budgets.getProperty(entry.getKey());
+            boolean over = budget != null && bytes > Long.parseLong(budget.strip());
+            failed |= over;
+            System.out.printf("%-28s %12d %12s%s%n", entry.getKey(), bytes, budget == null ? "-" : budget.strip(), over ? "  OVER BUDGET" : "");
+        }
+        if (failed) {
+            System.out.println("Allocation budget exceeded, see " + BUDGETS_RESOURCE.substring(1) + " before raising a budget");
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Call> cases() throws SQLException {
+        var devices = Fixtures.devices(1, Role.ADMIN.toString());
+        var database = new StubDatabase().put("device", devices).put("Admin", Fixtures.admins(1));
+        YggdrasilConfig.initializeDatabase(database.pool());
+        var cursor = devices.open();
+        cursor.next();
+        String accessToken = cursor.getString("accessToken");
+
+        Map<String, Call> cases = new LinkedHashMap<>();
+        // what authenticate runs short of parsing the header and building a response, an admin route checking access levels
+        cases.put("authenticate", () -> {
+            var access = AuthenticationService.authorize(accessToken, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER), Priority.NORMAL);
+            if (access.outcome() != AuthenticationService.Outcome.GRANTED) throw new IllegalStateException("Authentication " + access.outcome());
+            return access;
+        });
+        for (int rows : new int[]{20, 200}) {
+            var students = Fixtures.students(rows);
+            var searchModel = new SearchModel().setSearchBy(Map.of("classroomId", Map.of("12", false)))
+                    .setResultsOffset(BigInteger.valueOf(rows));
+            cases.put("read.students." + rows, () -> {
+                database.put("Student", students);
+                return CommonService.read(Student.class, StudentService.class, searchModel);
+            });
+
+            for (ResponseShape shape : ResponseShape.values()) {
+                database.put("Student", students);
+                var response = CommonService.read(Student.class, StudentService.class, searchModel).setShape(shape);
+                cases.put("parse." + shape.toString().toLowerCase() + "." + rows, response::parse);
+            }
+        }
+        cases.put("searchModel.fromJson", () -> SearchModel.fromJson(SEARCH_JSON));
+        return cases;
+    }
+
+    // the lowest round wins, one-off costs such as cache fills or a GC-triggered resize only inflate single rounds
+    private static long measure(Call call) throws Exception {
+        long deadline = System.nanoTime() + WARMUP_NANOS;
+        while (System.nanoTime() < deadline) sink = call.call();
+
+        long threadId = Thread.currentThread().threadId();
+        long lowest = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long before = THREADS.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < CALLS_PER_ROUND; i++) sink = call.call();
+            long after = THREADS.getThreadAllocatedBytes(threadId);
+            lowest = Math.min(lowest, (after - before) / CALLS_PER_ROUND);
+        }
+        return lowest;
+    }
+
+    @FunctionalInterface
+    private interface Call {
+        Object call() throws Exception;
+    }
+}
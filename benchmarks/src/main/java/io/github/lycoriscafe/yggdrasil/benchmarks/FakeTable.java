@@ -0,0 +1,125 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.benchmarks;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class FakeTable {
+    private final Map<String, Integer> columns = new HashMap<>();
+    private final List<Object[]> rows = new ArrayList<>();
+
+    public FakeTable(String... columns) {
+        for (int i = 0; i < columns.length; i++) this.columns.put(columns[i].toLowerCase(), i);
+    }
+
+    public FakeTable add(Object... row) {
+        if (row.length != columns.size()) throw new IllegalArgumentException("Expected " + columns.size() + " values");
+        rows.add(row);
+        return this;
+    }
+
+    public int size() {
+        return rows.size();
+    }
+
+    public ResultSet open() {
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class}, new Cursor());
+    }
+
+    // a forward-only cursor returning values the way Connector/J would for the same column types
+    private final class Cursor implements InvocationHandler {
+        private int row = -1;
+        private boolean wasNull;
+        private boolean closed;
+
+        @Override
+        public Object invoke(Object proxy,
+                             Method method,
+                             Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next" -> {
+                    return ++row < rows.size();
+                }
+                case "close" -> {
+                    closed = true;
+                    return null;
+                }
+                case "isClosed" -> {
+                    return closed;
+                }
+                case "wasNull" -> {
+                    return wasNull;
+                }
+                case "getString" -> {
+                    Object value = value(args[0]);
+                    return value == null ? null : value.toString();
+                }
+                case "getObject" -> {
+                    return value(args[0]);
+                }
+                case "getLong" -> {
+                    Object value = value(args[0]);
+                    return value == null ? 0L : value instanceof Number number ? number.longValue() : Long.parseLong(value.toString());
+                }
+                case "getInt" -> {
+                    Object value = value(args[0]);
+                    return value == null ? 0 : value instanceof Number number ? number.intValue() : Integer.parseInt(value.toString());
+                }
+                case "getBoolean" -> {
+                    Object value = value(args[0]);
+                    return value != null && (value instanceof Boolean bool ? bool : value.toString().equals("1"));
+                }
+                case "findColumn" -> {
+                    return index(args[0]) + 1;
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "toString" -> {
+                    return "FakeTable.Cursor@" + row;
+                }
+                default -> throw new UnsupportedOperationException(method.getName());
+            }
+        }
+
+        private Object value(Object column) throws SQLException {
+            if (closed) throw new SQLException("Result set closed");
+            if (row < 0 || row >= rows.size()) throw new SQLException("Cursor not on a row");
+            Object value = rows.get(row)[index(column)];
+            wasNull = value == null;
+            return value;
+        }
+
+        private int index(Object column) throws SQLException {
+            if (column instanceof Integer index) return index - 1;
+            Integer index = columns.get(column.toString().toLowerCase());
+            if (index == null) throw new SQLException("Column '" + column + "' not found");
+            return index;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.benchmarks;
+
+import java.util.SplittableRandom;
+
+public final class Fixtures {
+    private static final long SEED = 20250101L;
+    private static final String[] NAMES = {"Perera", "Fernando", "Silva", "Bandara", "Jayasinghe", "Wickramasinghe"};
+
+    public static FakeTable students(int count) {
+        var random = new SplittableRandom(SEED);
+        var table = new FakeTable("id", "guardianId", "classroomId", "initName", "fullName", "gender", "dateOfBirth",
+                "nic", "address", "regYear", "contactNo", "email", "disabled");
+        for (int i = 1; i <= count; i++) {
+            String name = NAMES[random.nextInt(NAMES.length)];
+            table.add(String.valueOf(i),
+                    String.valueOf(random.nextInt(1, 100_000)),
+                    random.nextInt(10) == 0 ? null : String.valueOf(random.nextInt(1, 500)),
+                    "A. B. " + name,
+                    "Amal Bandara " + name,
+                    random.nextBoolean() ? "MALE" : "FEMALE",
+                    String.format("%d-%02d-%02d", random.nextInt(2005, 2020), random.nextInt(1, 13), random.nextInt(1, 29)),
+                    String.format("%012d", random.nextLong(100_000_000_000L, 999_999_999_999L)),
+                    random.nextInt(1, 500) + ", Temple Road, Kandy",
+                    // Connector/J reports YEAR columns as dates (yearIsDateType)
+                    random.nextInt(2015, 2026) + "-01-01",
+                    String.format("07%08d", random.nextInt(100_000_000)),
+                    "student" + i + "@example.com",
+                    random.nextInt(50) == 0);
+        }
+        return table;
+    }
+
+    public static FakeTable studentAttendances(int count) {
+        var random = new SplittableRandom(SEED);
+        var table = new FakeTable("id", "studentId", "date", "time");
+        for (int i = 1; i <= count; i++) {
+            table.add(String.valueOf(i),
+                    String.valueOf(random.nextInt(1, 5_000)),
+                    String.format("2025-%02d-%02d", random.nextInt(1, 13), random.nextInt(1, 29)),
+                    String.format("07:%02d:%02d", random.nextInt(60), random.nextInt(60)));
+        }
+        return table;
+    }
+
+    public static FakeTable timetables(int count) {
+        var random = new SplittableRandom(SEED);
+        var table = new FakeTable("id", "teacherId", "subjectId", "classroomId", "day", "timeslot");
+        for (int i = 1; i <= count; i++) {
+            table.add(String.valueOf(i),
+                    String.valueOf(random.nextInt(1, 200)),
+                    String.valueOf(random.nextInt(1, 40)),
+                    String.valueOf(random.nextInt(1, 500)),
+                    random.nextInt(1, 6),
+                    random.nextInt(1, 9));
+        }
+        return table;
+    }
+
+    public static FakeTable admins(int count) {
+        var table = new FakeTable("id", "name", "accessLevel", "disabled");
+        for (int i = 1; i <= count; i++) table.add(String.valueOf(i), "admin-" + i, "SUPERUSER", false);
+        return table;
+    }
+
+    public static FakeTable devices(int count) {
+        return devices(count, "STUDENT");
+    }
+
+    public static FakeTable devices(int count,
+                                    String role) {
+        var random = new SplittableRandom(SEED);
+        var table = new FakeTable("role", "userId", "deviceName", "accessToken", "expires", "refreshToken", "lastLogin");
+        for (int i = 1; i <= count; i++) {
+            table.add(role,
+                    "42",
+                    "device-" + i,
+                    token(random),
+                    // early 2100, so authentication never sees an expired token
+                    4_102_444_800L + random.nextInt(86_400),
+                    token(random),
+                    String.format("2025-%02d-%02d %02d:%02d:00", random.nextInt(1, 13), random.nextInt(1, 29),
+                            random.nextInt(24), random.nextInt(60)));
+        }
+        return table;
+    }
+
+    private static String token(SplittableRandom random) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        return java.util.Base64.getEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
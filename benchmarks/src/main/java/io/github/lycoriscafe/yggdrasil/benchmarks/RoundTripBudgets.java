@@ -0,0 +1,163 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.benchmarks;
+
+import io.github.lycoriscafe.yggdrasil.authentication.Authentication;
+import io.github.lycoriscafe.yggdrasil.authentication.AuthenticationService;
+import io.github.lycoriscafe.yggdrasil.authentication.Role;
+import io.github.lycoriscafe.yggdrasil.commons.CommonService;
+import io.github.lycoriscafe.yggdrasil.commons.ExportFormat;
+import io.github.lycoriscafe.yggdrasil.commons.SearchModel;
+import io.github.lycoriscafe.yggdrasil.configuration.Priority;
+import io.github.lycoriscafe.yggdrasil.configuration.YggdrasilConfig;
+import io.github.lycoriscafe.yggdrasil.metrics.RequestContext;
+import io.github.lycoriscafe.yggdrasil.metrics.RoundTripBudget;
+import io.github.lycoriscafe.yggdrasil.rest.admin.AccessLevel;
+import io.github.lycoriscafe.yggdrasil.rest.admin.Admin;
+import io.github.lycoriscafe.yggdrasil.rest.admin.AdminService;
+import io.github.lycoriscafe.yggdrasil.rest.student.Student;
+import io.github.lycoriscafe.yggdrasil.rest.student.StudentService;
+import io.github.lycoriscafe.yggdrasil.rest.student.attendance.StudentAttendance;
+import io.github.lycoriscafe.yggdrasil.rest.student.attendance.StudentAttendanceService;
+import io.github.lycoriscafe.yggdrasil.rest.timetable.Timetable;
+import io.github.lycoriscafe.yggdrasil.rest.timetable.TimetableService;
+
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+// statements run per request on the budgeted routes, checked against round-trip-budgets.properties
+public final class RoundTripBudgets {
+    private static final String BUDGETS_RESOURCE = "round-trip-budgets.properties";
+
+    public static void main(String[] args) throws Exception {
+        RoundTripBudget.load(new Properties());
+        var budgets = RoundTripBudget.getBudgets();
+        var cases = cases();
+
+        boolean failed = false;
+        System.out.printf("%-28s %12s %12s%n", "route", "statements", "budget");
+        for (var entry : cases.entrySet()) {
+            int statements;
+            try (var context = RequestContext.open(entry.getKey())) {
+                entry.getValue().call();
+                statements = context.getStatements();
+            }
+            Integer budget = budgets.get(entry.getKey());
+            boolean over = budget != null && statements > budget;
+            failed |= over;
+            System.out.printf("%-28s %12d %12s%s%n", entry.getKey(), statements, budget == null ? "-" : budget, over ? "  OVER BUDGET" : "");
+        }
+        // a budget nobody measures is a snapshot again
+        for (String route : budgets.keySet()) {
+            if (cases.containsKey(route)) continue;
+            failed = true;
+            System.out.printf("%-28s %12s %12d  NOT MEASURED%n", route, "-", budgets.get(route));
+        }
+        if (failed) {
+            System.out.println("Round-trip budget exceeded or unmeasured, see " + BUDGETS_RESOURCE + " before raising a budget");
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Call> cases() throws Exception {
+        var devices = Fixtures.devices(1, Role.ADMIN.toString());
+        var database = new StubDatabase().put("device", devices)
+                .put("Admin", Fixtures.admins(1))
+                .put("Student", Fixtures.students(1))
+                .put("StudentAttendance", Fixtures.studentAttendances(1))
+                .put("Timetable", Fixtures.timetables(1));
+        YggdrasilConfig.initializeDatabase(database.pool());
+        var cursor = devices.open();
+        cursor.next();
+        String accessToken = cursor.getString("accessToken");
+
+        var search = new SearchModel().setSearchBy(Map.of("id", Map.of("1", false)));
+        var student = CommonService.read(Student.class, StudentService.class, search).getData().getFirst();
+        var attendance = CommonService.read(StudentAttendance.class, StudentAttendanceService.class, search).getData().getFirst();
+        var timetable = CommonService.read(Timetable.class, TimetableService.class, search).getData().getFirst();
+
+        Map<String, Call> cases = new LinkedHashMap<>();
+        cases.put("/admin/read", () -> {
+            authorize(accessToken, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER), Priority.NORMAL);
+            CommonService.read(Admin.class, AdminService.class, search);
+        });
+        cases.put("/student/read", () -> {
+            authorize(accessToken, Set.of(Role.ADMIN, Role.TEACHER, Role.STUDENT), null, Priority.NORMAL);
+            CommonService.read(Student.class, StudentService.class, search);
+        });
+        cases.put("/student/create", () -> {
+            authorize(accessToken, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.STUDENT), Priority.NORMAL);
+            var response = CommonService.create(Student.class, StudentService.class, student);
+            var id = response.getData().getFirst().getId();
+            AuthenticationService.addAuthentication(new Authentication(Role.STUDENT, id, "S" + id));
+        });
+        cases.put("/student/update", () -> {
+            authorize(accessToken, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.STUDENT), Priority.NORMAL);
+            CommonService.update(Student.class, StudentService.class, student);
+        });
+        cases.put("/student/export", () -> {
+            authorize(accessToken, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.STUDENT), Priority.LOW);
+            try (var stream = CommonService.export(Student.class, StudentService.class, new SearchModel(), ExportFormat.CSV)) {
+                stream.transferTo(OutputStream.nullOutputStream());
+            }
+        });
+        cases.put("/student/attendance/read", () -> {
+            authorize(accessToken, Set.of(Role.ADMIN, Role.TEACHER, Role.STUDENT), null, Priority.HIGH);
+            CommonService.read(StudentAttendance.class, StudentAttendanceService.class, search);
+        });
+        cases.put("/student/attendance/create", () -> {
+            authorize(accessToken, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.STUDENT), Priority.HIGH);
+            CommonService.create(StudentAttendance.class, StudentAttendanceService.class, attendance);
+        });
+        cases.put("/student/attendance/export", () -> {
+            authorize(accessToken, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.STUDENT), Priority.LOW);
+            try (var stream = CommonService.export(StudentAttendance.class, StudentAttendanceService.class, new SearchModel(), ExportFormat.CSV)) {
+                stream.transferTo(OutputStream.nullOutputStream());
+            }
+        });
+        cases.put("/timetable/read", () -> {
+            authorize(accessToken, Set.of(Role.ADMIN, Role.TEACHER, Role.STUDENT), null, Priority.NORMAL);
+            CommonService.read(Timetable.class, TimetableService.class, search);
+        });
+        cases.put("/timetable/create", () -> {
+            authorize(accessToken, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.TIMETABLE), Priority.NORMAL);
+            CommonService.create(Timetable.class, TimetableService.class, timetable);
+        });
+        cases.put("/timetable/update", () -> {
+            authorize(accessToken, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.TIMETABLE), Priority.NORMAL);
+            CommonService.update(Timetable.class, TimetableService.class, timetable);
+        });
+        return cases;
+    }
+
+    // the endpoints' own roles, access levels and priorities, an HttpRequest needs a running server
+    private static void authorize(String accessToken,
+                                  Set<Role> targetRoles,
+                                  Set<AccessLevel> accessLevels,
+                                  Priority priority) {
+        var access = AuthenticationService.authorize(accessToken, targetRoles, accessLevels, priority);
+        if (access.outcome() != AuthenticationService.Outcome.GRANTED) throw new IllegalStateException("Authentication " + access.outcome());
+    }
+
+    @FunctionalInterface
+    private interface Call {
+        void call() throws Exception;
+    }
+}
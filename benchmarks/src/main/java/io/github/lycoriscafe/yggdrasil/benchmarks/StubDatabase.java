@@ -0,0 +1,139 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.benchmarks;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+// answers queries from fake tables keyed by the table after FROM, COUNT(1) queries get the row count and inserts generate id 1
+public final class StubDatabase implements DataSource {
+    private final Map<String, FakeTable> tables = new ConcurrentHashMap<>();
+
+    public StubDatabase put(String table,
+                            FakeTable rows) {
+        tables.put(table.toLowerCase(), rows);
+        return this;
+    }
+
+    // a single-connection pool is enough, the harness calls from one thread
+    public HikariDataSource pool() {
+        var config = new HikariConfig();
+        config.setDataSource(this);
+        config.setPoolName("stub");
+        config.setMaximumPoolSize(1);
+        config.setAutoCommit(false);
+        return new HikariDataSource(config);
+    }
+
+    private FakeTable table(String sql) throws SQLException {
+        String lower = sql.toLowerCase();
+        int from = lower.lastIndexOf(" from ");
+        if (from < 0) throw new SQLException("Unsupported query: " + sql);
+        String name = lower.substring(from + 6).strip().split("[\\s(]", 2)[0];
+        var table = tables.get(name);
+        if (table == null) throw new SQLException("No fake table for '" + name + "'");
+        if (!lower.startsWith("select count(1)")) return table;
+        return new FakeTable("count").add(String.valueOf(table.size()));
+    }
+
+    private PreparedStatement statement(String sql) {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "executeQuery" -> table(sql).open();
+                    case "executeUpdate" -> 1;
+                    case "executeBatch" -> new int[]{1};
+                    case "getGeneratedKeys" -> new FakeTable("id").add("1").open();
+                    case "execute" -> true;
+                    case "getUpdateCount" -> -1;
+                    case "isClosed", "isWrapperFor" -> false;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "StubStatement[" + sql + "]";
+                    default -> defaultValue(method.getReturnType());
+                });
+    }
+
+    @Override
+    public Connection getConnection() {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "prepareStatement" -> statement((String) args[0]);
+                    case "isValid" -> true;
+                    case "getTransactionIsolation" -> Connection.TRANSACTION_REPEATABLE_READ;
+                    case "isClosed", "isReadOnly", "getAutoCommit", "isWrapperFor" -> false;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "StubConnection";
+                    default -> defaultValue(method.getReturnType());
+                });
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) return false;
+        if (type == int.class) return 0;
+        if (type == long.class) return 0L;
+        return null;
+    }
+
+    @Override
+    public Connection getConnection(String username,
+                                    String password) {
+        return getConnection();
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {}
+
+    @Override
+    public void setLoginTimeout(int seconds) {}
+
+    @Override
+    public int getLoginTimeout() {
+        return 0;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        throw new SQLException("Not a wrapper");
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return false;
+    }
+}
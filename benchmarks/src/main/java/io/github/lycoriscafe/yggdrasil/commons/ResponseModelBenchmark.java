@@ -0,0 +1,60 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.commons;
+
+import io.github.lycoriscafe.nexus.http.core.headers.content.Content;
+import io.github.lycoriscafe.yggdrasil.benchmarks.Fixtures;
+import io.github.lycoriscafe.yggdrasil.rest.student.Student;
+import io.github.lycoriscafe.yggdrasil.rest.student.StudentService;
+import io.github.lycoriscafe.yggdrasil.storage.JdbcStorage;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ResponseModelBenchmark {
+    @Param({"1", "20", "100", "500"})
+    private int pageSize;
+
+    @Param({"OBJECT", "COLUMNAR"})
+    private ResponseShape shape;
+
+    private ResponseModel<Student> response;
+
+    @Setup
+    public void setup() throws Exception {
+        var data = JdbcStorage.mapRows(Student.class, StudentService.class, Fixtures.students(pageSize).open());
+        response = new ResponseModel<Student>()
+                .setData(data)
+                .setGenerableResults(BigInteger.valueOf(12_000))
+                .setResultsFrom(BigInteger.ZERO)
+                .setResultsOffset(BigInteger.valueOf(pageSize))
+                .setShape(shape)
+                .setSuccess(true);
+    }
+
+    @Benchmark
+    public Content parse() {
+        return response.parse();
+    }
+}
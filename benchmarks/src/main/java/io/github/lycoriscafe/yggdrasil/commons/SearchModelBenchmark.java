@@ -0,0 +1,51 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.commons;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SearchModelBenchmark {
+    private static final String SIMPLE = """
+            {"searchBy": {"id": {"42": false}}}""";
+    private static final String TYPICAL = """
+            {
+              "searchBy": {"classroomId": {"12": false}, "fullName": {"%Perera%": false, "%Silva%": false}},
+              "orderBy": ["fullName", "id"],
+              "isAscending": true,
+              "resultsFrom": 0,
+              "resultsOffset": 50,
+              "shape": "columnar"
+            }""";
+
+    @Benchmark
+    public SearchModel fromJsonSimple() {
+        return SearchModel.fromJson(SIMPLE);
+    }
+
+    @Benchmark
+    public SearchModel fromJsonTypical() {
+        return SearchModel.fromJson(TYPICAL);
+    }
+}
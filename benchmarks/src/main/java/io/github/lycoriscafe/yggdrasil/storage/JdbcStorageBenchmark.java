@@ -0,0 +1,91 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.storage;
+
+import io.github.lycoriscafe.yggdrasil.authentication.Device;
+import io.github.lycoriscafe.yggdrasil.benchmarks.FakeTable;
+import io.github.lycoriscafe.yggdrasil.benchmarks.Fixtures;
+import io.github.lycoriscafe.yggdrasil.commons.SearchModel;
+import io.github.lycoriscafe.yggdrasil.rest.student.Student;
+import io.github.lycoriscafe.yggdrasil.rest.student.StudentService;
+import io.github.lycoriscafe.yggdrasil.rest.student.attendance.StudentAttendance;
+import io.github.lycoriscafe.yggdrasil.rest.student.attendance.StudentAttendanceService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigInteger;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class JdbcStorageBenchmark {
+    @Param({"10", "50", "200"})
+    private int rows;
+
+    private SearchModel searchModel;
+    private FakeTable students;
+    private FakeTable attendances;
+    private FakeTable devices;
+
+    @Setup
+    public void setup() {
+        Map<String, Map<String, Boolean>> searchBy = new LinkedHashMap<>();
+        searchBy.put("classroomId", Map.of("12", false));
+        searchBy.put("fullName", Map.of("%Perera%", false, "%Silva%", false));
+        searchBy.put("disabled", Map.of("0", true));
+        searchModel = new SearchModel()
+                .setSearchBy(searchBy)
+                .setOrderBy(List.of("fullName", "id"))
+                .setAscending(true)
+                .setResultsFrom(BigInteger.ZERO)
+                .setResultsOffset(BigInteger.valueOf(rows));
+        students = Fixtures.students(rows);
+        attendances = Fixtures.studentAttendances(rows);
+        devices = Fixtures.devices(Math.min(rows, 5));
+    }
+
+    @Benchmark
+    public String selectQuery() {
+        return JdbcStorage.selectQuery(Student.class, searchModel);
+    }
+
+    @Benchmark
+    public String insertQuery() {
+        return JdbcStorage.insertQuery(Student.class);
+    }
+
+    @Benchmark
+    public List<Student> mapStudents() throws Exception {
+        return JdbcStorage.mapRows(Student.class, StudentService.class, students.open());
+    }
+
+    @Benchmark
+    public List<StudentAttendance> mapStudentAttendances() throws Exception {
+        return JdbcStorage.mapRows(StudentAttendance.class, StudentAttendanceService.class, attendances.open());
+    }
+
+    @Benchmark
+    public List<Device> deserializeDevices() throws Exception {
+        return JdbcStorage.deserializeDevices(devices.open());
+    }
+}
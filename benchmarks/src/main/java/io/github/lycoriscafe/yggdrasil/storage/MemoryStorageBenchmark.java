@@ -0,0 +1,79 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.storage;
+
+import io.github.lycoriscafe.yggdrasil.benchmarks.Fixtures;
+import io.github.lycoriscafe.yggdrasil.commons.CommonService;
+import io.github.lycoriscafe.yggdrasil.commons.ResponseModel;
+import io.github.lycoriscafe.yggdrasil.commons.SearchModel;
+import io.github.lycoriscafe.yggdrasil.configuration.YggdrasilConfig;
+import io.github.lycoriscafe.yggdrasil.rest.student.Student;
+import io.github.lycoriscafe.yggdrasil.rest.student.StudentService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// CommonService.read with the database taken out, set against a MySQL-backed load test run it splits our cost from the database's
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MemoryStorageBenchmark {
+    @Param({"10000"})
+    private int students;
+
+    @Param({"20", "200"})
+    private int pageSize;
+
+    private String studentId;
+
+    @Setup
+    public void setup() throws Exception {
+        var storage = new MemoryStorage();
+        List<Student> rows = JdbcStorage.mapRows(Student.class, StudentService.class, Fixtures.students(students).open());
+        storage.insertAll(Student.class, StudentService.class, rows, null);
+        YggdrasilConfig.initializeStorage(storage);
+        studentId = String.valueOf(students / 2);
+    }
+
+    @Benchmark
+    public ResponseModel<Student> readById() {
+        return CommonService.read(Student.class, StudentService.class, new SearchModel()
+                .setSearchBy(Map.of("id", Map.of(studentId, false))));
+    }
+
+    @Benchmark
+    public ResponseModel<Student> readPage() {
+        return CommonService.read(Student.class, StudentService.class, new SearchModel()
+                .setResultsFrom(BigInteger.valueOf(pageSize))
+                .setResultsOffset(BigInteger.valueOf(pageSize)));
+    }
+
+    @Benchmark
+    public ResponseModel<Student> searchByName() {
+        return CommonService.read(Student.class, StudentService.class, new SearchModel()
+                .setSearchBy(Map.of("fullName", Map.of("%Silva%", false)))
+                .setOrderBy(List.of("fullName"))
+                .setAscending(true)
+                .setResultsOffset(BigInteger.valueOf(pageSize)));
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.loadtest;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+final class ApiClient {
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
+    private final HttpClient httpClient;
+    private final URI baseUri;
+
+    ApiClient(URI baseUri) {
+        this.baseUri = baseUri;
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    Session login(String username,
+                  String password,
+                  String deviceName) throws IOException, InterruptedException {
+        String form = "grant_type=credentials" +
+                "&username=" + URLEncoder.encode(username, StandardCharsets.UTF_8) +
+                "&password=" + URLEncoder.encode(password, StandardCharsets.UTF_8) +
+                "&deviceName=" + URLEncoder.encode(deviceName, StandardCharsets.UTF_8);
+        var response = httpClient.send(request("/login", null)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        JsonObject json = parse(response);
+        if (!json.has("access_token")) throw failure(response, "Login of " + username + " failed: " + response.body());
+        return new Session(username, json.get("access_token").getAsString(), json.get("refresh_token").getAsString());
+    }
+
+    Session refresh(Session session) throws IOException, InterruptedException {
+        String form = "grant_type=refresh_token&token=" + URLEncoder.encode(session.refreshToken(), StandardCharsets.UTF_8);
+        var response = httpClient.send(request("/login", null)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        JsonObject json = parse(response);
+        if (!json.has("access_token")) throw failure(response, "Refresh of " + session.username() + " failed: " + response.body());
+        return new Session(session.username(), json.get("access_token").getAsString(), session.refreshToken());
+    }
+
+    String post(Session session,
+                String path,
+                String json) throws IOException, InterruptedException {
+        var response = httpClient.send(request(path, session)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        requireSuccess(path, response);
+        return response.body();
+    }
+
+    void patch(Session session,
+               String path) throws IOException, InterruptedException {
+        var response = httpClient.send(request(path, session)
+                .method("PATCH", HttpRequest.BodyPublishers.noBody())
+                .build(), HttpResponse.BodyHandlers.ofString());
+        requireSuccess(path, response);
+    }
+
+    // exports are streamed, reading the whole body is part of the measured time
+    long export(Session session,
+                String path,
+                String json) throws IOException, InterruptedException {
+        var response = httpClient.send(request(path, session)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build(), HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = response.body()) {
+            if (response.statusCode() != 200) throw new IOException(path + " answered " + response.statusCode());
+            long bytes = 0L;
+            byte[] buffer = new byte[64 * 1024];
+            for (int read; (read = body.read(buffer)) != -1; ) bytes += read;
+            return bytes;
+        }
+    }
+
+    String get(String path,
+               String bearerToken) throws IOException, InterruptedException {
+        var builder = HttpRequest.newBuilder(baseUri.resolve(path)).timeout(REQUEST_TIMEOUT).GET();
+        if (bearerToken != null) builder.header("Authorization", "Bearer " + bearerToken);
+        var response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) throw new IOException(path + " answered " + response.statusCode());
+        return response.body();
+    }
+
+    boolean isReachable() {
+        try {
+            httpClient.send(HttpRequest.newBuilder(baseUri.resolve("/metrics")).timeout(Duration.ofSeconds(2)).GET().build(),
+                    HttpResponse.BodyHandlers.discarding());
+            return true;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private HttpRequest.Builder request(String path,
+                                        Session session) {
+        var builder = HttpRequest.newBuilder(baseUri.resolve(path)).timeout(REQUEST_TIMEOUT);
+        if (session != null) builder.header("Authorization", "Bearer " + session.accessToken());
+        return builder;
+    }
+
+    private static void requireSuccess(String path,
+                                       HttpResponse<String> response) throws IOException {
+        if (response.statusCode() != 200) throw failure(response, path + " answered " + response.statusCode());
+        JsonObject json = parse(response);
+        if (json.has("success") && !json.get("success").getAsBoolean()) {
+            throw new RejectedException(path + " failed: " + (json.get("error").isJsonNull() ? "unknown" : json.get("error").getAsString()));
+        }
+    }
+
+    // a server fault stays a plain IOException, anything the server answered deliberately is a rejection
+    private static IOException failure(HttpResponse<String> response,
+                                       String message) {
+        return response.statusCode() >= 500 ? new IOException(message) : new RejectedException(message);
+    }
+
+    private static JsonObject parse(HttpResponse<String> response) throws IOException {
+        try {
+            return JsonParser.parseString(response.body()).getAsJsonObject();
+        } catch (RuntimeException e) {
+            throw new IOException("Unparsable response (" + response.statusCode() + "): " + response.body(), e);
+        }
+    }
+
+    record Session(String username,
+                   String accessToken,
+                   String refreshToken) {}
+
+    static final class RejectedException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private RejectedException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.loadtest;
+
+import com.mysql.cj.jdbc.JdbcStatement;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// fills a freshly created schema with a deterministic dataset, chunk by chunk on parallel connections
+public final class DataGenerator {
+    private static final String USAGE = """
+            Usage: java -cp loadtest.jar io.github.lycoriscafe.yggdrasil.loadtest.DataGenerator [options]
+              --mysql <url>             MySQL server to fill, e.g. jdbc:mysql://localhost:3306 (required)
+              --user <name>             database user (default: root)
+              --password <password>     database password (default: root)
+              --schema <name>           schema recreated and filled (default: yggdrasil_loadtest)
+              --scale <preset|n>        school (2000 students), town (20000), district (200000) or a student count
+                                        (default: school)
+              --attendance-days <n>     school days of attendance history before today (default: 200)
+              --seed <n>                the same seed and scale always produce the same rows (default: 1)
+              --threads <n>             parallel loader connections (default: available processors)
+              --load-data               stream rows with LOAD DATA LOCAL INFILE instead of batched inserts,
+                                        needs local_infile enabled on the server
+            """;
+    private static final int CHUNK_ROWS = 50_000;
+    private static final int BATCH_SIZE = 1000;
+    // they overwrite date and time with NOW(), which would collapse the history into a single day
+    private static final List<String> TRIGGERS = List.of("studentAttendance_prevent_null_timestamp_insert",
+            "teacherAttendance_prevent_null_timestamp_insert");
+
+    public static void main(String[] args) throws Exception {
+        String mysql = null;
+        String user = "root";
+        String password = "root";
+        String schema = "yggdrasil_loadtest";
+        int students = Dataset.parseScale("school");
+        int attendanceDays = 200;
+        long seed = 1;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean loadData = false;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String name = args[i];
+                if (name.equals("-h") || name.equals("--help")) {
+                    System.out.print(USAGE);
+                    return;
+                }
+                if (name.equals("--load-data")) {
+                    loadData = true;
+                    continue;
+                }
+                if (i + 1 == args.length) throw new IllegalArgumentException("Missing value for " + name);
+                String value = args[++i];
+                switch (name) {
+                    case "--mysql" -> mysql = value;
+                    case "--user" -> user = value;
+                    case "--password" -> password = value;
+                    case "--schema" -> schema = value;
+                    case "--scale" -> students = Dataset.parseScale(value);
+                    case "--attendance-days" -> attendanceDays = Integer.parseInt(value);
+                    case "--seed" -> seed = Long.parseLong(value);
+                    case "--threads" -> threads = Integer.parseInt(value);
+                    default -> throw new IllegalArgumentException("Unknown option " + name);
+                }
+            }
+            if (mysql == null) throw new IllegalArgumentException("--mysql is required");
+            if (!schema.matches("\\w+")) throw new IllegalArgumentException("Invalid schema name '" + schema + "'");
+            if (threads < 1) throw new IllegalArgumentException("Invalid thread count");
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        try (var database = TestDatabase.external(mysql, user, password, schema)) {
+            database.create();
+            load(database, new Dataset(seed, students, attendanceDays), threads, loadData);
+        }
+    }
+
+    static void load(TestDatabase database,
+                     Dataset dataset,
+                     int threads,
+                     boolean loadData) throws Exception {
+        long start = System.nanoTime();
+        Map<String, String> triggers = dropTriggers(database);
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            Map<String, List<Future<Long>>> chunks = new LinkedHashMap<>();
+            for (Dataset.Table table : dataset.tables()) {
+                List<Future<Long>> futures = new ArrayList<>();
+                for (long from = 0; from < table.rows(); from += CHUNK_ROWS) {
+                    long chunkFrom = from;
+                    long chunkTo = Math.min(table.rows(), from + CHUNK_ROWS);
+                    futures.add(executor.submit(() -> loadChunk(database, table, chunkFrom, chunkTo, loadData)));
+                }
+                chunks.put(table.name(), futures);
+            }
+
+            long total = 0;
+            for (var entry : chunks.entrySet()) {
+                long rows = 0;
+                for (Future<Long> future : entry.getValue()) rows += future.get();
+                total += rows;
+                System.out.printf("  %-20s %,12d rows%n", entry.getKey(), rows);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("Loaded %,d rows in %.1f s (%,.0f rows/s)%n", total, seconds, total / seconds);
+        } finally {
+            restoreTriggers(database, triggers);
+        }
+    }
+
+    // ids are explicit, so the chunks of every table can go in concurrently and in any order
+    private static long loadChunk(TestDatabase database,
+                                  Dataset.Table table,
+                                  long from,
+                                  long to,
+                                  boolean loadData) throws SQLException {
+        try (var connection = database.connect()) {
+            try (var statement = connection.createStatement()) {
+                statement.execute("SET foreign_key_checks = 0, unique_checks = 0");
+            }
+            long rows = loadData ? loadData(connection, table, from, to) : insert(connection, table, from, to);
+            connection.commit();
+            return rows;
+        }
+    }
+
+    private static long insert(Connection connection,
+                               Dataset.Table table,
+                               long from,
+                               long to) throws SQLException {
+        List<String> columns = table.columns();
+        String query = "INSERT INTO " + table.name() + " (" + String.join(", ", columns) + ") VALUES (" +
+                String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+        Object[] values = new Object[columns.size()];
+        long rows = 0;
+        try (var statement = connection.prepareStatement(query)) {
+            for (long row = from; row < to; row++) {
+                if (!table.source().row(row, values)) continue;
+                for (int i = 0; i < values.length; i++) statement.setObject(i + 1, values[i]);
+                statement.addBatch();
+                if (++rows % BATCH_SIZE == 0) statement.executeBatch();
+            }
+            statement.executeBatch();
+        }
+        return rows;
+    }
+
+    private static long loadData(Connection connection,
+                                 Dataset.Table table,
+                                 long from,
+                                 long to) throws SQLException {
+        Object[] values = new Object[table.columns().size()];
+        StringBuilder tsv = new StringBuilder();
+        long rows = 0;
+        for (long row = from; row < to; row++) {
+            if (!table.source().row(row, values)) continue;
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) tsv.append('\t');
+                appendField(tsv, values[i]);
+            }
+            tsv.append('\n');
+            rows++;
+        }
+
+        try (var statement = connection.createStatement()) {
+            // the driver reads the registered stream instead of opening the named file
+            statement.unwrap(JdbcStatement.class).setLocalInfileInputStream(new ByteArrayInputStream(tsv.toString().getBytes(StandardCharsets.UTF_8)));
+            statement.execute("LOAD DATA LOCAL INFILE '" + table.name() + ".tsv' INTO TABLE " + table.name() +
+                    " CHARACTER SET utf8mb4 (" + String.join(", ", table.columns()) + ")");
+        }
+        return rows;
+    }
+
+    private static void appendField(StringBuilder tsv,
+                                    Object value) {
+        switch (value) {
+            case null -> tsv.append("\\N");
+            case Boolean bool -> tsv.append(bool ? '1' : '0');
+            default -> {
+                String text = value.toString();
+                for (int i = 0; i < text.length(); i++) {
+                    char c = text.charAt(i);
+                    switch (c) {
+                        case '\\' -> tsv.append("\\\\");
+                        case '\t' -> tsv.append("\\t");
+                        case '\n' -> tsv.append("\\n");
+                        default -> tsv.append(c);
+                    }
+                }
+            }
+        }
+    }
+
+    private static Map<String, String> dropTriggers(TestDatabase database) throws SQLException {
+        Map<String, String> triggers = new LinkedHashMap<>();
+        try (var connection = database.connect();
+             var statement = connection.createStatement()) {
+            for (String trigger : TRIGGERS) {
+                try (var resultSet = statement.executeQuery("SHOW CREATE TRIGGER " + trigger)) {
+                    if (resultSet.next()) triggers.put(trigger, resultSet.getString("SQL Original Statement"));
+                }
+                statement.execute("DROP TRIGGER " + trigger);
+            }
+            connection.commit();
+        }
+        return triggers;
+    }
+
+    private static void restoreTriggers(TestDatabase database,
+                                        Map<String, String> triggers) throws SQLException {
+        try (var connection = database.connect();
+             var statement = connection.createStatement()) {
+            for (String definition : triggers.values()) statement.execute(definition);
+            connection.commit();
+        }
+    }
+}
@@ -0,0 +1,364 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.loadtest;
+
+import io.github.lycoriscafe.yggdrasil.authentication.AuthenticationService;
+
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.IntStream;
+
+// every value is a pure function of the seed and the row index, so chunks can be generated in any order or in parallel
+final class Dataset {
+    static final String PASSWORD = "loadtest-password";
+    static final int EXPORT_ADMINS = 10;
+    static final int GATE_ADMINS = 10;
+    private static final int FIRST_ADMIN = 2;
+    private static final int STUDENTS_PER_CLASSROOM = 40;
+    private static final int GRADES = 13;
+    private static final int SUBJECTS_PER_GRADE = 8;
+    private static final int DAYS = 5;
+    private static final int TIMESLOTS = 8;
+    private static final int ABSENCE_PERCENT = 6;
+    private static final int RELIEFS_PER_HUNDRED_CLASSROOMS = 5;
+    private static final int NOTIFICATIONS_PER_DAY = 2;
+    // arrivals spread over 07:00:00 to 07:59:59, formatted once instead of per row
+    private static final String[] ARRIVALS = IntStream.range(0, 3600)
+            .mapToObj(second -> LocalTime.of(7, 0).plusSeconds(second).format(DateTimeFormatter.ISO_LOCAL_TIME))
+            .toArray(String[]::new);
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String[] FIRST_NAMES = {"Amal", "Kamal", "Nimal", "Sunil", "Ruwan", "Kasun", "Dilani", "Nadeesha",
+            "Sanduni", "Tharushi", "Ishara", "Chamari", "Pradeep", "Lahiru", "Hiruni", "Sachini"};
+    private static final String[] LAST_NAMES = {"Perera", "Fernando", "Silva", "Bandara", "Jayasinghe", "Wickramasinghe",
+            "Dissanayake", "Rathnayake", "Gunawardena", "Herath", "Karunaratne", "Senanayake"};
+    private static final String[] CITIES = {"Kandy", "Colombo", "Galle", "Matara", "Kurunegala", "Jaffna", "Badulla", "Negombo"};
+
+    private final long seed;
+    private final int students;
+    private final int classrooms;
+    private final int grades;
+    private final int teachers;
+    private final int attendanceDays;
+    private final List<String> schoolDays;
+    private final String password;
+
+    Dataset(long seed,
+            int students,
+            int attendanceDays) throws NoSuchAlgorithmException {
+        if (students < 1) throw new IllegalArgumentException("At least one student is required");
+        if (attendanceDays < 0) throw new IllegalArgumentException("Invalid attendance days");
+        this.seed = seed;
+        this.students = students;
+        this.attendanceDays = attendanceDays;
+        classrooms = (students + STUDENTS_PER_CLASSROOM - 1) / STUDENTS_PER_CLASSROOM;
+        grades = Math.min(GRADES, classrooms);
+        teachers = Math.max(classrooms + classrooms / 4, grades * SUBJECTS_PER_GRADE / 2);
+        schoolDays = schoolDays(attendanceDays);
+        password = AuthenticationService.encryptData(PASSWORD.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static int parseScale(String scale) {
+        return switch (scale) {
+            case "school" -> 2_000;
+            case "town" -> 20_000;
+            case "district" -> 200_000;
+            default -> Integer.parseInt(scale);
+        };
+    }
+
+    int getStudents() {
+        return students;
+    }
+
+    int getTeachers() {
+        return teachers;
+    }
+
+    int classroomOf(int student) {
+        return 1 + (student - 1) % classrooms;
+    }
+
+    // admin 1 is the default SUPERUSER from database.sql, export accounts follow it and then the gate accounts
+    int exportAdmin(int index) {
+        return FIRST_ADMIN + index % EXPORT_ADMINS;
+    }
+
+    int gateAdmin(int index) {
+        return FIRST_ADMIN + EXPORT_ADMINS + index % GATE_ADMINS;
+    }
+
+    List<Table> tables() {
+        int subjects = grades * SUBJECTS_PER_GRADE;
+        int timetables = classrooms * DAYS * TIMESLOTS;
+        int reliefsPerDay = Math.max(1, classrooms * RELIEFS_PER_HUNDRED_CLASSROOMS / 100);
+        int admins = EXPORT_ADMINS + GATE_ADMINS;
+        return List.of(
+                new Table("admin", List.of("id", "name", "accessLevel"), admins, (row, values) -> {
+                    int id = FIRST_ADMIN + (int) row;
+                    values[0] = id;
+                    values[1] = row < EXPORT_ADMINS ? "Export " + (row + 1) : "Gate " + (row - EXPORT_ADMINS + 1);
+                    values[2] = row < EXPORT_ADMINS ? "SUPERUSER" : "STUDENT";
+                    return true;
+                }),
+                new Table("teacher", List.of("id", "nic", "initName", "fullName", "gender", "dateOfBirth", "address", "email",
+                        "contactNo", "disabled"), teachers, (row, values) -> {
+                    long id = row + 1;
+                    var random = new Random(seed, 1, id);
+                    person(values, 1, random, 200_000_000_000L + id, 1965, 1998);
+                    values[0] = id;
+                    values[7] = "teacher" + id + "@school.lk";
+                    values[8] = String.format("071%07d", id);
+                    values[9] = random.nextInt(100) < 2;
+                    return true;
+                }),
+                new Table("classroom", List.of("id", "teacherId", "grade", "name"), classrooms, (row, values) -> {
+                    long id = row + 1;
+                    values[0] = id;
+                    values[1] = id;
+                    values[2] = 1 + row % grades;
+                    values[3] = "C" + id;
+                    return true;
+                }),
+                new Table("subject", List.of("id", "grade", "shortName", "longName", "teacherId"), subjects, (row, values) -> {
+                    values[0] = row + 1;
+                    values[1] = 1 + row / SUBJECTS_PER_GRADE;
+                    values[2] = "S" + (1 + row % SUBJECTS_PER_GRADE);
+                    values[3] = "Subject " + (1 + row % SUBJECTS_PER_GRADE) + " of grade " + (1 + row / SUBJECTS_PER_GRADE);
+                    values[4] = 1 + row % teachers;
+                    return true;
+                }),
+                new Table("teacherSubjectJoin", List.of("id", "teacherId", "subjectId"), subjects, (row, values) -> {
+                    values[0] = row + 1;
+                    values[1] = 1 + row % teachers;
+                    values[2] = row + 1;
+                    return true;
+                }),
+                new Table("timetable", List.of("id", "teacherId", "subjectId", "classroomId", "day", "timeslot"), timetables, (row, values) -> {
+                    long classroom = 1 + row / (DAYS * TIMESLOTS);
+                    long day = 1 + row / TIMESLOTS % DAYS;
+                    long timeslot = 1 + row % TIMESLOTS;
+                    long subject = (classroom - 1) % grades * SUBJECTS_PER_GRADE + 1 + (day + timeslot) % SUBJECTS_PER_GRADE;
+                    values[0] = row + 1;
+                    values[1] = 1 + (subject - 1) % teachers;
+                    values[2] = subject;
+                    values[3] = classroom;
+                    values[4] = day;
+                    values[5] = timeslot;
+                    return true;
+                }),
+                // picks on the same day are spaced apart, so (timetableId, date) stays unique
+                new Table("relief", List.of("id", "timetableId", "teacherId", "date"), (long) reliefsPerDay * attendanceDays, (row, values) -> {
+                    int day = (int) (row / reliefsPerDay);
+                    long pick = row % reliefsPerDay;
+                    long timetable = 1 + (pick * (timetables / reliefsPerDay) + day) % timetables;
+                    values[0] = row + 1;
+                    values[1] = timetable;
+                    values[2] = 1 + new Random(seed, 2, row).nextInt(teachers);
+                    values[3] = schoolDays.get(day);
+                    return true;
+                }),
+                new Table("notification", List.of("id", "scope", "message", "draft"), (long) NOTIFICATIONS_PER_DAY * attendanceDays, (row, values) -> {
+                    var random = new Random(seed, 3, row);
+                    values[0] = row + 1;
+                    values[1] = random.nextBoolean() ? "STUDENT" : random.nextBoolean() ? "TEACHER" : "STUDENT,TEACHER";
+                    values[2] = "Notice " + (row + 1) + ": " + LAST_NAMES[random.nextInt(LAST_NAMES.length)] + " hall is booked for the "
+                            + CITIES[random.nextInt(CITIES.length)] + " zonal meeting.";
+                    values[3] = random.nextInt(10) == 0;
+                    return true;
+                }),
+                new Table("guardian", List.of("id", "nic", "initName", "fullName", "gender", "dateOfBirth", "address", "email",
+                        "contactNo"), students, (row, values) -> {
+                    long id = row + 1;
+                    var random = new Random(seed, 4, id);
+                    person(values, 1, random, 100_000_000_000L + id, 1965, 1992);
+                    values[0] = id;
+                    values[7] = random.nextInt(3) == 0 ? null : "guardian" + id + "@mail.lk";
+                    values[8] = String.format("077%07d", id % 10_000_000);
+                    return true;
+                }),
+                new Table("student", List.of("id", "guardianId", "classroomId", "initName", "fullName", "gender", "dateOfBirth",
+                        "nic", "address", "regYear", "contactNo", "email", "disabled"), students, (row, values) -> {
+                    int id = (int) row + 1;
+                    var random = new Random(seed, 5, id);
+                    int classroom = classroomOf(id);
+                    int grade = 1 + (classroom - 1) % grades;
+                    int birthYear = LocalDate.now().getYear() - 5 - grade;
+                    values[0] = id;
+                    values[1] = id;
+                    values[2] = classroom;
+                    String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+                    String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+                    values[3] = first.charAt(0) + ". " + last;
+                    values[4] = first + " " + FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + last;
+                    values[5] = random.nextBoolean() ? "MALE" : "FEMALE";
+                    values[6] = LocalDate.of(birthYear, 1, 1).plusDays(random.nextInt(365)).toString();
+                    values[7] = grade >= 11 ? String.format("%012d", 300_000_000_000L + id) : null;
+                    values[8] = (1 + random.nextInt(500)) + ", Temple Road, " + CITIES[random.nextInt(CITIES.length)];
+                    values[9] = String.valueOf(LocalDate.now().getYear() - grade + 1);
+                    values[10] = null;
+                    values[11] = null;
+                    values[12] = random.nextInt(200) == 0;
+                    return true;
+                }),
+                new Table("studentSubjectJoin", List.of("id", "studentId", "subjectId"), (long) students * SUBJECTS_PER_GRADE, (row, values) -> {
+                    int student = (int) (row / SUBJECTS_PER_GRADE) + 1;
+                    values[0] = row + 1;
+                    values[1] = student;
+                    values[2] = (classroomOf(student) - 1) % grades * SUBJECTS_PER_GRADE + 1 + row % SUBJECTS_PER_GRADE;
+                    return true;
+                }),
+                new Table("studentAttendance", List.of("id", "studentId", "date", "time"), (long) students * attendanceDays,
+                        (row, values) -> attendance(row, students, 6, values)),
+                new Table("teacherAttendance", List.of("id", "teacherId", "date", "time"), (long) teachers * attendanceDays,
+                        (row, values) -> attendance(row, teachers, 7, values)),
+                new Table("authentication", List.of("role", "userId", "password"), admins + teachers + students, (row, values) -> {
+                    if (row < admins) {
+                        values[0] = "ADMIN";
+                        values[1] = FIRST_ADMIN + row;
+                    } else if (row < admins + teachers) {
+                        values[0] = "TEACHER";
+                        values[1] = row - admins + 1;
+                    } else {
+                        values[0] = "STUDENT";
+                        values[1] = row - admins - teachers + 1;
+                    }
+                    values[2] = password;
+                    return true;
+                }),
+                // at most two devices per user, a fresh login never has to evict one
+                new Table("device", List.of("role", "userId", "deviceName", "accessToken", "expires", "refreshToken", "lastLogin"),
+                        2L * (teachers + students), (row, values) -> {
+                    long user = row / 2;
+                    var random = new Random(seed, 8, row);
+                    if (row % 2 == 1 && random.nextInt(3) != 0) return false;
+                    boolean teacher = user < teachers;
+                    values[0] = teacher ? "TEACHER" : "STUDENT";
+                    values[1] = teacher ? user + 1 : user - teachers + 1;
+                    values[2] = row % 2 == 0 ? "phone" : "tablet";
+                    values[3] = random.token();
+                    LocalDateTime lastLogin = LocalDateTime.now().minusMinutes(random.nextInt(60 * 24 * 30)).withNano(0);
+                    values[4] = lastLogin.plusHours(1).atZone(ZoneId.systemDefault()).toEpochSecond();
+                    values[5] = random.token();
+                    values[6] = lastLogin.format(DATE_TIME);
+                    return true;
+                })
+        );
+    }
+
+    // rows run day by day over every member, an absent member simply has no row that day
+    private boolean attendance(long row,
+                               int members,
+                               int table,
+                               Object[] values) {
+        int day = (int) (row / members);
+        long member = row % members + 1;
+        var random = new Random(seed, table, row);
+        if (random.nextInt(100) < ABSENCE_PERCENT) return false;
+        values[0] = row + 1;
+        values[1] = member;
+        values[2] = schoolDays.get(day);
+        values[3] = ARRIVALS[random.nextInt(ARRIVALS.length)];
+        return true;
+    }
+
+    private static void person(Object[] values,
+                               int offset,
+                               Random random,
+                               long nic,
+                               int bornFrom,
+                               int bornUntil) {
+        String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+        String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+        values[offset] = String.format("%012d", nic);
+        values[offset + 1] = first.charAt(0) + ". " + last;
+        values[offset + 2] = first + " " + FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + last;
+        values[offset + 3] = random.nextBoolean() ? "MALE" : "FEMALE";
+        values[offset + 4] = LocalDate.of(bornFrom + random.nextInt(bornUntil - bornFrom + 1), 1, 1).plusDays(random.nextInt(365)).toString();
+        values[offset + 5] = (1 + random.nextInt(500)) + ", Main Street, " + CITIES[random.nextInt(CITIES.length)];
+    }
+
+    // weekdays before today, most recent last, so today stays free for the gate scenario
+    private static List<String> schoolDays(int count) {
+        String[] days = new String[count];
+        LocalDate date = LocalDate.now();
+        for (int i = count - 1; i >= 0; i--) {
+            do {
+                date = date.minusDays(1);
+            } while (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY);
+            days[i] = date.toString();
+        }
+        return List.of(days);
+    }
+
+    @FunctionalInterface
+    interface RowSource {
+        // fills values for the row and returns false when the row does not exist
+        boolean row(long row,
+                    Object[] values);
+    }
+
+    record Table(String name,
+                 List<String> columns,
+                 long rows,
+                 RowSource source) {}
+
+    // SplitMix64 keyed by (seed, table, row), independent of generation order
+    private static final class Random {
+        private long state;
+
+        private Random(long seed,
+                       int table,
+                       long row) {
+            state = mix(seed ^ mix(table * 0x9E3779B97F4A7C15L ^ row));
+        }
+
+        private long nextLong() {
+            return mix(state += 0x9E3779B97F4A7C15L);
+        }
+
+        private int nextInt(int bound) {
+            return (int) Math.floorMod(nextLong(), (long) bound);
+        }
+
+        private boolean nextBoolean() {
+            return nextLong() < 0;
+        }
+
+        private String token() {
+            byte[] bytes = new byte[32];
+            for (int i = 0; i < bytes.length; i += 8) {
+                long value = nextLong();
+                for (int j = 0; j < 8; j++) bytes[i + j] = (byte) (value >>> (j * 8));
+            }
+            return Base64.getEncoder().withoutPadding().encodeToString(bytes);
+        }
+
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
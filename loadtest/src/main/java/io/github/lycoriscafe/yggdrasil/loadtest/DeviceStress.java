@@ -0,0 +1,305 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.loadtest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// many clients of the same few users log in, refresh and log out at once while the device table is watched for overfilled slots
+public final class DeviceStress {
+    private static final String USAGE = """
+            Usage: java -cp loadtest.jar io.github.lycoriscafe.yggdrasil.loadtest.DeviceStress [options]
+              --mysql <url>              MySQL server to test against, e.g. jdbc:mysql://localhost:3306
+                                         (default: an embedded MariaDB stand-in)
+              --user <name>              database user (default: root)
+              --password <password>      database password (default: root, empty for the embedded server)
+              --schema <name>            schema recreated for the run (default: yggdrasil_device_stress)
+              --users <n>                accounts shared by the clients (default: 20)
+              --clients-per-user <n>     concurrent clients of every account (default: 8)
+              --max-devices <n>          maxLoginDevices of the server under test (default: 3)
+              --duration <seconds>       length of the run (default: 30)
+              --seed <n>                 seed of the generated data (default: 1)
+              --port <port>              HTTP port of the server under test (default: 2004)
+              --jvm-args <args>          extra JVM arguments for the server, space separated
+            """;
+    private static final long SAMPLE_INTERVAL_MILLIS = 50L;
+    private static final int MAX_FAULT_MESSAGES = 10;
+
+    public static void main(String[] args) throws Exception {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+            return;
+        }
+        if (options == null) {
+            System.out.print(USAGE);
+            return;
+        }
+
+        Path workDirectory = Files.createTempDirectory("yggdrasil-device-stress");
+        List<String> violations;
+        System.out.println("Working directory: " + workDirectory);
+        try (var database = options.mysql() == null ?
+                TestDatabase.embedded(options.schema()) :
+                TestDatabase.external(options.mysql(), options.user(), options.password(), options.schema())) {
+            database.create();
+            DataGenerator.load(database, new Dataset(options.seed(), options.users(), 0), Runtime.getRuntime().availableProcessors(), false);
+
+            Properties settings = new Properties();
+            settings.setProperty("maxLoginDevices", String.valueOf(options.maxDevices()));
+            try (var server = TestServer.start(database, options.port(), options.jvmArgs(), workDirectory, settings)) {
+                System.out.println("Server up, log at " + server.getLog());
+                System.out.println("Running " + options.users() * options.clientsPerUser() + " clients on " + options.users() +
+                        " accounts for " + options.duration().toSeconds() + " s");
+                violations = run(database, new ApiClient(server.getBaseUri()), options);
+            }
+        }
+        if (violations.isEmpty()) {
+            System.out.println("\nAll invariants held");
+            return;
+        }
+        System.out.println();
+        violations.forEach(violation -> System.out.println("VIOLATION " + violation));
+        System.exit(1);
+    }
+
+    private static List<String> run(TestDatabase database,
+                                     ApiClient client,
+                                     Options options) throws Exception {
+        var clients = new ArrayList<Client>();
+        for (int i = 0; i < options.users() * options.clientsPerUser(); i++) clients.add(new Client(client, 1 + i % options.users(), i));
+
+        double seconds;
+        int peak;
+        try (var sampler = new DeviceSampler(database)) {
+            long start = System.nanoTime();
+            long deadline = start + options.duration().toNanos();
+            try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (Client stressClient : clients) executor.submit(() -> {
+                    while (System.nanoTime() < deadline) stressClient.cycle();
+                    return null;
+                });
+            }
+            seconds = (System.nanoTime() - start) / 1e9;
+            peak = sampler.stop();
+        }
+
+        int remaining;
+        try (var connection = database.connect()) {
+            remaining = DeviceSampler.mostDevices(connection);
+        }
+
+        var operations = Recorder.merge(clients.stream().map(stressClient -> stressClient.recorder).toList(), seconds);
+        long total = operations.values().stream().mapToLong(Recorder.OperationResult::count).sum();
+        System.out.printf("%n== device-stress: %d clients, %.0f s, %.1f req/s ==%n", clients.size(), seconds, total / seconds);
+        System.out.printf("%-22s %9s %7s %9s %9s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "faults", "rejected", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<String, Recorder.OperationResult> entry : operations.entrySet()) {
+            var operation = entry.getValue();
+            System.out.printf("%-22s %9d %7d %9d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", entry.getKey(), operation.count(), operation.errors(),
+                    Client.rejected(entry.getKey()), operation.throughput(), operation.p50(), operation.p90(), operation.p99(),
+                    operation.p999(), operation.max());
+        }
+        System.out.printf("peak devices per account %d while running, %d after, limit %d%n", peak, remaining, options.maxDevices());
+
+        List<String> violations = new ArrayList<>();
+        if (peak > options.maxDevices()) violations.add("an account held " + peak + " devices while running");
+        if (remaining > options.maxDevices()) violations.add("an account holds " + remaining + " devices after the run");
+        // valid credentials are never turned away, a full account evicts its oldest device instead
+        if (Client.rejected("login") > 0) violations.add(Client.rejected("login") + " logins with valid credentials were rejected");
+        long faults = operations.values().stream().mapToLong(Recorder.OperationResult::errors).sum();
+        if (faults > 0) violations.add(faults + " requests failed with a server fault, e.g. " + Client.FAULTS);
+        return violations;
+    }
+
+    private static final class Client {
+        private static final Map<String, LongAdder> REJECTED = new ConcurrentHashMap<>();
+        private static final ConcurrentLinkedQueue<String> FAULTS = new ConcurrentLinkedQueue<>();
+
+        private final ApiClient client;
+        private final int student;
+        private final String deviceName;
+        private final Recorder recorder = new Recorder();
+
+        private Client(ApiClient client,
+                       int student,
+                       int index) {
+            this.client = client;
+            this.student = student;
+            deviceName = "stress-" + index;
+        }
+
+        // refreshes and logouts may find their device evicted by a sibling's login, which is a rejection and not a fault
+        private void cycle() throws InterruptedException {
+            var session = record("login", () -> client.login("s" + student, Dataset.PASSWORD, deviceName));
+            var random = ThreadLocalRandom.current();
+            for (int i = random.nextInt(3); i > 0 && session != null; i--) {
+                var current = session;
+                session = record("refresh", () -> client.refresh(current));
+            }
+            if (session == null || random.nextBoolean()) return;
+            var current = session;
+            record("logout", () -> {
+                client.patch(current, "/student/logout");
+                return true;
+            });
+        }
+
+        private <T> T record(String operation,
+                             VirtualUser.Call<T> call) throws InterruptedException {
+            long start = System.nanoTime();
+            try {
+                T result = call.call();
+                recorder.record(operation, System.nanoTime() - start, true);
+                return result;
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (ApiClient.RejectedException e) {
+                recorder.record(operation, System.nanoTime() - start, true);
+                REJECTED.computeIfAbsent(operation, key -> new LongAdder()).increment();
+                return null;
+            } catch (Exception e) {
+                recorder.record(operation, System.nanoTime() - start, false);
+                if (FAULTS.size() < MAX_FAULT_MESSAGES) FAULTS.add(operation + ": " + e.getMessage());
+                return null;
+            }
+        }
+
+        private static long rejected(String operation) {
+            var count = REJECTED.get(operation);
+            return count == null ? 0L : count.sum();
+        }
+    }
+
+    // polls from its own connection, every query commits so each sample sees the latest committed devices
+    private static final class DeviceSampler implements AutoCloseable {
+        private final Thread thread;
+        private final AtomicInteger peak = new AtomicInteger();
+        private volatile boolean running = true;
+        private volatile Exception failure;
+
+        private DeviceSampler(TestDatabase database) {
+            thread = Thread.ofVirtual().start(() -> {
+                try (var connection = database.connect()) {
+                    while (running) {
+                        peak.accumulateAndGet(mostDevices(connection), Math::max);
+                        Thread.sleep(SAMPLE_INTERVAL_MILLIS);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (SQLException e) {
+                    failure = e;
+                }
+            });
+        }
+
+        private int stop() throws InterruptedException, IOException {
+            running = false;
+            thread.join();
+            if (failure != null) throw new IOException("Sampling the device table failed", failure);
+            return peak.get();
+        }
+
+        private static int mostDevices(Connection connection) throws SQLException {
+            try (var statement = connection.createStatement();
+                 var resultSet = statement.executeQuery("SELECT COALESCE(MAX(devices), 0) FROM " +
+                         "(SELECT COUNT(*) AS devices FROM device GROUP BY role, userId) counts")) {
+                resultSet.next();
+                int devices = resultSet.getInt(1);
+                connection.commit();
+                return devices;
+            }
+        }
+
+        @Override
+        public void close() throws InterruptedException {
+            running = false;
+            thread.join();
+        }
+    }
+
+    private record Options(String mysql,
+                           String user,
+                           String password,
+                           String schema,
+                           int users,
+                           int clientsPerUser,
+                           int maxDevices,
+                           Duration duration,
+                           long seed,
+                           int port,
+                           List<String> jvmArgs) {
+        private static Options parse(String[] args) {
+            String mysql = null;
+            String user = "root";
+            String password = null;
+            String schema = "yggdrasil_device_stress";
+            int users = 20;
+            int clientsPerUser = 8;
+            int maxDevices = 3;
+            Duration duration = Duration.ofSeconds(30);
+            long seed = 1;
+            int port = 2004;
+            List<String> jvmArgs = List.of();
+
+            for (int i = 0; i < args.length; i++) {
+                String name = args[i];
+                if (name.equals("-h") || name.equals("--help")) return null;
+                if (i + 1 == args.length) throw new IllegalArgumentException("Missing value for " + name);
+                String value = args[++i];
+                switch (name) {
+                    case "--mysql" -> mysql = value;
+                    case "--user" -> user = value;
+                    case "--password" -> password = value;
+                    case "--schema" -> schema = value;
+                    case "--users" -> users = Integer.parseInt(value);
+                    case "--clients-per-user" -> clientsPerUser = Integer.parseInt(value);
+                    case "--max-devices" -> maxDevices = Integer.parseInt(value);
+                    case "--duration" -> duration = Duration.ofSeconds(Long.parseLong(value));
+                    case "--seed" -> seed = Long.parseLong(value);
+                    case "--port" -> port = Integer.parseInt(value);
+                    case "--jvm-args" -> jvmArgs = Arrays.stream(value.split(" ")).filter(arg -> !arg.isBlank()).toList();
+                    default -> throw new IllegalArgumentException("Unknown option " + name);
+                }
+            }
+            if (!schema.matches("\\w+")) throw new IllegalArgumentException("Invalid schema name '" + schema + "'");
+            if (users < 1 || clientsPerUser < 1) throw new IllegalArgumentException("At least one user and client is required");
+            if (maxDevices < 1) throw new IllegalArgumentException("Invalid device limit");
+            if (password == null) password = mysql == null ? "" : "root";
+            return new Options(mysql, user, password, schema, users, clientsPerUser, maxDevices, duration, seed, port, jvmArgs);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.loadtest;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public final class LoadTest {
+    private static final String USAGE = """
+            Usage: java -jar loadtest.jar [options]
+              --mysql <url>          MySQL server to test against, e.g. jdbc:mysql://localhost:3306
+                                     (default: an embedded MariaDB stand-in)
+              --user <name>          database user (default: root)
+              --password <password>  database password (default: root, empty for the embedded server)
+              --schema <name>        schema recreated for the run (default: yggdrasil_loadtest)
+              --scenarios <list>     any of login-storm, gate-check-in, timetable-polling, admin-export
+                                     (default: all of them, in that order)
+              --clients <n>          virtual users per scenario (default: 500)
+              --duration <seconds>   measured length of each scenario (default: 60)
+              --students <scale>     school (2000 students), town (20000), district (200000) or a student count
+                                     (default: school)
+              --attendance-days <n>  school days of attendance history before today (default: 30)
+              --seed <n>             seed of the generated data (default: 1)
+              --threads <n>          parallel loader connections (default: available processors)
+              --load-data            load with LOAD DATA LOCAL INFILE, needs local_infile enabled on the server
+              --skip-load            reuse the data of an earlier run with the same scale, days and seed
+              --port <port>          HTTP port of the server under test (default: 2004)
+              --jvm-args <args>      extra JVM arguments for the server, space separated
+              --report <file>        JSON report (default: loadtest-report.json)
+            """;
+
+    public static void main(String[] args) throws Exception {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+            return;
+        }
+        if (options == null) {
+            System.out.print(USAGE);
+            return;
+        }
+
+        Path workDirectory = Files.createTempDirectory("yggdrasil-loadtest");
+        boolean overBudget;
+        System.out.println("Working directory: " + workDirectory);
+        try (var database = options.mysql() == null ?
+                TestDatabase.embedded(options.schema()) :
+                TestDatabase.external(options.mysql(), options.user(), options.password(), options.schema())) {
+            var dataset = new Dataset(options.seed(), options.students(), options.attendanceDays());
+            if (!options.skipLoad()) {
+                database.create();
+                DataGenerator.load(database, dataset, options.threads(), options.loadData());
+            }
+
+            List<Report.ScenarioResult> results = new ArrayList<>();
+            try (var server = TestServer.start(database, options.port(), options.jvmArgs(), workDirectory)) {
+                System.out.println("Server up, log at " + server.getLog());
+                var client = new ApiClient(server.getBaseUri());
+                for (Scenario scenario : options.scenarios()) {
+                    try (var connection = database.connect()) {
+                        scenario.prepare(connection);
+                    }
+                    System.out.println("Running " + scenario + " with " + options.clients() + " clients for " + options.duration().toSeconds() + " s");
+                    results.add(run(scenario, scenario.users(client, dataset, options.clients()), client, server.getMetricsToken(), options.duration()));
+                }
+            }
+            Report.print(results, System.out);
+            Report.write(results, options.report());
+            System.out.println("\nReport written to " + options.report().toAbsolutePath());
+            overBudget = results.stream().anyMatch(result -> !result.overBudget().isEmpty());
+        }
+        // a change that adds database round trips to a budgeted route fails the run
+        if (overBudget) System.exit(1);
+    }
+
+    private static Report.ScenarioResult run(Scenario scenario,
+                                             List<VirtualUser> users,
+                                             ApiClient client,
+                                             String metricsToken,
+                                             Duration duration) throws Exception {
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> setUps = new ArrayList<>();
+            for (VirtualUser user : users) setUps.add(executor.submit(() -> {
+                user.setUp();
+                return null;
+            }));
+            for (Future<?> setUp : setUps) setUp.get();
+        }
+
+        List<Recorder> recorders = new ArrayList<>();
+        double seconds;
+        List<PoolSampler.PoolResult> pools;
+        long shed;
+        Map<String, Long> overBudget;
+        try (var sampler = PoolSampler.start(client, metricsToken)) {
+            long start = System.nanoTime();
+            long deadline = start + duration.toNanos();
+            try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (VirtualUser user : users) {
+                    user.startNanos = start;
+                    recorders.add(user.recorder);
+                    executor.submit(() -> {
+                        while (System.nanoTime() < deadline) user.step();
+                        return null;
+                    });
+                }
+            }
+            seconds = (System.nanoTime() - start) / 1e9;
+            pools = sampler.getPools();
+            shed = sampler.getRejected();
+            overBudget = sampler.getOverBudget();
+        }
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (VirtualUser user : users) executor.submit(() -> {
+                user.tearDown();
+                return null;
+            });
+        }
+
+        var operations = Recorder.merge(recorders, seconds);
+        long total = operations.values().stream().mapToLong(Recorder.OperationResult::count).sum();
+        return new Report.ScenarioResult(scenario.toString(), users.size(), seconds, total / seconds, shed, operations, pools, overBudget);
+    }
+
+    private record Options(String mysql,
+                           String user,
+                           String password,
+                           String schema,
+                           List<Scenario> scenarios,
+                           int clients,
+                           Duration duration,
+                           int students,
+                           int attendanceDays,
+                           long seed,
+                           int threads,
+                           boolean loadData,
+                           boolean skipLoad,
+                           int port,
+                           List<String> jvmArgs,
+                           Path report) {
+        private static Options parse(String[] args) {
+            String mysql = null;
+            String user = "root";
+            String password = null;
+            String schema = "yggdrasil_loadtest";
+            List<Scenario> scenarios = List.of(Scenario.values());
+            int clients = 500;
+            Duration duration = Duration.ofSeconds(60);
+            int students = Dataset.parseScale("school");
+            int attendanceDays = 30;
+            long seed = 1;
+            int threads = Runtime.getRuntime().availableProcessors();
+            boolean loadData = false;
+            boolean skipLoad = false;
+            int port = 2004;
+            List<String> jvmArgs = List.of();
+            Path report = Path.of("loadtest-report.json");
+
+            for (int i = 0; i < args.length; i++) {
+                String name = args[i];
+                if (name.equals("-h") || name.equals("--help")) return null;
+                if (name.equals("--load-data")) {
+                    loadData = true;
+                    continue;
+                }
+                if (name.equals("--skip-load")) {
+                    skipLoad = true;
+                    continue;
+                }
+                if (i + 1 == args.length) throw new IllegalArgumentException("Missing value for " + name);
+                String value = args[++i];
+                switch (name) {
+                    case "--mysql" -> mysql = value;
+                    case "--user" -> user = value;
+                    case "--password" -> password = value;
+                    case "--schema" -> schema = value;
+                    case "--scenarios" -> scenarios = Arrays.stream(value.split(",")).map(String::strip).map(Scenario::of).toList();
+                    case "--clients" -> clients = Integer.parseInt(value);
+                    case "--duration" -> duration = Duration.ofSeconds(Long.parseLong(value));
+                    case "--students" -> students = Dataset.parseScale(value);
+                    case "--attendance-days" -> attendanceDays = Integer.parseInt(value);
+                    case "--seed" -> seed = Long.parseLong(value);
+                    case "--threads" -> threads = Integer.parseInt(value);
+                    case "--port" -> port = Integer.parseInt(value);
+                    case "--jvm-args" -> jvmArgs = Arrays.stream(value.split(" ")).filter(arg -> !arg.isBlank()).toList();
+                    case "--report" -> report = Path.of(value);
+                    default -> throw new IllegalArgumentException("Unknown option " + name);
+                }
+            }
+            if (!schema.matches("\\w+")) throw new IllegalArgumentException("Invalid schema name '" + schema + "'");
+            if (threads < 1) throw new IllegalArgumentException("Invalid thread count");
+            if (password == null) password = mysql == null ? "" : "root";
+            return new Options(mysql, user, password, schema, scenarios, clients, duration, students, attendanceDays, seed, threads, loadData, skipLoad,
+                    port, jvmArgs, report);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.loadtest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// polls the server's Prometheus endpoint while a scenario runs and keeps the pool peaks and budget violations
+final class PoolSampler implements AutoCloseable {
+    private static final long SAMPLE_INTERVAL_MILLIS = 1000L;
+    private static final Pattern LABEL = Pattern.compile("(\\w+)=\"([^\"]*)\"");
+
+    private final ApiClient client;
+    private final String metricsToken;
+    private final Map<String, PoolStats> pools = new LinkedHashMap<>();
+    private final Map<String, double[]> overBudget = new LinkedHashMap<>();
+    private final Thread thread;
+    private double firstRejected = -1;
+    private double lastRejected;
+    private boolean firstScrape = true;
+    private volatile boolean running = true;
+
+    private PoolSampler(ApiClient client,
+                        String metricsToken) {
+        this.client = client;
+        this.metricsToken = metricsToken;
+        sample();
+        thread = Thread.ofVirtual().name("pool-sampler").start(this::run);
+    }
+
+    static PoolSampler start(ApiClient client,
+                             String metricsToken) {
+        return new PoolSampler(client, metricsToken);
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Thread.sleep(SAMPLE_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                break;
+            }
+            sample();
+        }
+    }
+
+    // the scrape is fetched outside the monitor, a virtual thread blocking while holding it would pin its carrier
+    private void sample() {
+        String scrape;
+        try {
+            scrape = client.get("/metrics", metricsToken);
+        } catch (Exception e) {
+            return;
+        }
+        update(scrape);
+    }
+
+    private synchronized void update(String scrape) {
+        Map<String, Map<String, Double>> current = new HashMap<>();
+        for (String line : scrape.lines().toList()) {
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            int space = line.lastIndexOf(' ');
+            int brace = line.indexOf('{');
+            String name = brace < 0 || brace > space ? line.substring(0, space) : line.substring(0, brace);
+            double value = Double.parseDouble(line.substring(space + 1));
+            if (name.equals("yggdrasil_admission_rejected_total")) {
+                if (firstRejected < 0) firstRejected = value;
+                lastRejected = value;
+                continue;
+            }
+            if (brace < 0) continue;
+
+            Map<String, String> labels = new HashMap<>();
+            Matcher matcher = LABEL.matcher(line.substring(brace, space));
+            while (matcher.find()) labels.put(matcher.group(1), matcher.group(2));
+            if (name.equals("yggdrasil_round_trip_budget_exceeded_total")) {
+                // a route shows up with its first violation, so it counts from zero rather than from the first scrape
+                double[] counts = overBudget.computeIfAbsent(labels.get("route"), route -> new double[]{firstScrape ? value : 0, value});
+                counts[1] = value;
+                continue;
+            }
+            if (!name.startsWith("yggdrasil_pool_")) continue;
+            String key = labels.containsKey("state") ? name + ":" + labels.get("state") : name;
+            current.computeIfAbsent(labels.get("pool"), pool -> new HashMap<>()).put(key, value);
+        }
+        current.forEach((pool, values) -> pools.computeIfAbsent(pool, PoolStats::new).add(values));
+        firstScrape = false;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        thread.interrupt();
+    }
+
+    List<PoolResult> getPools() {
+        sample();
+        return results();
+    }
+
+    private synchronized List<PoolResult> results() {
+        List<PoolResult> results = new ArrayList<>();
+        for (PoolStats stats : pools.values()) results.add(stats.result());
+        return results;
+    }
+
+    synchronized long getRejected() {
+        return firstRejected < 0 ? 0L : (long) (lastRejected - firstRejected);
+    }
+
+    synchronized Map<String, Long> getOverBudget() {
+        Map<String, Long> routes = new LinkedHashMap<>();
+        overBudget.forEach((route, counts) -> {
+            if (counts[1] > counts[0]) routes.put(route, (long) (counts[1] - counts[0]));
+        });
+        return routes;
+    }
+
+    private static final class PoolStats {
+        private final String pool;
+        private int samples;
+        private double peakActive;
+        private double peakAwaiting;
+        private double peakQueued;
+        private double maximumSize;
+        private double utilization;
+        private double firstTimeouts = -1;
+        private double lastTimeouts;
+        private double firstWait = -1;
+        private double lastWait;
+
+        private PoolStats(String pool) {
+            this.pool = pool;
+        }
+
+        private void add(Map<String, Double> values) {
+            double active = values.getOrDefault("yggdrasil_pool_connections:active", 0.0);
+            maximumSize = values.getOrDefault("yggdrasil_pool_maximum_size", maximumSize);
+            peakActive = Math.max(peakActive, active);
+            peakAwaiting = Math.max(peakAwaiting, values.getOrDefault("yggdrasil_pool_threads_awaiting", 0.0));
+            peakQueued = Math.max(peakQueued, values.getOrDefault("yggdrasil_pool_queued", 0.0));
+            if (maximumSize > 0) utilization += active / maximumSize;
+            samples++;
+
+            double timeouts = values.getOrDefault("yggdrasil_pool_timeouts_total", 0.0);
+            if (firstTimeouts < 0) firstTimeouts = timeouts;
+            lastTimeouts = timeouts;
+            double wait = values.getOrDefault("yggdrasil_pool_wait_seconds_total", 0.0);
+            if (firstWait < 0) firstWait = wait;
+            lastWait = wait;
+        }
+
+        private PoolResult result() {
+            return new PoolResult(pool, (int) maximumSize, (int) peakActive, samples == 0 ? 0.0 : utilization / samples,
+                    (int) peakAwaiting, (int) peakQueued, (long) (lastTimeouts - Math.max(0, firstTimeouts)),
+                    lastWait - Math.max(0, firstWait));
+        }
+    }
+
+    record PoolResult(String pool,
+                      int maximumSize,
+                      int peakActive,
+                      double meanUtilization,
+                      int peakAwaiting,
+                      int peakQueued,
+                      long timeouts,
+                      double waitSeconds) {}
+}
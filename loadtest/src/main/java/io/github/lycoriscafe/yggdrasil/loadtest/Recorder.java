@@ -0,0 +1,91 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// one recorder per virtual user, merged once the scenario is over so recording never contends
+final class Recorder {
+    private final Map<String, Samples> operations = new LinkedHashMap<>();
+
+    void record(String operation,
+                long nanos,
+                boolean success) {
+        operations.computeIfAbsent(operation, key -> new Samples()).add(nanos, success);
+    }
+
+    static Map<String, OperationResult> merge(List<Recorder> recorders,
+                                              double seconds) {
+        Map<String, Samples> merged = new LinkedHashMap<>();
+        for (Recorder recorder : recorders) {
+            recorder.operations.forEach((operation, samples) -> merged.computeIfAbsent(operation, key -> new Samples()).addAll(samples));
+        }
+        Map<String, OperationResult> results = new LinkedHashMap<>();
+        merged.forEach((operation, samples) -> results.put(operation, samples.summarize(seconds)));
+        return results;
+    }
+
+    private static final class Samples {
+        private long[] nanos = new long[256];
+        private int size;
+        private long errors;
+
+        private void add(long value,
+                         boolean success) {
+            if (size == nanos.length) nanos = Arrays.copyOf(nanos, size * 2);
+            nanos[size++] = value;
+            if (!success) errors++;
+        }
+
+        private void addAll(Samples other) {
+            if (size + other.size > nanos.length) nanos = Arrays.copyOf(nanos, Math.max(nanos.length * 2, size + other.size));
+            System.arraycopy(other.nanos, 0, nanos, size, other.size);
+            size += other.size;
+            errors += other.errors;
+        }
+
+        private OperationResult summarize(double seconds) {
+            long[] sorted = Arrays.copyOf(nanos, size);
+            Arrays.sort(sorted);
+            return new OperationResult(size, errors, size / seconds,
+                    millis(percentile(sorted, 0.50)), millis(percentile(sorted, 0.90)), millis(percentile(sorted, 0.99)),
+                    millis(percentile(sorted, 0.999)), millis(sorted.length == 0 ? 0L : sorted[sorted.length - 1]));
+        }
+
+        private static long percentile(long[] sorted,
+                                       double quantile) {
+            if (sorted.length == 0) return 0L;
+            return sorted[Math.max(0, (int) Math.ceil(quantile * sorted.length) - 1)];
+        }
+
+        private static double millis(long nanos) {
+            return Math.round(nanos / 1_000.0) / 1_000.0;
+        }
+    }
+
+    record OperationResult(long count,
+                           long errors,
+                           double throughput,
+                           double p50,
+                           double p90,
+                           double p99,
+                           double p999,
+                           double max) {}
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.loadtest;
+
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+final class Report {
+    static void print(List<ScenarioResult> results,
+                      PrintStream out) {
+        for (ScenarioResult result : results) {
+            out.printf("%n== %s: %d clients, %.0f s, %.1f req/s, %d shed ==%n",
+                    result.scenario(), result.clients(), result.seconds(), result.throughput(), result.shed());
+            out.printf("%-22s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                    "operation", "count", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+            for (Map.Entry<String, Recorder.OperationResult> entry : result.operations().entrySet()) {
+                var operation = entry.getValue();
+                out.printf("%-22s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", entry.getKey(), operation.count(), operation.errors(),
+                        operation.throughput(), operation.p50(), operation.p90(), operation.p99(), operation.p999(), operation.max());
+            }
+            out.printf("%-22s %9s %9s %9s %9s %9s %9s %9s%n",
+                    "pool", "max size", "peak act", "mean use", "peak wait", "peak queue", "timeouts", "wait s");
+            for (PoolSampler.PoolResult pool : result.pools()) {
+                out.printf("%-22s %9d %9d %8.0f%% %9d %9d %9d %9.2f%n", pool.pool(), pool.maximumSize(), pool.peakActive(),
+                        pool.meanUtilization() * 100, pool.peakAwaiting(), pool.peakQueued(), pool.timeouts(), pool.waitSeconds());
+            }
+            for (Map.Entry<String, Long> entry : result.overBudget().entrySet()) {
+                out.printf("OVER BUDGET %-30s %9d requests ran more statements than allowed, see the server log%n",
+                        entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    static void write(List<ScenarioResult> results,
+                      Path file) throws IOException {
+        Files.writeString(file, new GsonBuilder().setPrettyPrinting().create().toJson(results));
+    }
+
+    record ScenarioResult(String scenario,
+                          int clients,
+                          double seconds,
+                          double throughput,
+                          long shed,
+                          Map<String, Recorder.OperationResult> operations,
+                          List<PoolSampler.PoolResult> pools,
+                          Map<String, Long> overBudget) {}
+}
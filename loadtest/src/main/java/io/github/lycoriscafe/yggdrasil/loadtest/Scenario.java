@@ -0,0 +1,291 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.loadtest;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+enum Scenario {
+    // first period: every student opens the app within a few minutes
+    LOGIN_STORM("login-storm") {
+        @Override
+        List<VirtualUser> users(ApiClient client,
+                                Dataset dataset,
+                                int clients) {
+            var next = new AtomicInteger();
+            List<VirtualUser> users = new ArrayList<>();
+            for (int i = 0; i < clients; i++) users.add(new LoginStormUser(client, dataset, next));
+            return users;
+        }
+    },
+    // buses arrive in waves, gate scanners check students in while parents poll attendance
+    GATE_CHECK_IN("gate-check-in") {
+        @Override
+        void prepare(Connection connection) throws SQLException {
+            // the generated history stops at yesterday, only check-ins of earlier runs are removed
+            try (var statement = connection.createStatement()) {
+                statement.execute("DELETE FROM studentAttendance WHERE date = CURDATE()");
+            }
+            connection.commit();
+        }
+
+        @Override
+        List<VirtualUser> users(ApiClient client,
+                                Dataset dataset,
+                                int clients) {
+            int gates = Math.clamp(clients / 50, 1, Dataset.GATE_ADMINS);
+            var next = new AtomicInteger(1);
+            List<VirtualUser> users = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                users.add(i < gates ? new GateUser(client, dataset, i, next) : new AttendanceReader(client, dataset, i));
+            }
+            return users;
+        }
+    },
+    // students and teachers keep the timetable screen open
+    TIMETABLE_POLLING("timetable-polling") {
+        @Override
+        List<VirtualUser> users(ApiClient client,
+                                Dataset dataset,
+                                int clients) {
+            List<VirtualUser> users = new ArrayList<>();
+            for (int i = 0; i < clients; i++) users.add(new TimetablePoller(client, dataset, i));
+            return users;
+        }
+    },
+    // a few admins pull bulk exports while the timetable traffic carries on
+    ADMIN_EXPORT("admin-export") {
+        @Override
+        List<VirtualUser> users(ApiClient client,
+                                Dataset dataset,
+                                int clients) {
+            int exporters = Math.clamp(clients / 50, 1, Dataset.EXPORT_ADMINS);
+            List<VirtualUser> users = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                users.add(i < exporters ? new Exporter(client, dataset, i) : new TimetablePoller(client, dataset, i));
+            }
+            return users;
+        }
+    };
+
+    private final String value;
+
+    Scenario(String value) {
+        this.value = value;
+    }
+
+    void prepare(Connection connection) throws SQLException {}
+
+    abstract List<VirtualUser> users(ApiClient client,
+                                     Dataset dataset,
+                                     int clients);
+
+    static Scenario of(String value) {
+        for (Scenario scenario : values()) {
+            if (scenario.value.equals(value)) return scenario;
+        }
+        throw new IllegalArgumentException("Unknown scenario '" + value + "'");
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+
+    private static final class LoginStormUser extends VirtualUser {
+        private final Dataset dataset;
+        private final AtomicInteger next;
+
+        private LoginStormUser(ApiClient client,
+                               Dataset dataset,
+                               AtomicInteger next) {
+            super(client);
+            this.dataset = dataset;
+            this.next = next;
+        }
+
+        @Override
+        void step() throws InterruptedException {
+            int student = 1 + Math.floorMod(next.getAndIncrement(), dataset.getStudents());
+            var session = record("login", () -> client.login("s" + student, Dataset.PASSWORD, "storm"));
+            if (session == null) return;
+            record("timetable/read", () -> client.post(session, "/timetable/read", searchBy("classroomId", dataset.classroomOf(student))));
+            // keeps each student below maxLoginDevices however long the storm runs
+            record("student/logout", () -> {
+                client.patch(session, "/student/logout");
+                return true;
+            });
+        }
+    }
+
+    private static final class GateUser extends VirtualUser {
+        private static final long BURST_PERIOD_NANOS = 10_000_000_000L;
+        private static final long BURST_LENGTH_NANOS = 4_000_000_000L;
+        private static final long SCAN_INTERVAL_MILLIS = 20L;
+
+        private final Dataset dataset;
+        private final int index;
+        private final AtomicInteger next;
+        private ApiClient.Session session;
+
+        private GateUser(ApiClient client,
+                         Dataset dataset,
+                         int index,
+                         AtomicInteger next) {
+            super(client);
+            this.dataset = dataset;
+            this.index = index;
+            this.next = next;
+        }
+
+        @Override
+        void setUp() throws Exception {
+            session = client.login("a" + dataset.gateAdmin(index), Dataset.PASSWORD, "gate-" + index);
+        }
+
+        @Override
+        void step() throws InterruptedException {
+            boolean inBurst = (System.nanoTime() - startNanos) % BURST_PERIOD_NANOS < BURST_LENGTH_NANOS;
+            if (!inBurst) {
+                Thread.sleep(100);
+                return;
+            }
+            // attendance is unique per student and day, once everyone is in the gates fall idle
+            int student = next.getAndIncrement();
+            if (student > dataset.getStudents()) {
+                Thread.sleep(100);
+                return;
+            }
+            record("attendance/create", () -> client.post(session, "/student/attendance/create", "{\"studentId\": " + student + "}"));
+            think(SCAN_INTERVAL_MILLIS);
+        }
+
+        @Override
+        void tearDown() throws Exception {
+            client.patch(session, "/admin/logout");
+        }
+    }
+
+    private static final class AttendanceReader extends VirtualUser {
+        private final Dataset dataset;
+        private final int index;
+        private ApiClient.Session session;
+
+        private AttendanceReader(ApiClient client,
+                                 Dataset dataset,
+                                 int index) {
+            super(client);
+            this.dataset = dataset;
+            this.index = index;
+        }
+
+        @Override
+        void setUp() throws Exception {
+            session = client.login("s" + student(), Dataset.PASSWORD, "parent-app");
+        }
+
+        @Override
+        void step() throws InterruptedException {
+            record("attendance/read", () -> client.post(session, "/student/attendance/read", searchBy("studentId", student())));
+            think(1000);
+        }
+
+        @Override
+        void tearDown() throws Exception {
+            client.patch(session, "/student/logout");
+        }
+
+        private int student() {
+            return 1 + index % dataset.getStudents();
+        }
+    }
+
+    private static final class TimetablePoller extends VirtualUser {
+        private final Dataset dataset;
+        private final int index;
+        private final boolean teacher;
+        private ApiClient.Session session;
+        private long steps;
+
+        private TimetablePoller(ApiClient client,
+                                Dataset dataset,
+                                int index) {
+            super(client);
+            this.dataset = dataset;
+            this.index = index;
+            teacher = index % 10 == 0;
+        }
+
+        @Override
+        void setUp() throws Exception {
+            session = client.login((teacher ? "t" : "s") + id(), Dataset.PASSWORD, "timetable");
+        }
+
+        @Override
+        void step() throws InterruptedException {
+            String search = teacher ? searchBy("teacherId", id()) : searchBy("classroomId", dataset.classroomOf(id()));
+            record("timetable/read", () -> client.post(session, "/timetable/read", search));
+            if (++steps % 10 == 0) record("notification/read", () -> client.post(session, "/notification/read", "{}"));
+            think(500);
+        }
+
+        @Override
+        void tearDown() throws Exception {
+            client.patch(session, teacher ? "/teacher/logout" : "/student/logout");
+        }
+
+        private int id() {
+            return teacher ? 1 + index / 10 % dataset.getTeachers() : 1 + index % dataset.getStudents();
+        }
+    }
+
+    private static final class Exporter extends VirtualUser {
+        private final Dataset dataset;
+        private final int index;
+        private ApiClient.Session session;
+
+        private Exporter(ApiClient client,
+                         Dataset dataset,
+                         int index) {
+            super(client);
+            this.dataset = dataset;
+            this.index = index;
+        }
+
+        @Override
+        void setUp() throws Exception {
+            session = client.login("a" + dataset.exportAdmin(index), Dataset.PASSWORD, "export-" + index);
+        }
+
+        @Override
+        void step() throws InterruptedException {
+            record("attendance/export", () -> client.export(session, "/student/attendance/export?format=csv",
+                    searchBy("date", YearMonth.now() + "-%")));
+            record("student/export", () -> client.export(session, "/student/export?format=ndjson", "{}"));
+            think(2000);
+        }
+
+        @Override
+        void tearDown() throws Exception {
+            client.patch(session, "/admin/logout");
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.loadtest;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+// boots the server again and again against the same schema and times the first answered and the first logged in request
+public final class StartupBenchmark {
+    private static final String USAGE = """
+            Usage: java -cp loadtest.jar io.github.lycoriscafe.yggdrasil.loadtest.StartupBenchmark [options]
+              --mysql <url>          MySQL server to test against, e.g. jdbc:mysql://localhost:3306
+                                     (default: an embedded MariaDB stand-in)
+              --user <name>          database user (default: root)
+              --password <password>  database password (default: root, empty for the embedded server)
+              --schema <name>        schema recreated for the run (default: yggdrasil_startup)
+              --runs <n>             server starts to time (default: 5)
+              --port <port>          HTTP port of the server under test (default: 2004)
+              --jvm-args <args>      extra JVM arguments for the server, space separated, e.g. to compare
+                                     -XX:SharedArchiveFile=<file> -XX:+AutoCreateSharedArchive against none
+            """;
+    // enough for a classroom, the login only has to find one account
+    private static final int STUDENTS = 40;
+
+    public static void main(String[] args) throws Exception {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+            return;
+        }
+        if (options == null) {
+            System.out.print(USAGE);
+            return;
+        }
+
+        Path workDirectory = Files.createTempDirectory("yggdrasil-startup");
+        System.out.println("Working directory: " + workDirectory);
+        long[] firstResponse = new long[options.runs()];
+        long[] firstLogin = new long[options.runs()];
+        try (var database = options.mysql() == null ?
+                TestDatabase.embedded(options.schema()) :
+                TestDatabase.external(options.mysql(), options.user(), options.password(), options.schema())) {
+            database.create();
+            DataGenerator.load(database, new Dataset(1, STUDENTS, 0), 1, false);
+
+            for (int run = 0; run < options.runs(); run++) {
+                try (var server = TestServer.start(database, options.port(), options.jvmArgs(), workDirectory.resolve("run-" + run))) {
+                    firstResponse[run] = server.getStartupNanos();
+                    // pools, statement caches and the authentication path are only exercised by a request that reaches MySQL
+                    new ApiClient(server.getBaseUri()).login("s1", Dataset.PASSWORD, "startup-" + run);
+                    firstLogin[run] = System.nanoTime() - server.getLaunchNanos();
+                    System.out.printf("run %d: first response %.0f ms, first login %.0f ms%n", run + 1, firstResponse[run] / 1e6, firstLogin[run] / 1e6);
+                }
+            }
+        }
+
+        System.out.printf("%n%-16s %9s %9s %9s%n", "startup", "min ms", "median ms", "max ms");
+        print("first response", firstResponse);
+        print("first login", firstLogin);
+    }
+
+    private static void print(String name,
+                              long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-16s %9.0f %9.0f %9.0f%n", name, sorted[0] / 1e6, sorted[sorted.length / 2] / 1e6, sorted[sorted.length - 1] / 1e6);
+    }
+
+    private record Options(String mysql,
+                           String user,
+                           String password,
+                           String schema,
+                           int runs,
+                           int port,
+                           List<String> jvmArgs) {
+        private static Options parse(String[] args) {
+            String mysql = null;
+            String user = "root";
+            String password = null;
+            String schema = "yggdrasil_startup";
+            int runs = 5;
+            int port = 2004;
+            List<String> jvmArgs = List.of();
+
+            for (int i = 0; i < args.length; i++) {
+                String name = args[i];
+                if (name.equals("-h") || name.equals("--help")) return null;
+                if (i + 1 == args.length) throw new IllegalArgumentException("Missing value for " + name);
+                String value = args[++i];
+                switch (name) {
+                    case "--mysql" -> mysql = value;
+                    case "--user" -> user = value;
+                    case "--password" -> password = value;
+                    case "--schema" -> schema = value;
+                    case "--runs" -> runs = Integer.parseInt(value);
+                    case "--port" -> port = Integer.parseInt(value);
+                    case "--jvm-args" -> jvmArgs = Arrays.stream(value.split(" ")).filter(arg -> !arg.isBlank()).toList();
+                    default -> throw new IllegalArgumentException("Unknown option " + name);
+                }
+            }
+            if (!schema.matches("\\w+")) throw new IllegalArgumentException("Invalid schema name '" + schema + "'");
+            if (runs < 1) throw new IllegalArgumentException("At least one run is required");
+            if (password == null) password = mysql == null ? "" : "root";
+            return new Options(mysql, user, password, schema, runs, port, jvmArgs);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.loadtest;
+
+import ch.vorburger.exec.ManagedProcessException;
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import io.github.lycoriscafe.yggdrasil.Main;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Objects;
+
+final class TestDatabase implements AutoCloseable {
+    private static final String SCHEMA_RESOURCE = "/database.sql";
+
+    private final String serverUrl;
+    private final String user;
+    private final String password;
+    private final String schema;
+    private final DB embedded;
+
+    private TestDatabase(String serverUrl,
+                         String user,
+                         String password,
+                         String schema,
+                         DB embedded) {
+        this.serverUrl = serverUrl.endsWith("/") ? serverUrl.substring(0, serverUrl.length() - 1) : serverUrl;
+        this.user = user;
+        this.password = password;
+        this.schema = schema;
+        this.embedded = embedded;
+    }
+
+    static TestDatabase external(String serverUrl,
+                                 String user,
+                                 String password,
+                                 String schema) {
+        return new TestDatabase(serverUrl, user, password, schema, null);
+    }
+
+    // MariaDB speaks the same protocol and dialect as far as database.sql and Connector/J are concerned
+    static TestDatabase embedded(String schema) throws ManagedProcessException {
+        var builder = DBConfigurationBuilder.newBuilder();
+        builder.setPort(0);
+        var configuration = builder.build();
+        var db = DB.newEmbeddedDB(configuration);
+        db.start();
+        return new TestDatabase("jdbc:mysql://localhost:" + configuration.getPort(), "root", "", schema, db);
+    }
+
+    void create() throws SQLException, IOException {
+        try (var connection = DriverManager.getConnection(serverUrl + "/", user, password);
+             var statement = connection.createStatement()) {
+            statement.execute("DROP DATABASE IF EXISTS " + schema);
+            statement.execute("CREATE DATABASE " + schema);
+        }
+        try (var connection = connect()) {
+            runScript(connection);
+            connection.commit();
+        }
+    }
+
+    Connection connect() throws SQLException {
+        var connection = DriverManager.getConnection(getJdbcUrl(), user, password);
+        connection.setAutoCommit(false);
+        return connection;
+    }
+
+    String getJdbcUrl() {
+        return serverUrl + "/" + schema + "?rewriteBatchedStatements=true&allowLoadLocalInfile=true";
+    }
+
+    String getUser() {
+        return user;
+    }
+
+    String getPassword() {
+        return password;
+    }
+
+    // database.sql is written for the mysql client, so DELIMITER switches are handled here
+    private static void runScript(Connection connection) throws IOException, SQLException {
+        var inputStream = Objects.requireNonNull(Main.class.getResourceAsStream(SCHEMA_RESOURCE), "database.sql not packaged");
+        try (var reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+             var statement = connection.createStatement()) {
+            String delimiter = ";";
+            StringBuilder sql = new StringBuilder();
+            boolean inComment = false;
+            for (String line; (line = reader.readLine()) != null; ) {
+                String trimmed = line.strip();
+                if (inComment || trimmed.startsWith("/*")) {
+                    inComment = !trimmed.contains("*/");
+                    continue;
+                }
+                if (trimmed.startsWith("#") || trimmed.startsWith("--")) continue;
+                if (trimmed.toUpperCase().startsWith("DELIMITER ")) {
+                    delimiter = trimmed.substring("DELIMITER ".length()).strip();
+                    continue;
+                }
+                if (trimmed.endsWith(delimiter)) {
+                    sql.append(trimmed, 0, trimmed.length() - delimiter.length());
+                    if (!sql.toString().isBlank()) statement.execute(sql.toString());
+                    sql.setLength(0);
+                } else {
+                    sql.append(line).append('\n');
+                }
+            }
+            if (!sql.toString().isBlank()) statement.execute(sql.toString());
+        }
+    }
+
+    @Override
+    public void close() throws ManagedProcessException {
+        if (embedded != null) embedded.stop();
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.loadtest;
+
+import io.github.lycoriscafe.yggdrasil.Main;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+// the server runs in its own JVM so its heap, GC and JIT are not shared with the load generator
+final class TestServer implements AutoCloseable {
+    private static final long STARTUP_TIMEOUT_MILLIS = 120_000L;
+    private static final long READY_POLL_MILLIS = 10L;
+
+    private final Process process;
+    private final URI baseUri;
+    private final String metricsToken;
+    private final Path log;
+    private final long launchNanos;
+    private long startupNanos;
+
+    private TestServer(Process process,
+                       URI baseUri,
+                       String metricsToken,
+                       Path log,
+                       long launchNanos) {
+        this.process = process;
+        this.baseUri = baseUri;
+        this.metricsToken = metricsToken;
+        this.log = log;
+        this.launchNanos = launchNanos;
+    }
+
+    static TestServer start(TestDatabase database,
+                            int port,
+                            List<String> jvmArgs,
+                            Path workDirectory) throws IOException, InterruptedException {
+        return start(database, port, jvmArgs, workDirectory, new Properties());
+    }
+
+    // settings override the packaged yggdrasil.properties
+    static TestServer start(TestDatabase database,
+                            int port,
+                            List<String> jvmArgs,
+                            Path workDirectory,
+                            Properties settings) throws IOException, InterruptedException {
+        Path configuration = Files.createDirectories(workDirectory.resolve("config"));
+        byte[] token = new byte[24];
+        new SecureRandom().nextBytes(token);
+        String metricsToken = HexFormat.of().formatHex(token);
+
+        // generated files shadow the packaged ones, they come first on the server's class path
+        Properties yggdrasil = packaged("/yggdrasil.properties");
+        yggdrasil.putAll(settings);
+        yggdrasil.setProperty("metricsToken", metricsToken);
+        store(yggdrasil, configuration.resolve("yggdrasil.properties"));
+
+        Properties hikari = packaged("/hikari.properties");
+        hikari.setProperty("jdbcUrl", database.getJdbcUrl());
+        hikari.setProperty("username", database.getUser());
+        hikari.setProperty("password", database.getPassword());
+        store(hikari, configuration.resolve("hikari.properties"));
+
+        Properties nexusHttp = packaged("/nexus-http.properties");
+        nexusHttp.setProperty("port", String.valueOf(port));
+        nexusHttp.setProperty("tempDirectory", workDirectory.resolve("temp").toString());
+        store(nexusHttp, configuration.resolve("nexus-http.properties"));
+
+        Properties logging = new Properties();
+        logging.setProperty("org.slf4j.simpleLogger.defaultLogLevel", "warn");
+        store(logging, configuration.resolve("simplelogger.properties"));
+
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.add("-cp");
+        command.add(configuration + File.pathSeparator + System.getProperty("java.class.path"));
+        command.add(Main.class.getName());
+
+        Path log = workDirectory.resolve("server.log");
+        long launchNanos = System.nanoTime();
+        var process = new ProcessBuilder(command)
+                .directory(workDirectory.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        var server = new TestServer(process, URI.create("http://localhost:" + port), metricsToken, log, launchNanos);
+        server.awaitReady();
+        return server;
+    }
+
+    private void awaitReady() throws IOException, InterruptedException {
+        var client = new ApiClient(baseUri);
+        long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT_MILLIS;
+        while (!client.isReachable()) {
+            if (!process.isAlive()) throw new IOException("Server exited with " + process.exitValue() + ", see " + log);
+            if (System.currentTimeMillis() > deadline) {
+                close();
+                throw new IOException("Server did not start within " + STARTUP_TIMEOUT_MILLIS + " ms, see " + log);
+            }
+            Thread.sleep(READY_POLL_MILLIS);
+        }
+        startupNanos = System.nanoTime() - launchNanos;
+    }
+
+    URI getBaseUri() {
+        return baseUri;
+    }
+
+    String getMetricsToken() {
+        return metricsToken;
+    }
+
+    Path getLog() {
+        return log;
+    }
+
+    // from launching the JVM until the first request was answered
+    long getStartupNanos() {
+        return startupNanos;
+    }
+
+    long getLaunchNanos() {
+        return launchNanos;
+    }
+
+    private static Properties packaged(String resource) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream inputStream = Main.class.getResourceAsStream(resource)) {
+            if (inputStream != null) properties.load(inputStream);
+        }
+        return properties;
+    }
+
+    private static void store(Properties properties,
+                              Path file) throws IOException {
+        try (OutputStream outputStream = Files.newOutputStream(file)) {
+            properties.store(outputStream, "Generated by the load test");
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(10, TimeUnit.SECONDS)) process.destroyForcibly().waitFor();
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+abstract class VirtualUser {
+    protected final ApiClient client;
+    protected final Recorder recorder = new Recorder();
+    protected long startNanos;
+
+    protected VirtualUser(ApiClient client) {
+        this.client = client;
+    }
+
+    // logins made here are not part of the measurement
+    void setUp() throws Exception {}
+
+    abstract void step() throws InterruptedException;
+
+    void tearDown() throws Exception {}
+
+    protected <T> T record(String operation,
+                           Call<T> call) throws InterruptedException {
+        long start = System.nanoTime();
+        try {
+            T result = call.call();
+            recorder.record(operation, System.nanoTime() - start, true);
+            return result;
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            recorder.record(operation, System.nanoTime() - start, false);
+            return null;
+        }
+    }
+
+    protected static void think(long meanMillis) throws InterruptedException {
+        if (meanMillis <= 0) return;
+        Thread.sleep(ThreadLocalRandom.current().nextLong(meanMillis / 2, meanMillis * 3 / 2 + 1));
+    }
+
+    protected static String searchBy(String field,
+                                     Object value) {
+        return "{\"searchBy\": {\"" + field + "\": {\"" + value + "\": false}}}";
+    }
+
+    @FunctionalInterface
+    protected interface Call<T> {
+        T call() throws Exception;
+    }
+}
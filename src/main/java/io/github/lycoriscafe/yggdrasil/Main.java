@@ -18,13 +18,18 @@ package io.github.lycoriscafe.yggdrasil;
 
 import io.github.lycoriscafe.nexus.http.helper.scanners.ScannerException;
 import io.github.lycoriscafe.yggdrasil.configuration.YggdrasilConfig;
+import io.github.lycoriscafe.yggdrasil.storage.WarmUp;
 
 import java.io.IOException;
 import java.sql.SQLException;
 
 public final class Main {
-    public static void main(String[] args) throws ScannerException, SQLException, IOException {
+    public static void main(String[] args) throws ScannerException, SQLException, IOException, ReflectiveOperationException {
         // initialize application configurations
         YggdrasilConfig.initialize();
+        // with warmUp=true the first requests find compiled code and primed statement caches
+        if (YggdrasilConfig.getWarmUp()) WarmUp.run(YggdrasilConfig.getWarmUpIterations());
+        // traffic is only accepted from here on
+        YggdrasilConfig.initializeHttpServer();
     }
 }
\ No newline at end of file
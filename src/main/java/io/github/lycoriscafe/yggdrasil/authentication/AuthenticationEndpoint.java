@@ -19,7 +19,11 @@ package io.github.lycoriscafe.yggdrasil.authentication;
 import io.github.lycoriscafe.nexus.http.core.HttpEndpoint;
 import io.github.lycoriscafe.nexus.http.core.headers.auth.scheme.bearer.*;
 import io.github.lycoriscafe.nexus.http.core.requestMethods.annotations.POST;
+import io.github.lycoriscafe.yggdrasil.configuration.AdmissionController;
+import io.github.lycoriscafe.yggdrasil.configuration.Priority;
 import io.github.lycoriscafe.yggdrasil.configuration.YggdrasilConfig;
+import io.github.lycoriscafe.yggdrasil.metrics.LoginEvent;
+import io.github.lycoriscafe.yggdrasil.metrics.RequestContext;
 
 import java.io.IOException;
 import java.math.BigInteger;
@@ -33,6 +37,28 @@ public final class AuthenticationEndpoint {
     @BearerEndpoint(@POST("/"))
     public static BearerTokenResponse login(BearerTokenRequest tokenRequest)
             throws SQLException, NoSuchAlgorithmException, IOException, NoSuchFieldException {
+        try (var context = RequestContext.open("/login")) {
+            // logins take the priority lane and are never shed by admission control
+            AdmissionController.setPriority(Priority.HIGH);
+            var event = new LoginEvent();
+            event.begin();
+            BearerTokenResponse response = null;
+            try {
+                response = issueToken(tokenRequest);
+                return response;
+            } finally {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.grantType = tokenRequest.getGrantType();
+                    event.outcome = response == null ? "error" : response instanceof BearerTokenSuccessResponse ? "success" : "failure";
+                    event.commit();
+                }
+            }
+        }
+    }
+
+    private static BearerTokenResponse issueToken(BearerTokenRequest tokenRequest)
+            throws SQLException, NoSuchAlgorithmException, IOException, NoSuchFieldException {
         switch (tokenRequest.getGrantType()) {
             case "credentials" -> {
                 if (tokenRequest.getParams().size() != 3 ||
@@ -78,16 +104,12 @@ public final class AuthenticationEndpoint {
                             .setErrorDescription("Target account is disabled. Contact your system administrator.");
                 }
 
-                var devices = DeviceService.getDevices(auth.getRole(), auth.getUserId());
-                if (devices.size() >= YggdrasilConfig.getMaxLoginDevices()) {
-                    DeviceService.removeDevice(TokenType.REFRESH_TOKEN, devices.getFirst().getRefreshToken());
-                }
-
                 if (tokenRequest.getParams().get("deviceName").equals("self") || tokenRequest.getParams().get("deviceName").equals("all")) {
                     return new BearerTokenFailResponse(BearerTokenRequestError.INVALID_CLIENT)
                             .setErrorDescription("Invalid device name. Try again.");
                 }
 
+                // evicting the oldest device happens inside addDevice, so concurrent logins cannot overfill the slots
                 var accessToken = AuthenticationService.generateToken();
                 var refreshToken = AuthenticationService.generateToken();
                 DeviceService.addDevice(new Device(auth.getRole(), auth.getUserId(), tokenRequest.getParams().get("deviceName"),
@@ -118,8 +140,11 @@ public final class AuthenticationEndpoint {
                 }
 
                 var accessToken = AuthenticationService.generateToken();
-                DeviceService.updateDevice(devices.getFirst().setAccessToken(accessToken)
-                        .setExpires(Instant.now().getEpochSecond() + YggdrasilConfig.getDefaultAuthTimeout()));
+                if (!DeviceService.updateDevice(devices.getFirst().setAccessToken(accessToken)
+                        .setExpires(Instant.now().getEpochSecond() + YggdrasilConfig.getDefaultAuthTimeout()))) {
+                    return new BearerTokenFailResponse(BearerTokenRequestError.INVALID_CLIENT)
+                            .setErrorDescription("Client not found. Contact your system administrator.");
+                }
 
                 return new BearerTokenSuccessResponse(accessToken)
                         .setExpiresIn(YggdrasilConfig.getDefaultAuthTimeout());
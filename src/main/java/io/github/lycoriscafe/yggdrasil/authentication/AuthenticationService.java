@@ -16,6 +16,7 @@
 
 package io.github.lycoriscafe.yggdrasil.authentication;
 
+import io.github.lycoriscafe.nexus.http.core.headers.Header;
 import io.github.lycoriscafe.nexus.http.core.headers.auth.AuthScheme;
 import io.github.lycoriscafe.nexus.http.core.headers.auth.scheme.bearer.BearerAuthentication;
 import io.github.lycoriscafe.nexus.http.core.headers.auth.scheme.bearer.BearerAuthorization;
@@ -29,8 +30,13 @@ import io.github.lycoriscafe.yggdrasil.commons.CommonService;
 import io.github.lycoriscafe.yggdrasil.commons.Entity;
 import io.github.lycoriscafe.yggdrasil.commons.ResponseModel;
 import io.github.lycoriscafe.yggdrasil.commons.SearchModel;
-import io.github.lycoriscafe.yggdrasil.configuration.Utils;
+import io.github.lycoriscafe.yggdrasil.configuration.AdmissionController;
+import io.github.lycoriscafe.yggdrasil.configuration.Priority;
+import io.github.lycoriscafe.yggdrasil.configuration.ReplicaRouter;
 import io.github.lycoriscafe.yggdrasil.configuration.YggdrasilConfig;
+import io.github.lycoriscafe.yggdrasil.metrics.AuthenticationEvent;
+import io.github.lycoriscafe.yggdrasil.metrics.Phase;
+import io.github.lycoriscafe.yggdrasil.metrics.RequestContext;
 import io.github.lycoriscafe.yggdrasil.rest.admin.AccessLevel;
 import io.github.lycoriscafe.yggdrasil.rest.admin.Admin;
 import io.github.lycoriscafe.yggdrasil.rest.admin.AdminService;
@@ -48,117 +54,173 @@ import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.Instant;
 import java.util.*;
+import java.util.stream.IntStream;
 
 public final class AuthenticationService {
     private static final Logger logger = LoggerFactory.getLogger(AuthenticationService.class);
+    private static final String SERVER_TIMING_HEADER = "X-Server-Timing";
 
     public static HttpResponse authenticate(HttpRequest httpRequest,
                                             Set<Role> targetRoles,
                                             Set<AccessLevel> accessLevels) {
+        return authenticate(httpRequest, targetRoles, accessLevels, Priority.NORMAL);
+    }
+
+    public static HttpResponse authenticate(HttpRequest httpRequest,
+                                            Set<Role> targetRoles,
+                                            Set<AccessLevel> accessLevels,
+                                            Priority priority) {
         Objects.requireNonNull(httpRequest);
-        Objects.requireNonNull(targetRoles);
+        String accessToken = httpRequest.getAuthorization() != null && httpRequest.getAuthorization().getAuthScheme() == AuthScheme.BEARER ?
+                ((BearerAuthorization) httpRequest.getAuthorization()).getAccessToken() : null;
+        var access = authorize(accessToken, targetRoles, accessLevels, priority);
+        if (access.outcome() == Outcome.GRANTED) {
+            if (access.device().getRole() == Role.ADMIN && isServerTimingRequested(httpRequest)) RequestContext.enableTiming();
+            return null;
+        }
 
         var httpResponse = new HttpResponse(httpRequest.getRequestId(), httpRequest.getRequestConsumer());
-        if (httpRequest.getAuthorization() == null || httpRequest.getAuthorization().getAuthScheme() != AuthScheme.BEARER) {
-            return httpResponse.setStatusCode(HttpStatusCode.BAD_REQUEST).addAuthentication(
+        return switch (access.outcome()) {
+            case SHED -> httpResponse.setStatusCode(HttpStatusCode.SERVICE_UNAVAILABLE)
+                    .addHeader(new Header("Retry-After", access.retryAfter().toString()));
+            case INVALID_REQUEST -> httpResponse.setStatusCode(HttpStatusCode.BAD_REQUEST).addAuthentication(
                     new BearerAuthentication(BearerAuthorizationError.INVALID_REQUEST)
                             .setErrorDescription("Unsupported authentication method. Use 'Bearer' scheme."));
-        }
-
-        var authRequest = (BearerAuthorization) httpRequest.getAuthorization();
-        try {
-            var device = DeviceService.getDevices(TokenType.ACCESS_TOKEN, authRequest.getAccessToken());
-            if (device.isEmpty()) {
-                return httpResponse.setStatusCode(HttpStatusCode.UNAUTHORIZED).addAuthentication(
-                        new BearerAuthentication(BearerAuthorizationError.INVALID_TOKEN)
-                                .setErrorDescription("Invalid access token. Check the token and try again."));
-            }
-            if (Instant.now().getEpochSecond() > device.getFirst().getExpires()) {
-                return httpResponse.setStatusCode(HttpStatusCode.UNAUTHORIZED).addAuthentication(
-                        new BearerAuthentication(BearerAuthorizationError.INVALID_TOKEN)
-                                .setErrorDescription("Access token expired. Update the token and try again."));
-            }
-
-            if (!targetRoles.contains(device.getFirst().getRole())) {
+            case INVALID_TOKEN -> httpResponse.setStatusCode(HttpStatusCode.UNAUTHORIZED).addAuthentication(
+                    new BearerAuthentication(BearerAuthorizationError.INVALID_TOKEN)
+                            .setErrorDescription("Invalid access token. Check the token and try again."));
+            case EXPIRED_TOKEN -> httpResponse.setStatusCode(HttpStatusCode.UNAUTHORIZED).addAuthentication(
+                    new BearerAuthentication(BearerAuthorizationError.INVALID_TOKEN)
+                            .setErrorDescription("Access token expired. Update the token and try again."));
+            case INSUFFICIENT_ROLE -> {
                 StringBuilder scope = new StringBuilder("[");
                 targetRoles.forEach(role -> scope.append(role.toString()).append(","));
                 scope.deleteCharAt(scope.length() - 1).append("]");
-                return httpResponse.setStatusCode(HttpStatusCode.FORBIDDEN).addAuthentication(
+                yield httpResponse.setStatusCode(HttpStatusCode.FORBIDDEN).addAuthentication(
                         new BearerAuthentication(BearerAuthorizationError.INSUFFICIENT_SCOPE).setScope(scope.toString())
                                 .setErrorDescription("Insufficient scope. Contact your system administrator."));
             }
+            case ACCOUNT_DISABLED -> httpResponse.setStatusCode(HttpStatusCode.UNAUTHORIZED).addAuthentication(
+                    new BearerAuthentication(BearerAuthorizationError.INVALID_TOKEN)
+                            .setErrorDescription("Target account is disabled. Contact your system administrator."));
+            case INSUFFICIENT_ACCESS_LEVEL -> httpResponse.setStatusCode(HttpStatusCode.FORBIDDEN).addAuthentication(
+                    new BearerAuthentication(BearerAuthorizationError.INSUFFICIENT_SCOPE)
+                            .setScope(Role.ADMIN + "#" + accessLevels)
+                            .setErrorDescription("Insufficient scope. Contact your system administrator."));
+            case ERROR, GRANTED -> httpResponse.setStatusCode(HttpStatusCode.INTERNAL_SERVER_ERROR);
+        };
+    }
+
+    // everything authenticate does apart from reading the header and writing the response, the budget checks measure this
+    public static Access authorize(String accessToken,
+                                   Set<Role> targetRoles,
+                                   Set<AccessLevel> accessLevels,
+                                   Priority priority) {
+        Objects.requireNonNull(targetRoles);
+        Objects.requireNonNull(priority);
+
+        long start = System.nanoTime();
+        var event = new AuthenticationEvent();
+        event.begin();
+        try {
+            var access = verify(accessToken, targetRoles, accessLevels, priority);
+            event.role = access.device() == null ? null : access.device().getRole().toString();
+            event.outcome = access.outcome().toString();
+            return access;
+        } finally {
+            RequestContext.record(Phase.AUTHENTICATION, System.nanoTime() - start);
+            event.end();
+            if (event.shouldCommit()) {
+                var context = RequestContext.current();
+                event.route = context == null ? null : context.getRoute();
+                event.priority = priority.toString();
+                event.commit();
+            }
+        }
+    }
+
+    private static Access verify(String accessToken,
+                                 Set<Role> targetRoles,
+                                 Set<AccessLevel> accessLevels,
+                                 Priority priority) {
+        ReplicaRouter.setSession(null);
+        var retryAfter = AdmissionController.admit(priority);
+        if (retryAfter != null) return new Access(Outcome.SHED, null, retryAfter);
+        if (accessToken == null) return new Access(Outcome.INVALID_REQUEST, null, null);
 
-            if (AuthenticationService.isAccountDisabled(device.getFirst().getRole(), device.getFirst().getUserId())) {
-                return httpResponse.setStatusCode(HttpStatusCode.UNAUTHORIZED).addAuthentication(
-                        new BearerAuthentication(BearerAuthorizationError.INVALID_TOKEN)
-                                .setErrorDescription("Target account is disabled. Contact your system administrator."));
+        try {
+            var devices = DeviceService.getDevices(TokenType.ACCESS_TOKEN, accessToken);
+            if (devices.isEmpty()) return new Access(Outcome.INVALID_TOKEN, null, null);
+            var device = devices.getFirst();
+            if (Instant.now().getEpochSecond() > device.getExpires()) return new Access(Outcome.EXPIRED_TOKEN, device, null);
+            if (!targetRoles.contains(device.getRole())) return new Access(Outcome.INSUFFICIENT_ROLE, device, null);
+            if (AuthenticationService.isAccountDisabled(device.getRole(), device.getUserId())) {
+                return new Access(Outcome.ACCOUNT_DISABLED, device, null);
             }
 
             if (targetRoles.contains(Role.ADMIN) && accessLevels != null) {
                 var admin = CommonService.read(Admin.class, AdminService.class, new SearchModel()
-                        .setSearchBy(Map.of("id", Map.of(device.getFirst().getUserId().toString(), false))));
+                        .setSearchBy(Map.of("id", Map.of(device.getUserId().toString(), false))));
                 var accessLevel = admin.getData().getFirst().getAccessLevel();
-                if (accessLevels.stream().noneMatch(accessLevel::contains)) {
-                    return httpResponse.setStatusCode(HttpStatusCode.FORBIDDEN).addAuthentication(
-                            new BearerAuthentication(BearerAuthorizationError.INSUFFICIENT_SCOPE)
-                                    .setScope(Role.ADMIN + "#" + accessLevels)
-                                    .setErrorDescription("Insufficient scope. Contact your system administrator."));
-                }
+                if (accessLevels.stream().noneMatch(accessLevel::contains)) return new Access(Outcome.INSUFFICIENT_ACCESS_LEVEL, device, null);
             }
-            return null;
+            String session = device.getRole() + "#" + device.getUserId();
+            ReplicaRouter.setSession(session);
+            RequestContext.setUser(session);
+            return new Access(Outcome.GRANTED, device, null);
         } catch (SQLException | NoSuchFieldException e) {
-            e.printStackTrace(System.err);
-            return httpResponse.setStatusCode(HttpStatusCode.INTERNAL_SERVER_ERROR);
+            logger.error("Authentication lookup failed", e);
+            return new Access(Outcome.ERROR, null, null);
+        }
+    }
+
+    private static boolean isServerTimingRequested(HttpRequest httpRequest) {
+        if (httpRequest.getHeaders() == null) return false;
+        for (var header : httpRequest.getHeaders()) {
+            if (header.getName().equalsIgnoreCase(SERVER_TIMING_HEADER)) return !header.getValue().equalsIgnoreCase("false");
         }
+        return false;
     }
 
     public static Authentication getAuthentication(Role role,
                                                    BigInteger userId) throws SQLException {
         Objects.requireNonNull(role);
         Objects.requireNonNull(userId);
-        Authentication auth;
-        try (var connection = Utils.getDatabaseConnection();
-             var statement = connection.prepareStatement("SELECT * FROM authentication WHERE role = ? AND userId = ?")) {
-            statement.setString(1, role.toString());
-            statement.setString(2, userId.toString());
-            auth = deserialize(statement.executeQuery());
-            connection.commit();
-        }
-        return auth;
+        return YggdrasilConfig.getStorage().getAuthentication(role, userId);
     }
 
     public static void addAuthentication(Authentication auth) throws SQLException, NoSuchAlgorithmException {
         Objects.requireNonNull(auth);
-        try (var connection = Utils.getDatabaseConnection();
-             var statement = connection.prepareStatement("INSERT INTO authentication VALUES(?, ?, ?)")) {
-            statement.setString(1, auth.getRole().toString());
-            statement.setString(2, auth.getUserId().toString());
-            statement.setString(3, encryptData(auth.getPassword().getBytes(StandardCharsets.UTF_8)));
-            if (statement.executeUpdate() != 1) {
-                connection.rollback();
-                throw new RuntimeException("Authentication adding failed");
+        var hashed = new Authentication(auth.getRole(), auth.getUserId(), encryptData(auth.getPassword().getBytes(StandardCharsets.UTF_8)));
+        if (!YggdrasilConfig.getStorage().addAuthentication(hashed)) throw new RuntimeException("Authentication adding failed");
+    }
+
+    // the initial credentials of imported users, the role's initial followed by the user id, as addAuthentication callers set them
+    public static List<Authentication> defaultAuthentications(Role role,
+                                                              List<? extends Entity> users) {
+        Objects.requireNonNull(role);
+        Objects.requireNonNull(users);
+        String prefix = role.toString().substring(0, 1);
+        Authentication[] authentications = new Authentication[users.size()];
+        IntStream.range(0, users.size()).parallel().forEach(i -> {
+            try {
+                authentications[i] = new Authentication(role, users.get(i).getId(),
+                        encryptData((prefix + users.get(i).getId()).getBytes(StandardCharsets.UTF_8)));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
             }
-            connection.commit();
-        }
+        });
+        return List.of(authentications);
     }
 
     public static void updateAuthentication(Authentication authentication) throws SQLException, NoSuchAlgorithmException {
         Objects.requireNonNull(authentication);
-        try (var connection = Utils.getDatabaseConnection();
-             var statement = connection.prepareStatement("UPDATE authentication SET password = ? WHERE role = ? AND userId = ?")) {
-            statement.setString(1, encryptData(authentication.getPassword().getBytes(StandardCharsets.UTF_8)));
-            statement.setString(2, authentication.getRole().toString());
-            statement.setString(3, authentication.getUserId().toString());
-            if (statement.executeUpdate() != 1) {
-                connection.rollback();
-                throw new RuntimeException("Authentication updating failed");
-            }
-            connection.commit();
-        }
+        var hashed = new Authentication(authentication.getRole(), authentication.getUserId(),
+                encryptData(authentication.getPassword().getBytes(StandardCharsets.UTF_8)));
+        if (!YggdrasilConfig.getStorage().updateAuthentication(hashed)) throw new RuntimeException("Authentication updating failed");
     }
 
     public static <T extends Entity> ResponseModel<T> updateAuthentication(HttpPatchRequest req,
@@ -193,7 +255,7 @@ public final class AuthenticationService {
             updateAuthentication(authentication.setPassword(newPassword));
             return new ResponseModel<T>().setSuccess(true);
         } catch (SQLException | NoSuchAlgorithmException e) {
-            e.printStackTrace(System.err);
+            logger.error("Password update failed", e);
             return new ResponseModel<T>().setError("Internal system error");
         }
     }
@@ -202,30 +264,7 @@ public final class AuthenticationService {
                                             BigInteger userId) throws SQLException {
         Objects.requireNonNull(role);
         Objects.requireNonNull(userId);
-        try (var connection = Utils.getDatabaseConnection();
-             var statement = connection.prepareStatement("DELETE FROM authentication WHERE role = ? AND userId = ?")) {
-            statement.setString(1, role.toString());
-            statement.setString(2, userId.toString());
-            if (statement.executeUpdate() != 1) {
-                connection.rollback();
-                throw new RuntimeException("Authentication deleting failed");
-            }
-            connection.commit();
-        }
-    }
-
-    private static Authentication deserialize(ResultSet resultSet) throws SQLException {
-        Authentication auth = null;
-        try (resultSet) {
-            if (resultSet.next()) {
-                auth = new Authentication(
-                        Role.valueOf(resultSet.getString("role")),
-                        new BigInteger(resultSet.getString("userId")),
-                        resultSet.getString("password")
-                );
-            }
-        }
-        return auth;
+        if (!YggdrasilConfig.getStorage().deleteAuthentication(role, userId)) throw new RuntimeException("Authentication deleting failed");
     }
 
     public static String generateToken() throws IOException, NoSuchAlgorithmException {
@@ -267,4 +306,26 @@ public final class AuthenticationService {
             }
         };
     }
+
+    public enum Outcome {
+        SHED,
+        INVALID_REQUEST,
+        INVALID_TOKEN,
+        EXPIRED_TOKEN,
+        INSUFFICIENT_ROLE,
+        ACCOUNT_DISABLED,
+        INSUFFICIENT_ACCESS_LEVEL,
+        GRANTED,
+        ERROR;
+
+        @Override
+        public String toString() {
+            return name().toLowerCase();
+        }
+    }
+
+    // device is null when the token could not be looked up, retryAfter is only set for SHED
+    public record Access(Outcome outcome,
+                         Device device,
+                         Long retryAfter) {}
 }
@@ -22,45 +22,32 @@ import io.github.lycoriscafe.nexus.http.engine.reqResManager.httpReq.HttpPatchRe
 import io.github.lycoriscafe.yggdrasil.commons.Entity;
 import io.github.lycoriscafe.yggdrasil.commons.ResponseModel;
 import io.github.lycoriscafe.yggdrasil.configuration.Utils;
+import io.github.lycoriscafe.yggdrasil.configuration.YggdrasilConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
 import java.security.NoSuchAlgorithmException;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
 public final class DeviceService {
+    private static final Logger logger = LoggerFactory.getLogger(DeviceService.class);
+
     public static List<Device> getDevices(Role role,
                                           BigInteger userId) throws SQLException {
         Objects.requireNonNull(role);
         Objects.requireNonNull(userId);
-        List<Device> devices;
-        try (var connection = Utils.getDatabaseConnection();
-             var statement = connection.prepareStatement("SELECT * FROM device WHERE role = ? AND userid = ?")) {
-            statement.setString(1, role.toString());
-            statement.setString(2, userId.toString());
-            devices = deserialize(statement.executeQuery());
-            connection.commit();
-        }
-        return devices;
+        return YggdrasilConfig.getStorage().getDevices(role, userId);
     }
 
     public static List<Device> getDevices(TokenType tokenType,
                                           String token) throws SQLException {
         Objects.requireNonNull(tokenType);
         Objects.requireNonNull(token);
-        List<Device> devices;
-        try (var connection = Utils.getDatabaseConnection();
-             var statement = connection.prepareStatement("SELECT * FROM device WHERE " + tokenType + " = BINARY ?")) {
-            statement.setString(1, token);
-            devices = deserialize(statement.executeQuery());
-            connection.commit();
-        }
-        return devices;
+        return YggdrasilConfig.getStorage().getDevices(tokenType, token);
     }
 
     public static String getDevices(HttpGetRequest req) {
@@ -76,48 +63,24 @@ public final class DeviceService {
 
     public static void addDevice(Device device) throws SQLException, NoSuchAlgorithmException {
         Objects.requireNonNull(device);
-        try (var connection = Utils.getDatabaseConnection();
-             var statement = connection.prepareStatement("INSERT INTO device (role, userId, deviceName, accessToken, expires, refreshToken) " +
-                     "VALUES (?, ?, ?, ?, ?, ?)")) {
-            statement.setString(1, device.getRole().toString());
-            statement.setString(2, device.getUserId().toString());
-            statement.setString(3, device.getDeviceName());
-            statement.setString(4, device.getAccessToken());
-            statement.setLong(5, device.getExpires());
-            statement.setString(6, AuthenticationService.encryptData(device.getRefreshToken().getBytes(StandardCharsets.UTF_8)));
-            if (statement.executeUpdate() != 1) {
-                connection.rollback();
-                throw new RuntimeException("Device adding failed");
-            }
-            connection.commit();
-        }
+        var hashed = new Device(device.getRole(), device.getUserId(), device.getDeviceName(), device.getAccessToken(), device.getExpires(),
+                AuthenticationService.encryptData(device.getRefreshToken().getBytes(StandardCharsets.UTF_8)));
+        if (!YggdrasilConfig.getStorage().addDevice(hashed, YggdrasilConfig.getMaxLoginDevices())) throw new RuntimeException("Device adding failed");
     }
 
     public static void removeDevices(Role role,
                                      BigInteger userId) throws SQLException {
         Objects.requireNonNull(role);
         Objects.requireNonNull(userId);
-        try (var connection = Utils.getDatabaseConnection();
-             var statement = connection.prepareStatement("DELETE FROM device WHERE role = ? AND userid = ?")) {
-            statement.setString(1, role.toString());
-            statement.setString(2, userId.toString());
-            connection.commit();
-        }
+        YggdrasilConfig.getStorage().removeDevices(role, userId);
     }
 
-    public static void removeDevice(TokenType tokenType,
-                                    String token) throws SQLException {
+    // false when a concurrent logout or login already removed the device
+    public static boolean removeDevice(TokenType tokenType,
+                                       String token) throws SQLException {
         Objects.requireNonNull(tokenType);
         Objects.requireNonNull(token);
-        try (var connection = Utils.getDatabaseConnection();
-             var statement = connection.prepareStatement("DELETE FROM device WHERE " + tokenType + " = BINARY ?")) {
-            statement.setString(1, token);
-            if (statement.executeUpdate() != 1) {
-                connection.rollback();
-                throw new RuntimeException("Device removing failed");
-            }
-            connection.commit();
-        }
+        return YggdrasilConfig.getStorage().removeDevice(tokenType, token);
     }
 
     public static <T extends Entity> ResponseModel<T> removeDevice(HttpPatchRequest req,
@@ -138,48 +101,25 @@ public final class DeviceService {
             }
 
             if (req.getParameters() == null) {
-                removeDevice(TokenType.ACCESS_TOKEN, ((BearerAuthorization) req.getAuthorization()).getAccessToken());
+                if (!removeDevice(TokenType.ACCESS_TOKEN, ((BearerAuthorization) req.getAuthorization()).getAccessToken())) {
+                    return new ResponseModel<T>().setError("Device already logged out");
+                }
                 return new ResponseModel<T>().setSuccess(true);
             }
 
-            var device = getDevices(TokenType.ACCESS_TOKEN, ((BearerAuthorization) req.getAuthorization()).getAccessToken()).getFirst();
-            removeDevices(device.getRole(), device.getUserId());
+            var devices = getDevices(TokenType.ACCESS_TOKEN, ((BearerAuthorization) req.getAuthorization()).getAccessToken());
+            if (devices.isEmpty()) return new ResponseModel<T>().setError("Device already logged out");
+            removeDevices(devices.getFirst().getRole(), devices.getFirst().getUserId());
             return new ResponseModel<T>().setSuccess(true);
         } catch (SQLException e) {
-            e.printStackTrace(System.err);
+            logger.error("Device removal failed", e);
             return new ResponseModel<T>().setError("Internal system error");
         }
     }
 
-    public static void updateDevice(Device device) throws SQLException {
+    // false when the device was evicted or logged out since it was read
+    public static boolean updateDevice(Device device) throws SQLException {
         Objects.requireNonNull(device);
-        try (var connection = Utils.getDatabaseConnection();
-             var statement = connection.prepareStatement("UPDATE device SET accessToken = ?, expires = ? WHERE refreshToken = BINARY ?")) {
-            statement.setString(1, device.getAccessToken());
-            statement.setLong(2, device.getExpires());
-            statement.setString(3, device.getRefreshToken());
-            if (statement.executeUpdate() != 1) {
-                connection.rollback();
-                throw new RuntimeException("Device updating failed");
-            }
-            connection.commit();
-        }
-    }
-
-    private static List<Device> deserialize(ResultSet resultSet) throws SQLException {
-        List<Device> devices = new ArrayList<>();
-        try (resultSet) {
-            while (resultSet.next()) {
-                devices.add(new Device(
-                        Role.valueOf(resultSet.getString("role")),
-                        new BigInteger(resultSet.getString("userId")),
-                        resultSet.getString("deviceName"),
-                        resultSet.getString("accessToken"),
-                        resultSet.getLong("expires"),
-                        resultSet.getString("refreshToken")
-                ).setLastLogin(LocalDateTime.parse(resultSet.getString("lastLogin"), Utils.getDateTimeFormatter())));
-            }
-        }
-        return devices;
+        return YggdrasilConfig.getStorage().updateDevice(device);
     }
 }
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.commons;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
+import io.github.lycoriscafe.yggdrasil.configuration.Utils;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+final class ColumnarSerializer {
+    private static final ClassValue<Column[]> COLUMNS = new ClassValue<>() {
+        @Override
+        protected Column[] computeValue(Class<?> type) {
+            Gson gson = Utils.getGson();
+            List<Column> columns = new ArrayList<>();
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())) continue;
+                field.setAccessible(true);
+                Encoding encoding = Encoding.PLAIN;
+                if (field.getName().equals("id") && field.getType() == BigInteger.class) encoding = Encoding.DELTA;
+                if (field.getType().isEnum()) encoding = Encoding.DICTIONARY;
+                columns.add(new Column(field, encoding, gson.getAdapter(TypeToken.get(field.getGenericType()))));
+            }
+            return columns.toArray(new Column[0]);
+        }
+    };
+
+    private ColumnarSerializer() {}
+
+    static String toJson(ResponseModel<?> response) {
+        Gson gson = Utils.getGson();
+        List<?> data = response.getData() == null ? List.of() : response.getData();
+        Column[] columns = data.isEmpty() ? new Column[0] : COLUMNS.get(data.getFirst().getClass());
+
+        var stringWriter = new StringWriter();
+        try (JsonWriter writer = gson.newJsonWriter(stringWriter)) {
+            writer.beginObject();
+            writer.name("success").value(response.isSuccess());
+            writer.name("timestamp");
+            gson.getAdapter(LocalDateTime.class).write(writer, response.getTimestamp());
+            writer.name("error").value(response.getError());
+            writer.name("generableResults").value(response.getGenerableResults());
+            writer.name("resultsFrom").value(response.getResultsFrom());
+            writer.name("resultsOffset").value(response.getResultsOffset());
+            writer.name("shape").value("columnar");
+
+            writer.name("fields").beginArray();
+            for (Column column : columns) writer.value(column.field().getName());
+            writer.endArray();
+
+            writer.name("encodings").beginObject();
+            for (Column column : columns) {
+                if (column.encoding() != Encoding.PLAIN) writer.name(column.field().getName()).value(column.encoding().toString());
+            }
+            writer.endObject();
+
+            writer.name("dictionaries").beginObject();
+            for (Column column : columns) {
+                if (column.encoding() != Encoding.DICTIONARY) continue;
+                writer.name(column.field().getName()).beginArray();
+                for (Object constant : column.field().getType().getEnumConstants()) writer.value(((Enum<?>) constant).name());
+                writer.endArray();
+            }
+            writer.endObject();
+
+            writer.name("columns").beginArray();
+            for (Column column : columns) {
+                writer.beginArray();
+                BigInteger previous = null;
+                for (Object row : data) {
+                    Object value = column.field().get(row);
+                    switch (column.encoding()) {
+                        case DELTA -> {
+                            BigInteger id = (BigInteger) value;
+                            writer.value(id == null || previous == null ? id : id.subtract(previous));
+                            if (id != null) previous = id;
+                        }
+                        case DICTIONARY -> writer.value(value == null ? null : ((Enum<?>) value).ordinal());
+                        case PLAIN -> writeValue(writer, column, value);
+                    }
+                }
+                writer.endArray();
+            }
+            writer.endArray();
+            writer.endObject();
+        } catch (IOException | IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+        return stringWriter.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void writeValue(JsonWriter writer,
+                                   Column column,
+                                   Object value) throws IOException {
+        ((TypeAdapter<Object>) column.adapter()).write(writer, value);
+    }
+
+    private enum Encoding {
+        PLAIN("plain"),
+        DELTA("delta"),
+        DICTIONARY("dictionary");
+
+        private final String value;
+
+        Encoding(final String value) {
+            this.value = value;
+        }
+
+        @Override
+        public String toString() {
+            return value;
+        }
+    }
+
+    private record Column(Field field,
+                          Encoding encoding,
+                          TypeAdapter<?> adapter) {}
+}
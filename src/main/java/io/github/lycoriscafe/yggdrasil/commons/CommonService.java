@@ -16,23 +16,34 @@
 
 package io.github.lycoriscafe.yggdrasil.commons;
 
+import com.google.gson.JsonObject;
+import io.github.lycoriscafe.yggdrasil.configuration.AdmissionController;
+import io.github.lycoriscafe.yggdrasil.configuration.Priority;
+import io.github.lycoriscafe.yggdrasil.configuration.ReplicaRouter;
 import io.github.lycoriscafe.yggdrasil.configuration.Utils;
 import io.github.lycoriscafe.yggdrasil.configuration.YggdrasilConfig;
+import io.github.lycoriscafe.yggdrasil.metrics.Operation;
+import io.github.lycoriscafe.yggdrasil.metrics.OperationTimer;
+import io.github.lycoriscafe.yggdrasil.metrics.RequestContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.Method;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
 import java.math.BigInteger;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.Statement;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.Objects;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 public final class CommonService {
     private static final Logger logger = LoggerFactory.getLogger(CommonService.class);
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+    private static final int IMPORT_CHUNK_SIZE = 500;
 
     public static <T extends Entity, U extends EntityService<T>> ResponseModel<T> create(Class<T> entity,
                                                                                          Class<U> entityService,
@@ -41,37 +52,17 @@ public final class CommonService {
         Objects.requireNonNull(entityService);
         Objects.requireNonNull(instance);
 
-        StringBuilder query = new StringBuilder("INSERT INTO ").append(entity.getSimpleName()).append(" (");
-        for (int i = 0; i < entity.getDeclaredFields().length; i++) {
-            if (i > 0) query.append(", ");
-            query.append(entity.getDeclaredFields()[i].getName());
-        }
-        query.append(") VALUES (");
-        for (int i = 0; i < entity.getDeclaredFields().length; i++) {
-            if (i > 0) query.append(", ");
-            query.append("?");
-        }
-        query.append(")");
-
-        try (var connection = Utils.getDatabaseConnection();
-             var statement = connection.prepareStatement(query.toString(), Statement.RETURN_GENERATED_KEYS)) {
-            Method method = entityService.getMethod("toDatabase", PreparedStatement.class, entity, boolean.class);
-            method.invoke(null, statement, instance, false);
-            if (statement.executeUpdate() != 1) {
-                connection.rollback();
-                return new ResponseModel<T>().setError("Internal system error");
-            }
-            try (var resultSet = statement.getGeneratedKeys()) {
-                if (!resultSet.next()) {
-                    connection.rollback();
-                    return new ResponseModel<T>().setError("Internal system error");
-                }
-                connection.commit();
-                return read(entity, entityService,
-                        new SearchModel().setSearchBy(Map.of("id", Map.of(resultSet.getString(1), false))));
-            }
+        var timer = OperationTimer.start(entity, Operation.CREATE);
+        try {
+            BigInteger id = YggdrasilConfig.getStorage().insert(entity, entityService, instance, timer);
+            if (id == null) return new ResponseModel<T>().setError("Internal system error");
+            ReplicaRouter.recordWrite();
+            return fetch(entity, entityService,
+                    new SearchModel().setSearchBy(Map.of("id", Map.of(id.toString(), false))), true);
         } catch (Exception e) {
             throw new RuntimeException(e);
+        } finally {
+            timer.stop();
         }
     }
 
@@ -80,6 +71,17 @@ public final class CommonService {
                                                                                        SearchModel searchModel) {
         Objects.requireNonNull(entity);
         Objects.requireNonNull(entityService);
+        Objects.requireNonNull(searchModel);
+        if (ReplicaRouter.isPinned()) return fetch(entity, entityService, searchModel, true);
+        return ReadCoalescer.read(entity, searchModel, () -> fetch(entity, entityService, searchModel, false));
+    }
+
+    // reads that must observe a preceding write skip the coalescer, an in-flight read may predate that write
+    private static <T extends Entity, U extends EntityService<T>> ResponseModel<T> fetch(Class<T> entity,
+                                                                                         Class<U> entityService,
+                                                                                         SearchModel searchModel,
+                                                                                         boolean primary) {
+        var timer = OperationTimer.start(entity, Operation.READ);
         if (searchModel.getResultsFrom() == null) searchModel.setResultsFrom(new BigInteger("0"));
         if (searchModel.getResultsOffset() == null) {
             searchModel.setResultsOffset(new BigInteger(String.valueOf(YggdrasilConfig.getDefaultResultsOffset())));
@@ -91,78 +93,18 @@ public final class CommonService {
             return new ResponseModel<T>().setError("Invalid 'resultsOffset'");
         }
 
-        String generableResultsQuery;
-        String resultsOffsetQuery;
-        StringBuilder query = new StringBuilder("SELECT * FROM ").append(entity.getSimpleName());
-        if (searchModel.getSearchBy() != null) {
-            query.append(" WHERE ");
-            List<String> fields = searchModel.getSearchBy().keySet().stream().toList();
-            for (int i = 0; i < fields.size(); i++) {
-                if (i > 0) query.append(" AND ");
-                List<String> values = searchModel.getSearchBy().get(fields.get(i)).keySet().stream().toList();
-                for (int j = 0; j < values.size(); j++) {
-                    if (j > 0) query.append(" OR ");
-                    query.append(fields.get(i)).append(" LIKE ")
-                            .append(searchModel.getSearchBy().get(fields.get(i)).get(values.get(j)) ? " BINARY " : "")
-                            .append("?");
-                }
-            }
-        }
-        if (searchModel.getOrderBy() != null) {
-            query.append(" ORDER BY ");
-            for (int i = 0; i < searchModel.getOrderBy().size(); i++) {
-                if (i > 0) query.append(", ");
-                query.append(searchModel.getOrderBy().get(i));
-            }
-        }
-        if (searchModel.getAscending() != null) {
-            query.append(searchModel.getAscending() ? " ASC" : " DESC");
-        }
-        generableResultsQuery = query.toString().replaceFirst("\\*", "COUNT(1)");
-        query.append(" LIMIT ").append("?, ?");
-        resultsOffsetQuery = "SELECT COUNT(1) FROM (" + query + ") AS resultsOffset";
-
-        try (var connection = Utils.getDatabaseConnection();
-             var statement = connection.prepareStatement(query.toString());
-             var generableResultsStatement = connection.prepareStatement(generableResultsQuery);
-             var resultsOffsetStatement = connection.prepareStatement(resultsOffsetQuery)) {
-            int nextParamIndex = 1;
-            if (searchModel.getSearchBy() != null) {
-                for (String field : searchModel.getSearchBy().keySet()) {
-                    for (String value : searchModel.getSearchBy().get(field).keySet()) {
-                        statement.setString(nextParamIndex, value);
-                        generableResultsStatement.setString(nextParamIndex, value);
-                        resultsOffsetStatement.setString(nextParamIndex++, value);
-                    }
-                }
-            }
-            statement.setString(nextParamIndex, searchModel.getResultsFrom().toString());
-            resultsOffsetStatement.setString(nextParamIndex++, searchModel.getResultsFrom().toString());
-            statement.setString(nextParamIndex, searchModel.getResultsOffset().toString());
-            resultsOffsetStatement.setString(nextParamIndex, searchModel.getResultsOffset().toString());
-
-            var response = new ResponseModel<T>();
-            try (var resultSet = statement.executeQuery();
-                 var generableResultsResultSet = generableResultsStatement.executeQuery();
-                 var resultsOffsetResultSet = resultsOffsetStatement.executeQuery()) {
-                List<T> data = new ArrayList<>();
-                while (resultSet.next()) {
-                    T instance = entity.getConstructor().newInstance();
-                    Method method = entityService.getMethod("fromDatabase", ResultSet.class, entity);
-                    method.invoke(null, resultSet, instance);
-                    data.add(instance);
-                }
-                response.setData(data);
-
-                if (!generableResultsResultSet.next()) return new ResponseModel<T>().setError("Internal system error");
-                response.setGenerableResults(new BigInteger(generableResultsResultSet.getString(1)));
-                if (!resultsOffsetResultSet.next()) return new ResponseModel<T>().setError("Internal system error");
-                response.setResultsOffset(new BigInteger(resultsOffsetResultSet.getString(1)));
-            }
-            connection.commit();
-            return response.setResultsFrom(searchModel.getResultsFrom()).setSuccess(true);
+        try {
+            var page = YggdrasilConfig.getStorage().select(entity, entityService, searchModel, primary, timer);
+            return new ResponseModel<T>().setData(page.data())
+                    .setGenerableResults(page.generableResults())
+                    .setResultsOffset(page.resultsOffset())
+                    .setResultsFrom(searchModel.getResultsFrom())
+                    .setShape(searchModel.getShape())
+                    .setSuccess(true);
         } catch (Exception e) {
             throw new RuntimeException(e);
+        } finally {
+            timer.stop();
         }
     }
 
@@ -173,27 +115,18 @@ public final class CommonService {
         Objects.requireNonNull(entityService);
         Objects.requireNonNull(instance);
 
-        StringBuilder query = new StringBuilder("UPDATE ").append(entity.getSimpleName()).append(" SET ");
-        for (int i = 0; i < entity.getDeclaredFields().length; i++) {
-            if (i > 1) query.append(", ");
-            if (i == 0) continue;
-            query.append(entity.getDeclaredFields()[i].getName()).append(" = ?");
-        }
-        query.append(" WHERE id = ?");
-
-        try (var connection = Utils.getDatabaseConnection();
-             var statement = connection.prepareStatement(query.toString())) {
-            Method method = entityService.getMethod("toDatabase", PreparedStatement.class, entity, boolean.class);
-            method.invoke(null, statement, instance, true);
-            if (statement.executeUpdate() != 1) {
-                connection.rollback();
+        var timer = OperationTimer.start(entity, Operation.UPDATE);
+        try {
+            if (YggdrasilConfig.getStorage().update(entity, entityService, instance, timer) != 1) {
                 return new ResponseModel<T>().setError("Internal system error");
             }
-            connection.commit();
-            return read(entity, entityService,
-                    new SearchModel().setSearchBy(Map.of("id", Map.of(instance.getId().toString(), false))));
+            ReplicaRouter.recordWrite();
+            return fetch(entity, entityService,
+                    new SearchModel().setSearchBy(Map.of("id", Map.of(instance.getId().toString(), false))), true);
         } catch (Exception e) {
             throw new RuntimeException(e);
+        } finally {
+            timer.stop();
         }
     }
 
@@ -202,17 +135,281 @@ public final class CommonService {
         Objects.requireNonNull(entity);
         Objects.requireNonNull(id);
 
-        try (var connection = Utils.getDatabaseConnection();
-             var statement = connection.prepareStatement("DELETE FROM " + entity.getSimpleName() + " WHERE id = ?")) {
-            statement.setString(1, id.toString());
-            if (statement.executeUpdate() != 1) {
-                connection.rollback();
+        var timer = OperationTimer.start(entity, Operation.DELETE);
+        try {
+            if (YggdrasilConfig.getStorage().delete(entity, id, timer) != 1) {
                 return new ResponseModel<T>().setError("Check target ID and try again.");
             }
-            connection.commit();
+            ReplicaRouter.recordWrite();
             return new ResponseModel<T>().setSuccess(true);
         } catch (Exception e) {
             throw new RuntimeException(e);
+        } finally {
+            timer.stop();
+        }
+    }
+
+    public static <T extends Entity, U extends EntityService<T>> InputStream export(Class<T> entity,
+                                                                                   Class<U> entityService,
+                                                                                   SearchModel searchModel,
+                                                                                   ExportFormat format) throws IOException {
+        Objects.requireNonNull(entity);
+        Objects.requireNonNull(entityService);
+        Objects.requireNonNull(searchModel);
+        Objects.requireNonNull(format);
+
+        String invalid = validate(entity, searchModel);
+        if (invalid != null) throw new IllegalArgumentException(invalid);
+
+        // rows are streamed from storage straight into the response body
+        boolean pinned = ReplicaRouter.isPinned();
+        var context = RequestContext.current();
+        var stream = new ExportStream(EXPORT_BUFFER_SIZE, YggdrasilConfig.getExportWriteTimeout());
+        var opened = new CompletableFuture<Void>();
+        Thread.ofVirtual().name("export-" + entity.getSimpleName()).start(() -> {
+            AdmissionController.setPriority(Priority.LOW);
+            // the request waits until the cursor is open, the query counts towards it but the streamed rows don't
+            RequestContext.attach(context);
+            var timer = OperationTimer.start(entity, Operation.EXPORT);
+            try {
+                try (var writer = new ExportWriter<>(entity, format, stream.getOutputStream())) {
+                    YggdrasilConfig.getStorage().scan(entity, entityService, searchModel, pinned, instance -> {
+                        if (!opened.isDone()) {
+                            RequestContext.detach();
+                            opened.complete(null);
+                        }
+                        writer.write(instance);
+                    }, timer);
+                }
+                RequestContext.detach();
+                opened.complete(null);
+                stream.finish(null);
+            } catch (Exception e) {
+                RequestContext.detach();
+                stream.finish(e);
+                // failures before the first row are reported to the caller instead
+                if (!opened.completeExceptionally(e)) logger.warn("Export of {} aborted", entity.getSimpleName(), e);
+            } finally {
+                timer.stop();
+            }
+        });
+
+        // the response only starts once the cursor is open, so a failing query still gets an error response
+        try {
+            opened.get();
+        } catch (InterruptedException e) {
+            stream.close();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while opening the export");
+        } catch (ExecutionException e) {
+            stream.close();
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            throw new IOException("Export of " + entity.getSimpleName() + " failed", e.getCause());
+        }
+        return stream;
+    }
+
+    // searchBy and orderBy become column names in the generated SQL, only the entity's own fields may appear there
+    private static String validate(Class<? extends Entity> entity,
+                                   SearchModel searchModel) {
+        Set<String> columns = new HashSet<>();
+        for (Field field : entity.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers())) columns.add(field.getName());
+        }
+        if (searchModel.getSearchBy() != null) {
+            for (var entry : searchModel.getSearchBy().entrySet()) {
+                if (!columns.contains(entry.getKey())) return "Unknown 'searchBy' field '" + entry.getKey() + "'";
+                if (entry.getValue() == null || entry.getValue().isEmpty()) return "No values for 'searchBy' field '" + entry.getKey() + "'";
+                if (entry.getValue().containsValue(null)) return "Invalid match mode for 'searchBy' field '" + entry.getKey() + "'";
+            }
+        }
+        if (searchModel.getOrderBy() != null) {
+            for (String field : searchModel.getOrderBy()) {
+                if (!columns.contains(field)) return "Unknown 'orderBy' field '" + field + "'";
+            }
+        }
+        return null;
+    }
+
+    public static <T extends Entity, U extends EntityService<T>> ImportResult importCsv(Class<T> entity,
+                                                                                      Class<U> entityService,
+                                                                                      Reader reader,
+                                                                                      ImportModel<T> importModel) {
+        Objects.requireNonNull(entity);
+        Objects.requireNonNull(entityService);
+        Objects.requireNonNull(reader);
+        Objects.requireNonNull(importModel);
+
+        var timer = OperationTimer.start(entity, Operation.IMPORT);
+        var result = new ImportResult();
+        var csvReader = new CsvReader(reader);
+        try {
+            List<String> header = csvReader.next();
+            if (header == null) return result.setError("Empty file");
+            Field[] columns = new Field[header.size()];
+            for (int i = 0; i < header.size(); i++) {
+                String name = header.get(i).strip();
+                if (name.equals("id")) return result.setError("Column 'id' is assigned by the system");
+                try {
+                    columns[i] = entity.getDeclaredField(name);
+                    columns[i].setAccessible(true);
+                } catch (NoSuchFieldException e) {
+                    return result.setError("Unknown column '" + name + "'");
+                }
+            }
+
+            Map<String, Set<String>> seen = new HashMap<>();
+            List<ImportRow<T>> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+            while (true) {
+                List<String> record = csvReader.next();
+                if (record != null) chunk.add(new ImportRow<>(csvReader.getRecordLine(), record));
+                if (chunk.size() == IMPORT_CHUNK_SIZE || (record == null && !chunk.isEmpty())) {
+                    importChunk(entity, entityService, columns, chunk, seen, importModel, result);
+                    chunk.clear();
+                }
+                if (record == null) break;
+            }
+            ReplicaRouter.recordWrite();
+            return result.setSuccess(true);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            timer.setRows(result.getImported()).stop();
+        }
+    }
+
+    private static <T extends Entity, U extends EntityService<T>> void importChunk(Class<T> entity,
+                                                                                 Class<U> entityService,
+                                                                                 Field[] columns,
+                                                                                 List<ImportRow<T>> chunk,
+                                                                                 Map<String, Set<String>> seen,
+                                                                                 ImportModel<T> importModel,
+                                                                                 ImportResult result) throws Exception {
+        // rows don't depend on each other until the uniqueness checks
+        chunk.parallelStream().forEach(row -> parseRow(entity, columns, row));
+
+        var storage = YggdrasilConfig.getStorage();
+        for (String field : importModel.getUniqueFields()) {
+            Set<String> existing = storage.findExisting(entity, field, pendingValues(chunk, field));
+            for (ImportRow<T> row : chunk) {
+                if (row.error == null && existing.contains(row.getValue(field))) row.error = "'" + field + "' already exists";
+            }
+        }
+        for (var reference : importModel.getReferences().entrySet()) {
+            Set<String> existing = storage.findExisting(reference.getValue(), "id", pendingValues(chunk, reference.getKey()));
+            for (ImportRow<T> row : chunk) {
+                String value = row.getValue(reference.getKey());
+                if (row.error == null && value != null && !existing.contains(value)) {
+                    row.error = "'" + reference.getKey() + "' refers to a missing " + reference.getValue().getSimpleName();
+                }
+            }
+        }
+        // a value is only taken by a row that passed every other check, a rejected row must not block a later valid one
+        for (ImportRow<T> row : chunk) {
+            if (row.error != null) continue;
+            for (String field : importModel.getUniqueFields()) {
+                String value = row.getValue(field);
+                if (value != null && seen.computeIfAbsent(field, key -> new HashSet<>()).contains(value)) {
+                    row.error = "Duplicate '" + field + "' within the file";
+                    break;
+                }
+            }
+            if (row.error != null) continue;
+            for (String field : importModel.getUniqueFields()) {
+                String value = row.getValue(field);
+                if (value != null) seen.get(field).add(value);
+            }
+        }
+
+        List<ImportRow<T>> batched = chunk.stream().filter(row -> row.error == null).toList();
+        if (!batched.isEmpty()) {
+            try {
+                storage.insertAll(entity, entityService, batched.stream().map(row -> row.instance).toList(), importModel.getProvisioner());
+                result.addImported(batched.size());
+            } catch (Exception e) {
+                // fall back to one row per transaction so a single bad row doesn't sink its whole chunk
+                for (ImportRow<T> row : batched) {
+                    try {
+                        storage.insertAll(entity, entityService, List.of(row.instance), importModel.getProvisioner());
+                        result.addImported(1);
+                    } catch (Exception rowException) {
+                        row.error = (rowException instanceof InvocationTargetException ? rowException.getCause() : rowException).getMessage();
+                        // nothing was stored, so the row's values are free again
+                        for (String field : importModel.getUniqueFields()) {
+                            String value = row.getValue(field);
+                            if (value != null) seen.get(field).remove(value);
+                        }
+                    }
+                }
+            }
+        }
+
+        for (ImportRow<T> row : chunk) {
+            if (row.error != null) result.addError(row.line, row.error);
+        }
+    }
+
+    private static <T extends Entity> void parseRow(Class<T> entity,
+                                                    Field[] columns,
+                                                    ImportRow<T> row) {
+        if (row.values.size() != columns.length) {
+            row.error = "Expected " + columns.length + " values but found " + row.values.size();
+            return;
+        }
+        var json = new JsonObject();
+        for (int i = 0; i < columns.length; i++) {
+            if (!row.values.get(i).isEmpty()) json.addProperty(columns[i].getName(), row.values.get(i));
+        }
+        try {
+            row.instance = Utils.getGson().fromJson(json, entity);
+            row.columns = columns;
+            for (int i = 0; i < columns.length; i++) {
+                // Gson maps unknown enum constants to null instead of failing
+                if (columns[i].getType().isEnum() && !row.values.get(i).isEmpty() && columns[i].get(row.instance) == null) {
+                    row.error = "Invalid value '" + row.values.get(i) + "' for '" + columns[i].getName() + "'";
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            row.error = e.getMessage();
+        }
+    }
+
+    private static <T extends Entity> List<String> pendingValues(List<ImportRow<T>> chunk,
+                                                                 String field) {
+        return chunk.stream()
+                .filter(row -> row.error == null)
+                .map(row -> row.getValue(field))
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+    }
+
+    private static final class ImportRow<T extends Entity> {
+        private final long line;
+        private final List<String> values;
+        private Field[] columns;
+        private T instance;
+        private String error;
+
+        private ImportRow(long line,
+                          List<String> values) {
+            this.line = line;
+            this.values = values;
+        }
+
+        private String getValue(String field) {
+            if (instance == null) return null;
+            for (Field column : columns) {
+                if (!column.getName().equals(field)) continue;
+                try {
+                    Object value = column.get(instance);
+                    return value == null ? null : value.toString();
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return null;
         }
     }
 }
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.commons;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+final class CsvReader {
+    private final Reader reader;
+    private final StringBuilder value = new StringBuilder();
+    private long line = 1;
+    private long recordLine;
+    private int pushback = -2;
+
+    CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    // returns the next record, or null when the input is exhausted
+    List<String> next() throws IOException {
+        int c = read();
+        while (c == '\r' || c == '\n') {
+            if (c == '\n') line++;
+            c = read();
+        }
+        if (c == -1) return null;
+
+        recordLine = line;
+        List<String> record = new ArrayList<>();
+        boolean quoted = false;
+        value.setLength(0);
+        while (true) {
+            if (quoted) {
+                if (c == -1) throw new IOException("Unterminated quoted value at line " + recordLine);
+                if (c == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        value.append('"');
+                    } else {
+                        quoted = false;
+                        c = next;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') line++;
+                    value.append((char) c);
+                }
+            } else if (c == '"' && value.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                record.add(value.toString());
+                value.setLength(0);
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r') {
+                    int next = read();
+                    if (next != '\n') pushback = next;
+                }
+                line++;
+                record.add(value.toString());
+                return record;
+            } else {
+                value.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    long getRecordLine() {
+        return recordLine;
+    }
+
+    private int read() throws IOException {
+        if (pushback != -2) {
+            int c = pushback;
+            pushback = -2;
+            return c;
+        }
+        return reader.read();
+    }
+}
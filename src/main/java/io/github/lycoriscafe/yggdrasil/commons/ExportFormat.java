@@ -0,0 +1,47 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.commons;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+public enum ExportFormat {
+    NDJSON("application/x-ndjson"),
+    CSV("text/csv");
+
+    private final String contentType;
+
+    ExportFormat(final String contentType) {
+        this.contentType = contentType;
+    }
+
+    // null for unsupported names, a bad format is the client's mistake and not worth an exception
+    public static ExportFormat of(String name) {
+        for (ExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) return format;
+        }
+        return null;
+    }
+
+    public static String supported() {
+        return Arrays.stream(values()).map(format -> format.name().toLowerCase()).collect(Collectors.joining(", "));
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.commons;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// a bounded pipe from the export thread to the response body
+// unlike PipedInputStream a failed export ends in an IOException instead of a clean end of stream,
+// and a reader that stops reading times the writer out instead of blocking it forever
+final class ExportStream extends InputStream {
+    private final byte[] buffer;
+    private final long writeTimeoutNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition readable = lock.newCondition();
+    private final Condition writable = lock.newCondition();
+    private final OutputStream outputStream = new Output();
+    private int head;
+    private int count;
+    private boolean finished;
+    private boolean closed;
+    private Exception failure;
+
+    ExportStream(int size,
+                 long writeTimeoutMillis) {
+        this.buffer = new byte[size];
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMillis);
+    }
+
+    // closing it only flushes, the export thread ends the stream through finish()
+    OutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    // null when every row was written, the reader sees the failure once it has drained the buffer
+    void finish(Exception failure) {
+        lock.lock();
+        try {
+            if (finished) return;
+            finished = true;
+            this.failure = failure;
+            readable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes,
+                    int offset,
+                    int length) throws IOException {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        if (length == 0) return 0;
+        lock.lock();
+        try {
+            while (count == 0) {
+                if (closed) throw new IOException("Stream closed");
+                if (finished) {
+                    if (failure != null) throw new IOException("Export aborted", failure);
+                    return -1;
+                }
+                readable.await();
+            }
+            int chunk = Math.min(length, Math.min(count, buffer.length - head));
+            System.arraycopy(buffer, head, bytes, offset, chunk);
+            head = (head + chunk) % buffer.length;
+            count -= chunk;
+            writable.signal();
+            return chunk;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading the export");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int available() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // the writer fails on its next write, which cancels the query behind the export
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            count = 0;
+            writable.signalAll();
+            readable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void write(byte[] bytes,
+                       int offset,
+                       int length) throws IOException {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        lock.lock();
+        try {
+            // the timeout bounds how long the reader may stall, not how long the whole export takes
+            long remaining = writeTimeoutNanos;
+            while (length > 0) {
+                if (closed) throw new IOException("Export reader closed the stream");
+                if (count == buffer.length) {
+                    if (remaining <= 0L) {
+                        throw new InterruptedIOException("Export reader stalled for " + TimeUnit.NANOSECONDS.toMillis(writeTimeoutNanos) + " ms");
+                    }
+                    remaining = writable.awaitNanos(remaining);
+                    continue;
+                }
+                int tail = (head + count) % buffer.length;
+                int chunk = Math.min(length, Math.min(buffer.length - count, buffer.length - tail));
+                System.arraycopy(bytes, offset, buffer, tail, chunk);
+                count += chunk;
+                offset += chunk;
+                length -= chunk;
+                remaining = writeTimeoutNanos;
+                readable.signal();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing the export");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private final class Output extends OutputStream {
+        @Override
+        public void write(int b) throws IOException {
+            ExportStream.this.write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes,
+                          int offset,
+                          int length) throws IOException {
+            ExportStream.this.write(bytes, offset, length);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.commons;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import io.github.lycoriscafe.yggdrasil.configuration.Utils;
+
+import java.io.*;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+final class ExportWriter<T extends Entity> implements Closeable {
+    private final ExportFormat format;
+    private final Writer writer;
+    private final Field[] fields;
+
+    ExportWriter(Class<T> entity,
+                 ExportFormat format,
+                 OutputStream outputStream) throws IOException {
+        this.format = format;
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        this.fields = Arrays.stream(entity.getDeclaredFields())
+                .filter(field -> !Modifier.isStatic(field.getModifiers()) && !Modifier.isTransient(field.getModifiers()))
+                .toArray(Field[]::new);
+        for (Field field : fields) field.setAccessible(true);
+
+        if (format == ExportFormat.CSV) {
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0) writer.write(',');
+                writer.write(fields[i].getName());
+            }
+            writer.write('\n');
+        }
+    }
+
+    void write(T instance) throws IOException, IllegalAccessException {
+        Gson gson = Utils.getGson();
+        if (format == ExportFormat.NDJSON) {
+            gson.toJson(instance, instance.getClass(), writer);
+            writer.write('\n');
+            return;
+        }
+
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) writer.write(',');
+            Object value = fields[i].get(instance);
+            if (value == null) continue;
+            JsonElement element = gson.toJsonTree(value, fields[i].getGenericType());
+            writeCsvValue(element.isJsonPrimitive() ? element.getAsString() : element.toString());
+        }
+        writer.write('\n');
+    }
+
+    private void writeCsvValue(String value) throws IOException {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
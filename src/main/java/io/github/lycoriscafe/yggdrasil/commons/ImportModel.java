@@ -0,0 +1,64 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.commons;
+
+import io.github.lycoriscafe.yggdrasil.authentication.Authentication;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public final class ImportModel<T extends Entity> {
+    private Set<String> uniqueFields = Set.of();
+    private Map<String, Class<? extends Entity>> references = Map.of();
+    private Provisioner<T> provisioner;
+
+    public ImportModel() {}
+
+    public Set<String> getUniqueFields() {
+        return uniqueFields;
+    }
+
+    public ImportModel<T> setUniqueFields(Set<String> uniqueFields) {
+        this.uniqueFields = uniqueFields;
+        return this;
+    }
+
+    public Map<String, Class<? extends Entity>> getReferences() {
+        return references;
+    }
+
+    public ImportModel<T> setReferences(Map<String, Class<? extends Entity>> references) {
+        this.references = references;
+        return this;
+    }
+
+    public Provisioner<T> getProvisioner() {
+        return provisioner;
+    }
+
+    public ImportModel<T> setProvisioner(Provisioner<T> provisioner) {
+        this.provisioner = provisioner;
+        return this;
+    }
+
+    @FunctionalInterface
+    public interface Provisioner<T extends Entity> {
+        // runs after the rows received their ids, the authentications are stored in the same transaction as the rows
+        List<Authentication> provision(List<T> instances);
+    }
+}
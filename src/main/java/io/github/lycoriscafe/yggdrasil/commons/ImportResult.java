@@ -0,0 +1,112 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.commons;
+
+import io.github.lycoriscafe.nexus.http.core.headers.content.Content;
+import io.github.lycoriscafe.yggdrasil.configuration.Utils;
+import io.github.lycoriscafe.yggdrasil.metrics.Phase;
+import io.github.lycoriscafe.yggdrasil.metrics.RequestContext;
+import io.github.lycoriscafe.yggdrasil.metrics.SerializationEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class ImportResult {
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private boolean success;
+    private LocalDateTime timestamp;
+    private String error;
+    private long imported;
+    private long failed;
+    private List<RowError> errors = new ArrayList<>();
+
+    public ImportResult() {
+        timestamp = LocalDateTime.now();
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public ImportResult setSuccess(boolean success) {
+        this.success = success;
+        return this;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public ImportResult setError(String error) {
+        this.error = error;
+        return this;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public ImportResult addImported(long count) {
+        imported += count;
+        return this;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    public ImportResult addError(long line,
+                                 String error) {
+        failed++;
+        if (errors.size() < MAX_REPORTED_ERRORS) errors.add(new RowError(line, error));
+        return this;
+    }
+
+    public Content parse() {
+        var event = new SerializationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        String json = null;
+        try {
+            json = Utils.getGson().toJson(this);
+            return new Content("application/json", json);
+        } finally {
+            RequestContext.record(Phase.SERIALIZATION, System.nanoTime() - start);
+            event.end();
+            if (event.shouldCommit()) {
+                event.type = "ImportResult";
+                event.shape = "object";
+                if (json != null) event.size = json.getBytes(StandardCharsets.UTF_8).length;
+                event.commit();
+            }
+        }
+    }
+
+    public record RowError(long line,
+                           String error) {}
+}
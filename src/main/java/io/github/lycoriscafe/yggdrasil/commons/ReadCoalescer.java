@@ -0,0 +1,95 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.commons;
+
+import io.github.lycoriscafe.yggdrasil.configuration.Utils;
+import io.github.lycoriscafe.yggdrasil.configuration.YggdrasilConfig;
+
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+public final class ReadCoalescer {
+    private static final ConcurrentHashMap<Key, CompletableFuture<ResponseModel<?>>> IN_FLIGHT = new ConcurrentHashMap<>();
+    private static final LongAdder COALESCED_READS = new LongAdder();
+
+    private ReadCoalescer() {}
+
+    // concurrent identical reads share a single execution, every caller gets its own copy of the response and the
+    // JSON is serialized once for all of them; the entities in getData() are shared and must not be modified
+    @SuppressWarnings("unchecked")
+    static <T extends Entity> ResponseModel<T> read(Class<T> entity,
+                                                    SearchModel searchModel,
+                                                    Supplier<ResponseModel<T>> query) {
+        var key = new Key(entity, normalize(searchModel));
+        var future = new CompletableFuture<ResponseModel<?>>();
+        var existing = IN_FLIGHT.putIfAbsent(key, future);
+        if (existing != null) {
+            COALESCED_READS.increment();
+            try {
+                return ((ResponseModel<T>) existing.join()).copy();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+                throw e;
+            }
+        }
+
+        try {
+            var response = query.get().share();
+            future.complete(response);
+            return response.copy();
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            IN_FLIGHT.remove(key, future);
+        }
+    }
+
+    public static long getCoalescedReads() {
+        return COALESCED_READS.sum();
+    }
+
+    public static int getInFlightReads() {
+        return IN_FLIGHT.size();
+    }
+
+    private static String normalize(SearchModel searchModel) {
+        Map<String, Map<String, Boolean>> searchBy = null;
+        if (searchModel.getSearchBy() != null) {
+            searchBy = new TreeMap<>();
+            for (var entry : searchModel.getSearchBy().entrySet()) searchBy.put(entry.getKey(), new TreeMap<>(entry.getValue()));
+        }
+        var normalized = new SearchModel()
+                .setSearchBy(searchBy)
+                .setOrderBy(searchModel.getOrderBy())
+                .setAscending(searchModel.getAscending())
+                .setResultsFrom(searchModel.getResultsFrom() == null ? BigInteger.ZERO : searchModel.getResultsFrom())
+                .setResultsOffset(searchModel.getResultsOffset() == null ?
+                        BigInteger.valueOf(YggdrasilConfig.getDefaultResultsOffset()) : searchModel.getResultsOffset())
+                .setShape(searchModel.getShape());
+        return Utils.getGson().toJson(normalized);
+    }
+
+    private record Key(Class<?> entity,
+                       String searchModel) {}
+}
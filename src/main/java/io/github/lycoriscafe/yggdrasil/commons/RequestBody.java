@@ -0,0 +1,125 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.commons;
+
+import io.github.lycoriscafe.nexus.http.engine.reqResManager.httpReq.HttpRequest;
+import io.github.lycoriscafe.yggdrasil.configuration.YggdrasilConfig;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+public final class RequestBody implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final byte[] bytes;
+    private final Path file;
+    private InputStream inputStream;
+
+    private RequestBody(byte[] bytes,
+                        Path file) {
+        this.bytes = bytes;
+        this.file = file;
+    }
+
+    public static RequestBody of(HttpRequest req) {
+        Objects.requireNonNull(req);
+        if (req.getContent() == null) return new RequestBody(new byte[0], null);
+        return switch (req.getContent().getData()) {
+            case byte[] data -> new RequestBody(data, null);
+            case Path path -> new RequestBody(null, path);
+            case File file -> new RequestBody(null, file.toPath());
+            case null, default -> throw new IllegalArgumentException("Unsupported request body");
+        };
+    }
+
+    // spilled bodies are streamed from the file through one direct buffer instead of being copied onto the heap
+    public InputStream getInputStream() throws IOException {
+        if (inputStream == null) {
+            inputStream = file == null ? new ByteArrayInputStream(bytes) : new ChannelInputStream(FileChannel.open(file, StandardOpenOption.READ));
+        }
+        return inputStream;
+    }
+
+    public Reader getReader() throws IOException {
+        return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (inputStream != null) inputStream.close();
+        } finally {
+            if (file != null && file.toAbsolutePath().normalize().startsWith(YggdrasilConfig.getTempDirectory())) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    // positional reads instead of a mapping, a mapped segment keeps the file open until GC and Windows refuses the delete
+    private static final class ChannelInputStream extends InputStream {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).limit(0);
+        private long position;
+
+        private ChannelInputStream(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return fill() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b,
+                        int off,
+                        int len) throws IOException {
+            Objects.checkFromIndexSize(off, len, b.length);
+            if (len == 0) return 0;
+            if (!fill()) return -1;
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        private boolean fill() throws IOException {
+            if (buffer.hasRemaining()) return true;
+            buffer.clear();
+            int count = channel.read(buffer, position);
+            buffer.flip();
+            if (count <= 0) return false;
+            position += count;
+            return true;
+        }
+    }
+}
@@ -18,8 +18,12 @@ package io.github.lycoriscafe.yggdrasil.commons;
 
 import io.github.lycoriscafe.nexus.http.core.headers.content.Content;
 import io.github.lycoriscafe.yggdrasil.configuration.Utils;
+import io.github.lycoriscafe.yggdrasil.metrics.Phase;
+import io.github.lycoriscafe.yggdrasil.metrics.RequestContext;
+import io.github.lycoriscafe.yggdrasil.metrics.SerializationEvent;
 
 import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -31,17 +35,42 @@ public final class ResponseModel<T extends Entity> {
     private BigInteger resultsFrom;
     private BigInteger resultsOffset;
     private List<T> data;
+    private transient ResponseShape shape;
+    // only set on results a coalesced read hands to several callers, any setter drops it
+    private transient SharedJson shared;
 
     public ResponseModel() {
         timestamp = LocalDateTime.now();
     }
 
+    // the leader's result becomes serializable once for every caller of a coalesced read
+    ResponseModel<T> share() {
+        shared = new SharedJson();
+        return this;
+    }
+
+    // each coalesced caller gets its own copy, a setter on one copy doesn't change what the others send
+    ResponseModel<T> copy() {
+        var copy = new ResponseModel<T>();
+        copy.success = success;
+        copy.timestamp = timestamp;
+        copy.error = error;
+        copy.generableResults = generableResults;
+        copy.resultsFrom = resultsFrom;
+        copy.resultsOffset = resultsOffset;
+        copy.data = data;
+        copy.shape = shape;
+        copy.shared = shared;
+        return copy;
+    }
+
     public boolean isSuccess() {
         return success;
     }
 
     public ResponseModel<T> setSuccess(boolean success) {
         this.success = success;
+        shared = null;
         return this;
     }
 
@@ -51,6 +80,7 @@ public final class ResponseModel<T extends Entity> {
 
     public ResponseModel<T> setTimestamp(LocalDateTime timestamp) {
         this.timestamp = timestamp;
+        shared = null;
         return this;
     }
 
@@ -60,6 +90,7 @@ public final class ResponseModel<T extends Entity> {
 
     public ResponseModel<T> setError(String error) {
         this.error = error;
+        shared = null;
         return this;
     }
 
@@ -69,6 +100,7 @@ public final class ResponseModel<T extends Entity> {
 
     public ResponseModel<T> setGenerableResults(BigInteger generableResults) {
         this.generableResults = generableResults;
+        shared = null;
         return this;
     }
 
@@ -78,6 +110,7 @@ public final class ResponseModel<T extends Entity> {
 
     public ResponseModel<T> setResultsFrom(BigInteger resultsFrom) {
         this.resultsFrom = resultsFrom;
+        shared = null;
         return this;
     }
 
@@ -87,6 +120,7 @@ public final class ResponseModel<T extends Entity> {
 
     public ResponseModel<T> setResultsOffset(BigInteger resultsOffset) {
         this.resultsOffset = resultsOffset;
+        shared = null;
         return this;
     }
 
@@ -96,10 +130,55 @@ public final class ResponseModel<T extends Entity> {
 
     public ResponseModel<T> setData(List<T> data) {
         this.data = data;
+        shared = null;
+        return this;
+    }
+
+    public ResponseShape getShape() {
+        return shape;
+    }
+
+    public ResponseModel<T> setShape(ResponseShape shape) {
+        this.shape = shape;
+        shared = null;
         return this;
     }
 
     public Content parse() {
-        return new Content("application/json", Utils.getGson().toJson(this));
+        var event = new SerializationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        String json = null;
+        try {
+            json = shared == null ? serialize() : shared.get(this);
+            return new Content("application/json", json);
+        } finally {
+            RequestContext.record(Phase.SERIALIZATION, System.nanoTime() - start);
+            event.end();
+            if (event.shouldCommit()) {
+                event.type = data == null || data.isEmpty() ? "ResponseModel" : data.getFirst().getClass().getSimpleName();
+                event.shape = shape == ResponseShape.COLUMNAR ? "columnar" : "object";
+                if (json != null) event.size = json.getBytes(StandardCharsets.UTF_8).length;
+                event.commit();
+            }
+        }
+    }
+
+    private String serialize() {
+        return shape == ResponseShape.COLUMNAR ? ColumnarSerializer.toJson(this) : Utils.getGson().toJson(this);
+    }
+
+    // the first caller serializes, the others wait for its JSON instead of serializing the same rows again
+    private static final class SharedJson {
+        private ResponseShape shape;
+        private String json;
+
+        private synchronized String get(ResponseModel<?> response) {
+            if (json == null || shape != response.shape) {
+                json = response.serialize();
+                shape = response.shape;
+            }
+            return json;
+        }
     }
 }
@@ -28,6 +28,7 @@ public final class SearchModel {
     private Boolean isAscending;
     private BigInteger resultsFrom;
     private BigInteger resultsOffset;
+    private ResponseShape shape;
 
     public SearchModel() {}
 
@@ -76,6 +77,15 @@ public final class SearchModel {
         return this;
     }
 
+    public ResponseShape getShape() {
+        return shape;
+    }
+
+    public SearchModel setShape(ResponseShape shape) {
+        this.shape = shape;
+        return this;
+    }
+
     public static SearchModel fromJson(String json) {
         return Utils.getGson().fromJson(json, SearchModel.class);
     }
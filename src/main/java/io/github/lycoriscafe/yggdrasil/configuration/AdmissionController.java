@@ -0,0 +1,69 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.configuration;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class AdmissionController {
+    private static final ThreadLocal<Priority> PRIORITY = ThreadLocal.withInitial(() -> Priority.NORMAL);
+    private static final LongAdder REJECTED = new LongAdder();
+
+    private AdmissionController() {}
+
+    // returns null when the request may proceed, otherwise the number of seconds the client should wait
+    public static Long admit(Priority priority) {
+        Objects.requireNonNull(priority);
+        PRIORITY.set(priority);
+        if (priority == Priority.HIGH) return null;
+
+        long budget = TimeUnit.MILLISECONDS.toNanos(YggdrasilConfig.getAdmissionQueueBudget());
+        if (priority == Priority.LOW) budget /= 2;
+        long delay = priority == Priority.LOW ? getEstimatedDelayNanos(YggdrasilConfig.getDatabaseGate(Workload.BULK)) :
+                Math.max(getEstimatedDelayNanos(YggdrasilConfig.getDatabaseGate(Workload.READ)),
+                        getEstimatedDelayNanos(YggdrasilConfig.getDatabaseGate(Workload.WRITE)));
+        if (YggdrasilConfig.getReplicaGate() != null) {
+            delay = Math.max(delay, getEstimatedDelayNanos(YggdrasilConfig.getReplicaGate()));
+        }
+        if (delay <= budget) return null;
+
+        REJECTED.increment();
+        return Math.max(1L, TimeUnit.NANOSECONDS.toSeconds(delay) + 1);
+    }
+
+    // queueing delay a new arrival can expect, by Little's law over the recent connection hold time
+    public static long getEstimatedDelayNanos(DatabaseGate gate) {
+        if (gate == null) return 0L;
+        int queueLength = gate.getQueueLength();
+        if (queueLength == 0) return 0L;
+        long drainTime = (queueLength + 1) * gate.getRecentHoldNanos() / Math.max(1, gate.getMaximumPermits());
+        return Math.max(gate.getRecentWaitNanos(), drainTime);
+    }
+
+    public static Priority getPriority() {
+        return PRIORITY.get();
+    }
+
+    public static void setPriority(Priority priority) {
+        PRIORITY.set(Objects.requireNonNull(priority));
+    }
+
+    public static long getRejectedCount() {
+        return REJECTED.sum();
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.github.lycoriscafe.yggdrasil.metrics.Phase;
+import io.github.lycoriscafe.yggdrasil.metrics.QueryStatistics;
+import io.github.lycoriscafe.yggdrasil.metrics.RequestContext;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Objects;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class DatabaseGate {
+    private final HikariDataSource dataSource;
+    private final int reservedPermits;
+    private final ResizableSemaphore permits;
+    private final ResizableSemaphore sharedPermits;
+    private volatile int maximumPermits;
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder holdNanos = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final AtomicLong recentWaitNanos = new AtomicLong();
+    private final AtomicLong recentHoldNanos = new AtomicLong();
+
+    public DatabaseGate(HikariDataSource dataSource,
+                        int reservedPermits) {
+        this.dataSource = Objects.requireNonNull(dataSource);
+        this.reservedPermits = reservedPermits;
+        this.maximumPermits = dataSource.getMaximumPoolSize();
+        this.permits = new ResizableSemaphore(maximumPermits);
+        // high priority work may use every connection, everything else leaves the reserved ones free
+        this.sharedPermits = new ResizableSemaphore(sharedPermits(maximumPermits));
+    }
+
+    // callers queue here in arrival order instead of inside the pool, so waiting stays cheap on virtual threads
+    public Connection getConnection() throws SQLException {
+        boolean shared = AdmissionController.getPriority() != Priority.HIGH;
+        long waitStart = System.nanoTime();
+        long deadline = waitStart + TimeUnit.MILLISECONDS.toNanos(dataSource.getConnectionTimeout());
+        try {
+            if (shared && !sharedPermits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                timeouts.increment();
+                throw new SQLTransientConnectionException("Timed out waiting for a database connection");
+            }
+            if (!permits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                if (shared) sharedPermits.release();
+                timeouts.increment();
+                throw new SQLTransientConnectionException("Timed out waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted waiting for a database connection", e);
+        }
+
+        long holdStart = System.nanoTime();
+        waitNanos.add(holdStart - waitStart);
+        updateAverage(recentWaitNanos, holdStart - waitStart);
+        RequestContext.timing("acquire", holdStart - waitStart, dataSource.getPoolName());
+        acquired.increment();
+        try {
+            return track(dataSource.getConnection(), waitStart, holdStart, shared);
+        } catch (SQLException | RuntimeException e) {
+            release(shared);
+            throw e;
+        }
+    }
+
+    private int sharedPermits(int maximum) {
+        return Math.max(1, maximum - reservedPermits);
+    }
+
+    // the pool grows before callers may use the new permits and shrinks only after they are withdrawn
+    public synchronized void resize(int maximum) {
+        if (maximum < 1) throw new IllegalArgumentException("Pool size must be positive");
+        int current = maximumPermits;
+        if (maximum == current) return;
+
+        var config = dataSource.getHikariConfigMXBean();
+        if (maximum > current) {
+            config.setMaximumPoolSize(maximum);
+            permits.release(maximum - current);
+            sharedPermits.release(sharedPermits(maximum) - sharedPermits(current));
+        } else {
+            permits.reducePermits(current - maximum);
+            sharedPermits.reducePermits(sharedPermits(current) - sharedPermits(maximum));
+            if (config.getMinimumIdle() > maximum) config.setMinimumIdle(maximum);
+            config.setMaximumPoolSize(maximum);
+        }
+        maximumPermits = maximum;
+    }
+
+    private void release(boolean shared) {
+        permits.release();
+        if (shared) sharedPermits.release();
+    }
+
+    private static void updateAverage(AtomicLong average,
+                                      long sample) {
+        // exponentially weighted, each sample contributes 1/8
+        long current;
+        do {
+            current = average.get();
+        } while (!average.compareAndSet(current, current + ((sample - current) >> 3)));
+    }
+
+    private Connection track(Connection connection,
+                             long waitStart,
+                             long holdStart,
+                             boolean shared) {
+        var closed = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close") && method.getParameterCount() == 0) {
+                        if (!closed.compareAndSet(false, true)) return null;
+                        try {
+                            connection.close();
+                        } finally {
+                            long now = System.nanoTime();
+                            long held = now - holdStart;
+                            holdNanos.add(held);
+                            RequestContext.record(Phase.DATABASE, now - waitStart);
+                            updateAverage(recentHoldNanos, held);
+                            release(shared);
+                        }
+                        return null;
+                    }
+                    if (method.getName().equals("commit") || method.getName().equals("rollback")) RequestContext.roundTrip();
+                    try {
+                        Object result = method.invoke(connection, args);
+                        if (result instanceof PreparedStatement statement && args != null && args[0] instanceof String sql) {
+                            return QueryStatistics.track(statement, sql);
+                        }
+                        return result;
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    public HikariDataSource getDataSource() {
+        return dataSource;
+    }
+
+    public int getMaximumPermits() {
+        return maximumPermits;
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    // normal and low priority callers wait on the shared permits before they reach the pool permits
+    public int getQueueLength() {
+        return sharedPermits.getQueueLength() + permits.getQueueLength();
+    }
+
+    public long getAcquiredCount() {
+        return acquired.sum();
+    }
+
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+
+    public long getWaitNanos() {
+        return waitNanos.sum();
+    }
+
+    public long getHoldNanos() {
+        return holdNanos.sum();
+    }
+
+    public long getRecentWaitNanos() {
+        return recentWaitNanos.get();
+    }
+
+    public long getRecentHoldNanos() {
+        return recentHoldNanos.get();
+    }
+
+    private static final class ResizableSemaphore extends Semaphore {
+        private ResizableSemaphore(int permits) {
+            super(permits, true);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.configuration;
+
+import io.github.lycoriscafe.nexus.http.core.HttpEndpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+// written at build time (process-classes) so startup reads one resource instead of walking the class path for endpoints
+public final class EndpointIndex {
+    private static final Logger logger = LoggerFactory.getLogger(EndpointIndex.class);
+    private static final String RESOURCE = "META-INF/yggdrasil/endpoints";
+
+    public static void main(String[] args) throws IOException, ClassNotFoundException {
+        if (args.length != 1) throw new IllegalArgumentException("Usage: EndpointIndex <classes directory>");
+        Path classes = Path.of(args[0]);
+        List<String> endpoints = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(classes)) {
+            for (Path file : files.filter(path -> path.toString().endsWith(".class")).sorted().toList()) {
+                String name = classes.relativize(file).toString();
+                if (name.equals("module-info.class")) continue;
+                name = name.substring(0, name.length() - ".class".length()).replace(file.getFileSystem().getSeparator(), ".");
+                // not initialized, static state of the application must not run during the build
+                if (Class.forName(name, false, EndpointIndex.class.getClassLoader()).isAnnotationPresent(HttpEndpoint.class)) {
+                    endpoints.add(name);
+                }
+            }
+        }
+        Path index = classes.resolve(RESOURCE);
+        Files.createDirectories(index.getParent());
+        Files.write(index, endpoints, StandardCharsets.UTF_8);
+    }
+
+    public static List<String> load() throws IOException {
+        List<String> endpoints = new ArrayList<>();
+        try (var inputStream = EndpointIndex.class.getResourceAsStream("/" + RESOURCE)) {
+            // missing when the classes were not built by Maven, e.g. straight from an IDE
+            if (inputStream == null) return endpoints;
+            var reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+            for (String line; (line = reader.readLine()) != null; ) {
+                if (!line.isBlank()) endpoints.add(line.strip());
+            }
+        }
+        return endpoints;
+    }
+
+    // loads, links and initializes the endpoints and the types of their handlers side by side, nexus-http finds them ready
+    public static void preload(ExecutorService executor) throws IOException {
+        List<Future<?>> futures = new ArrayList<>();
+        for (String endpoint : load()) {
+            futures.add(executor.submit(() -> Class.forName(endpoint, true, EndpointIndex.class.getClassLoader()).getDeclaredMethods()));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                // the scan of nexus-http still runs, a class that cannot be preloaded is reported there as well
+                logger.warn("Preloading an endpoint failed", e.getCause());
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public final class PoolSizer {
+    private static final Logger logger = LoggerFactory.getLogger(PoolSizer.class);
+    private static final double HEADROOM = 1.25;
+    private static final double OVERLOAD_FACTOR = 1.5;
+    private static final int GROWTH_HOLD_OFF_INTERVALS = 5;
+
+    private final DatabaseGate gate;
+    private final String name;
+    private final int minimumSize;
+    private final int maximumSize;
+    private final long targetWaitNanos;
+    private long lastAcquired;
+    private long lastWaitNanos;
+    private long lastHoldNanos;
+    private long lastSampleTime = System.nanoTime();
+    private long holdBeforeGrowth = -1L;
+    private int growthHoldOff;
+
+    private PoolSizer(DatabaseGate gate,
+                      String name,
+                      int minimumSize,
+                      int maximumSize,
+                      long targetWaitNanos) {
+        this.gate = Objects.requireNonNull(gate);
+        this.name = Objects.requireNonNull(name);
+        this.minimumSize = minimumSize;
+        this.maximumSize = maximumSize;
+        this.targetWaitNanos = targetWaitNanos;
+        this.lastAcquired = gate.getAcquiredCount();
+        this.lastWaitNanos = gate.getWaitNanos();
+        this.lastHoldNanos = gate.getHoldNanos();
+    }
+
+    // every pool grows up to its own maximum, the minimum is lowered for pools whose maximum is below it
+    public static ScheduledExecutorService start(Map<DatabaseGate, Integer> maximumSizes,
+                                                 int minimumSize,
+                                                 long targetWaitMillis,
+                                                 long intervalMillis) {
+        if (minimumSize < 1) throw new IllegalArgumentException("Invalid pool size bounds");
+
+        List<PoolSizer> sizers = new ArrayList<>();
+        for (var entry : maximumSizes.entrySet()) {
+            int maximumSize = entry.getValue();
+            if (maximumSize < 1) throw new IllegalArgumentException("Invalid pool size bounds");
+            sizers.add(new PoolSizer(entry.getKey(), entry.getKey().getDataSource().getPoolName(), Math.min(minimumSize, maximumSize),
+                    maximumSize, TimeUnit.MILLISECONDS.toNanos(targetWaitMillis)));
+        }
+        var executor = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("pool-sizer").daemon().factory());
+        executor.scheduleWithFixedDelay(() -> sizers.forEach(PoolSizer::adjust), intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        return executor;
+    }
+
+    private void adjust() {
+        try {
+            long now = System.nanoTime();
+            long acquired = gate.getAcquiredCount() - lastAcquired;
+            long waitNanos = gate.getWaitNanos() - lastWaitNanos;
+            long holdNanos = gate.getHoldNanos() - lastHoldNanos;
+            long elapsed = now - lastSampleTime;
+            lastAcquired += acquired;
+            lastWaitNanos += waitNanos;
+            lastHoldNanos += holdNanos;
+            lastSampleTime = now;
+
+            int current = gate.getMaximumPermits();
+            var pool = gate.getDataSource().getHikariPoolMXBean();
+            // callers still waiting at either of the gate's semaphores plus those already waiting inside Hikari
+            int queued = gate.getQueueLength() + pool.getThreadsAwaitingConnection();
+            long averageWait = acquired == 0 ? 0L : waitNanos / acquired;
+            long averageHold = acquired == 0 ? 0L : holdNanos / acquired;
+            // Little's law: connections busy on average = arrival rate * time each one is held
+            double busy = elapsed == 0 ? 0.0 : (double) holdNanos / elapsed;
+            int needed = (int) Math.ceil(busy * HEADROOM);
+
+            boolean overloaded = holdBeforeGrowth > 0 && averageHold > holdBeforeGrowth * OVERLOAD_FACTOR;
+            holdBeforeGrowth = -1L;
+            if (growthHoldOff > 0) growthHoldOff--;
+
+            int size = current;
+            String reason = "steady";
+            if (overloaded) {
+                // queries got slower after growing, MySQL is the bottleneck rather than the pool
+                size = current - 1;
+                growthHoldOff = GROWTH_HOLD_OFF_INTERVALS;
+                reason = "query latency rose after growth";
+            } else if (averageWait > targetWaitNanos && queued > 0 && growthHoldOff == 0) {
+                size = Math.max(current + 1, Math.min(current * 2, needed));
+                reason = "acquire latency above target";
+            } else if (averageWait < targetWaitNanos / 2 && queued == 0 && needed < current) {
+                size = current - 1;
+                reason = "pool underused";
+            }
+            size = Math.clamp(size, minimumSize, maximumSize);
+            if (size > current) holdBeforeGrowth = Math.max(averageHold, 1L);
+            if (size != current) gate.resize(size);
+
+            String message = "Pool {} {} -> {} ({}): active={}, idle={}, pending={}, acquireLatency={}us, queryLatency={}us, busy={}";
+            Object[] arguments = {name, current, size, reason, pool.getActiveConnections(), pool.getIdleConnections(), queued,
+                    TimeUnit.NANOSECONDS.toMicros(averageWait), TimeUnit.NANOSECONDS.toMicros(averageHold),
+                    String.format("%.2f", busy)};
+            if (size != current) {
+                logger.info(message, arguments);
+            } else {
+                logger.debug(message, arguments);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Pool {} sizing failed", name, e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.configuration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+public final class ReplicaRouter {
+    private static final int PURGE_THRESHOLD = 10_000;
+    private static final ThreadLocal<String> SESSION = new ThreadLocal<>();
+    private static final Map<String, Long> PINNED_UNTIL = new ConcurrentHashMap<>();
+
+    private ReplicaRouter() {}
+
+    // identifies the user behind the current request, null for anonymous requests
+    public static void setSession(String session) {
+        if (session == null) {
+            SESSION.remove();
+        } else {
+            SESSION.set(session);
+        }
+    }
+
+    // after a write the user reads from the primary until the replica has had time to catch up
+    public static void recordWrite() {
+        String session = SESSION.get();
+        if (session == null || YggdrasilConfig.getReplicaGate() == null) return;
+
+        long now = System.nanoTime();
+        if (PINNED_UNTIL.size() > PURGE_THRESHOLD) PINNED_UNTIL.values().removeIf(until -> until - now < 0);
+        PINNED_UNTIL.put(session, now + TimeUnit.MILLISECONDS.toNanos(YggdrasilConfig.getReadYourWritesWindow()));
+    }
+
+    public static boolean isPinned() {
+        String session = SESSION.get();
+        if (session == null) return false;
+        Long until = PINNED_UNTIL.get(session);
+        if (until == null) return false;
+        if (until - System.nanoTime() > 0) return true;
+        PINNED_UNTIL.remove(session, until);
+        return false;
+    }
+
+    public static Connection getConnection(Workload workload,
+                                           boolean pinned) throws SQLException {
+        var replicaGate = YggdrasilConfig.getReplicaGate();
+        if (pinned || replicaGate == null) return Utils.getDatabaseConnection(workload);
+        return replicaGate.getConnection();
+    }
+}
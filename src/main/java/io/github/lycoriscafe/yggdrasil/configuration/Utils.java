@@ -41,8 +41,8 @@ public final class Utils {
             .registerTypeAdapter(LocalDateTime.class, new GsonTypeAdapters.DateTime())
             .create();
 
-    public static Connection getDatabaseConnection() throws SQLException {
-        return YggdrasilConfig.getDatabase().getConnection();
+    public static Connection getDatabaseConnection(Workload workload) throws SQLException {
+        return YggdrasilConfig.getDatabaseGate(workload).getConnection();
     }
 
     public static DateTimeFormatter getYearFormatter() {
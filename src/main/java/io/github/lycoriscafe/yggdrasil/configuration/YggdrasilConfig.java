@@ -22,25 +22,58 @@ import io.github.lycoriscafe.nexus.http.HttpServer;
 import io.github.lycoriscafe.nexus.http.core.headers.auth.scheme.bearer.BearerAuthentication;
 import io.github.lycoriscafe.nexus.http.helper.configuration.PropertiesProcessor;
 import io.github.lycoriscafe.nexus.http.helper.scanners.ScannerException;
+import io.github.lycoriscafe.yggdrasil.logging.AsyncLog;
+import io.github.lycoriscafe.yggdrasil.metrics.Metrics;
+import io.github.lycoriscafe.yggdrasil.metrics.RoundTripBudget;
+import io.github.lycoriscafe.yggdrasil.storage.JdbcStorage;
+import io.github.lycoriscafe.yggdrasil.storage.MemoryStorage;
+import io.github.lycoriscafe.yggdrasil.storage.Storage;
+import org.slf4j.event.Level;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public final class YggdrasilConfig {
     private static HikariDataSource database;
+    private static final Map<Workload, DatabaseGate> databaseGates = new EnumMap<>(Workload.class);
+    private static DatabaseGate replicaGate;
+    private static Storage storage = new JdbcStorage();
     private static HttpServer httpServer;
     private static Long defaultResultsOffset = 50L;
     private static Long defaultAuthTimeout = 3600L;
     private static Integer[] defaultUserPasswordBoundary = {8, 50};
     private static Integer maxLoginDevices = 3;
+    private static Long admissionQueueBudget = 500L;
+    private static Integer reservedConnections = 1;
+    private static Long readYourWritesWindow = 5000L;
+    private static Integer poolSizeMinimum;
+    private static Integer poolSizeMaximum;
+    private static Long acquireLatencyTarget = 50L;
+    private static Long poolSizingInterval = 10000L;
+    private static String metricsToken;
+    private static Long latencyReportInterval = 60000L;
+    private static Long slowQueryThreshold = 500L;
+    private static Integer queryStatisticsLimit = 500;
+    private static Long exportWriteTimeout = 30000L;
+    private static Boolean warmUp = false;
+    private static Integer warmUpIterations = 200;
+    private static Level logLevel = Level.INFO;
+    private static Path logFile;
+    private static Path tempDirectory = Path.of("YggdrasilTemp").toAbsolutePath().normalize();
 
     public static void initialize() throws IOException, ScannerException, SQLException {
-        initializeDatabase();
-        initializeHttpServer();
-
+        Properties properties = new Properties();
         try (var inputStream = YggdrasilConfig.class.getResourceAsStream("/yggdrasil.properties")) {
-            Properties properties = new Properties();
             properties.load(inputStream);
 
             String defaultResultsOffsetString = properties.getProperty("defaultResultsOffset");
@@ -58,19 +91,170 @@ public final class YggdrasilConfig {
 
             String maxLoginDevicesString = properties.getProperty("maxLoginDevices");
             if (maxLoginDevicesString != null) maxLoginDevices = Integer.parseInt(maxLoginDevicesString);
+
+            String admissionQueueBudgetString = properties.getProperty("admissionQueueBudget");
+            if (admissionQueueBudgetString != null) admissionQueueBudget = Long.parseLong(admissionQueueBudgetString);
+
+            String reservedConnectionsString = properties.getProperty("reservedConnections");
+            if (reservedConnectionsString != null) reservedConnections = Integer.parseInt(reservedConnectionsString);
+
+            String readYourWritesWindowString = properties.getProperty("readYourWritesWindow");
+            if (readYourWritesWindowString != null) readYourWritesWindow = Long.parseLong(readYourWritesWindowString);
+
+            String poolSizeMinimumString = properties.getProperty("poolSizeMinimum");
+            if (poolSizeMinimumString != null) poolSizeMinimum = Integer.parseInt(poolSizeMinimumString);
+
+            String poolSizeMaximumString = properties.getProperty("poolSizeMaximum");
+            if (poolSizeMaximumString != null) poolSizeMaximum = Integer.parseInt(poolSizeMaximumString);
+
+            String acquireLatencyTargetString = properties.getProperty("acquireLatencyTarget");
+            if (acquireLatencyTargetString != null) acquireLatencyTarget = Long.parseLong(acquireLatencyTargetString);
+
+            String poolSizingIntervalString = properties.getProperty("poolSizingInterval");
+            if (poolSizingIntervalString != null) poolSizingInterval = Long.parseLong(poolSizingIntervalString);
+
+            metricsToken = properties.getProperty("metricsToken");
+
+            String latencyReportIntervalString = properties.getProperty("latencyReportInterval");
+            if (latencyReportIntervalString != null) latencyReportInterval = Long.parseLong(latencyReportIntervalString);
+
+            String slowQueryThresholdString = properties.getProperty("slowQueryThreshold");
+            if (slowQueryThresholdString != null) slowQueryThreshold = Long.parseLong(slowQueryThresholdString);
+
+            String queryStatisticsLimitString = properties.getProperty("queryStatisticsLimit");
+            if (queryStatisticsLimitString != null) queryStatisticsLimit = Integer.parseInt(queryStatisticsLimitString);
+
+            String exportWriteTimeoutString = properties.getProperty("exportWriteTimeout");
+            if (exportWriteTimeoutString != null) exportWriteTimeout = Long.parseLong(exportWriteTimeoutString);
+
+            String warmUpString = properties.getProperty("warmUp");
+            if (warmUpString != null) warmUp = Boolean.parseBoolean(warmUpString);
+
+            String warmUpIterationsString = properties.getProperty("warmUpIterations");
+            if (warmUpIterationsString != null) warmUpIterations = Integer.parseInt(warmUpIterationsString);
+
+            String logLevelString = properties.getProperty("logLevel");
+            if (logLevelString != null) logLevel = Level.valueOf(logLevelString.toUpperCase());
+
+            String logFileString = properties.getProperty("logFile");
+            if (logFileString != null) logFile = Path.of(logFileString).toAbsolutePath().normalize();
+
+            String storageString = properties.getProperty("storage");
+            if (storageString != null) {
+                storage = switch (storageString) {
+                    case "jdbc" -> new JdbcStorage();
+                    case "memory" -> new MemoryStorage();
+                    default -> throw new IllegalArgumentException("Invalid storage");
+                };
+            }
+        }
+
+        AsyncLog.configure(logLevel, logFile);
+        RoundTripBudget.load(properties);
+        // the pools connect to MySQL while the endpoints are preloaded
+        try (var executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                Thread.ofPlatform().name("yggdrasil-init-", 0).factory())) {
+            // the in-memory engine needs neither MySQL nor connection pools
+            Future<?> databaseInitialization = storage instanceof JdbcStorage ? executor.submit(() -> {
+                initializeDatabase(properties);
+                return null;
+            }) : null;
+            EndpointIndex.preload(executor);
+            if (databaseInitialization != null) await(databaseInitialization);
         }
+        Metrics.startReporting(latencyReportInterval);
     }
 
-    private static void initializeDatabase() throws IOException {
+    private static void await(Future<?> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while initializing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) throw ioException;
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static void initializeDatabase(Properties yggdrasilProperties) throws IOException {
+        Properties properties = new Properties();
         try (var inputStream = YggdrasilConfig.class.getResourceAsStream("/hikari.properties")) {
-            Properties properties = new Properties();
             properties.load(inputStream);
-            var hikariConfig = new HikariConfig(properties);
-            database = new HikariDataSource(hikariConfig);
         }
+        database = new HikariDataSource(new HikariConfig(properties));
+        var defaultGate = new DatabaseGate(database, reservedConnections);
+
+        // a workload with "pool.<workload>.*" overrides gets its own pool, the rest share the default one
+        for (Workload workload : Workload.values()) {
+            var dataSource = createDataSource(properties, yggdrasilProperties, "pool." + workload + ".", "yggdrasil-" + workload);
+            databaseGates.put(workload, dataSource == null ? defaultGate : new DatabaseGate(dataSource, reservedConnections));
+        }
+
+        // "replica.*" overrides (at least replica.jdbcUrl) point reads at a replica of the primary
+        properties.setProperty("readOnly", "true");
+        var replica = createDataSource(properties, yggdrasilProperties, "replica.", "yggdrasil-replica");
+        if (replica != null) replicaGate = new DatabaseGate(replica, reservedConnections);
+
+        // sizing is adaptive only when bounds are configured, otherwise hikari.properties decides
+        // a pool with a maximumPoolSize override of its own never grows past it, the others are bounded by poolSizeMaximum
+        if (poolSizeMinimum != null && poolSizeMaximum != null) {
+            if (poolSizeMaximum < poolSizeMinimum) throw new IllegalArgumentException("Invalid pool size bounds");
+            Map<DatabaseGate, Integer> maximumSizes = new LinkedHashMap<>();
+            for (Workload workload : Workload.values()) {
+                maximumSizes.putIfAbsent(databaseGates.get(workload), maximumPoolSize(yggdrasilProperties, "pool." + workload + "."));
+            }
+            if (replicaGate != null) maximumSizes.put(replicaGate, maximumPoolSize(yggdrasilProperties, "replica."));
+            PoolSizer.start(maximumSizes, poolSizeMinimum, acquireLatencyTarget, poolSizingInterval);
+        }
+    }
+
+    private static int maximumPoolSize(Properties yggdrasilProperties,
+                                       String prefix) {
+        String maximumPoolSizeString = yggdrasilProperties.getProperty(prefix + "maximumPoolSize");
+        return maximumPoolSizeString == null ? poolSizeMaximum : Integer.parseInt(maximumPoolSizeString);
+    }
+
+    // harnesses route every workload through a data source of their own, without hikari.properties or a server
+    public static void initializeDatabase(HikariDataSource dataSource) {
+        database = Objects.requireNonNull(dataSource);
+        var gate = new DatabaseGate(dataSource, reservedConnections);
+        for (Workload workload : Workload.values()) databaseGates.put(workload, gate);
+        replicaGate = null;
+        storage = new JdbcStorage();
+    }
+
+    public static void initializeStorage(Storage storage) {
+        YggdrasilConfig.storage = Objects.requireNonNull(storage);
+    }
+
+    private static HikariDataSource createDataSource(Properties baseProperties,
+                                                     Properties yggdrasilProperties,
+                                                     String prefix,
+                                                     String poolName) {
+        Properties properties = new Properties();
+        properties.putAll(baseProperties);
+        boolean overridden = false;
+        for (String name : yggdrasilProperties.stringPropertyNames()) {
+            if (!name.startsWith(prefix)) continue;
+            properties.setProperty(name.substring(prefix.length()), yggdrasilProperties.getProperty(name));
+            overridden = true;
+        }
+        if (!overridden) return null;
+        properties.setProperty("poolName", poolName);
+        return new HikariDataSource(new HikariConfig(properties));
     }
 
-    private static void initializeHttpServer() throws ScannerException, SQLException, IOException {
+    // binds the port, everything the endpoints need has to be initialized before
+    public static void initializeHttpServer() throws ScannerException, SQLException, IOException {
+        try (var inputStream = YggdrasilConfig.class.getResourceAsStream("/nexus-http.properties")) {
+            Properties properties = new Properties();
+            properties.load(inputStream);
+            String tempDirectoryString = properties.getProperty("tempDirectory");
+            if (tempDirectoryString != null) tempDirectory = Path.of(tempDirectoryString).toAbsolutePath().normalize();
+        }
+
         var httpServerConfiguration = PropertiesProcessor.process(true)
                 .addDefaultAuthentication(new BearerAuthentication("Access for Yggdrasil API"));
         httpServer = new HttpServer(httpServerConfiguration).initialize();
@@ -80,10 +264,30 @@ public final class YggdrasilConfig {
         return database;
     }
 
+    public static DatabaseGate getDatabaseGate(Workload workload) {
+        return databaseGates.get(workload);
+    }
+
+    public static Map<Workload, DatabaseGate> getDatabaseGates() {
+        return Collections.unmodifiableMap(databaseGates);
+    }
+
+    public static DatabaseGate getReplicaGate() {
+        return replicaGate;
+    }
+
+    public static Storage getStorage() {
+        return storage;
+    }
+
     public static HttpServer getHttpServer() {
         return httpServer;
     }
 
+    public static Path getTempDirectory() {
+        return tempDirectory;
+    }
+
     public static Long getDefaultResultsOffset() {
         return defaultResultsOffset;
     }
@@ -99,4 +303,68 @@ public final class YggdrasilConfig {
     public static Integer getMaxLoginDevices() {
         return maxLoginDevices;
     }
+
+    public static Long getAdmissionQueueBudget() {
+        return admissionQueueBudget;
+    }
+
+    public static Integer getReservedConnections() {
+        return reservedConnections;
+    }
+
+    public static Long getReadYourWritesWindow() {
+        return readYourWritesWindow;
+    }
+
+    public static Integer getPoolSizeMinimum() {
+        return poolSizeMinimum;
+    }
+
+    public static Integer getPoolSizeMaximum() {
+        return poolSizeMaximum;
+    }
+
+    public static Long getAcquireLatencyTarget() {
+        return acquireLatencyTarget;
+    }
+
+    public static Long getPoolSizingInterval() {
+        return poolSizingInterval;
+    }
+
+    public static String getMetricsToken() {
+        return metricsToken;
+    }
+
+    public static Long getLatencyReportInterval() {
+        return latencyReportInterval;
+    }
+
+    public static Long getSlowQueryThreshold() {
+        return slowQueryThreshold;
+    }
+
+    public static Integer getQueryStatisticsLimit() {
+        return queryStatisticsLimit;
+    }
+
+    public static Long getExportWriteTimeout() {
+        return exportWriteTimeout;
+    }
+
+    public static Boolean getWarmUp() {
+        return warmUp;
+    }
+
+    public static Integer getWarmUpIterations() {
+        return warmUpIterations;
+    }
+
+    public static Level getLogLevel() {
+        return logLevel;
+    }
+
+    public static Path getLogFile() {
+        return logFile;
+    }
 }
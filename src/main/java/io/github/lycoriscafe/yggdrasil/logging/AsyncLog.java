@@ -0,0 +1,279 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.logging;
+
+import io.github.lycoriscafe.yggdrasil.metrics.RequestContext;
+import org.slf4j.event.Level;
+import org.slf4j.helpers.MessageFormatter;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// callers claim a slot of a bounded ring and return, a single writer thread formats and writes in batches
+public final class AsyncLog {
+    private static final int CAPACITY = 1 << 14;
+    private static final int MASK = CAPACITY - 1;
+    private static final int BATCH_SIZE = 512;
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long SHUTDOWN_TIMEOUT = 5000L;
+    private static final String LOGGER = AsyncLog.class.getName();
+    private static final LogEvent[] RING = new LogEvent[CAPACITY];
+    private static final AtomicLong TAIL = new AtomicLong();
+    private static final LongAdder DROPPED = new LongAdder();
+    private static final Writer STDERR = new OutputStreamWriter(System.err, StandardCharsets.UTF_8);
+    private static final Thread WRITER;
+    private static volatile int threshold = Level.INFO.toInt();
+    private static volatile Path file;
+    private static volatile boolean running = true;
+    private static volatile boolean sleeping;
+    private static volatile long written;
+    // only touched by the writer thread
+    private static long head;
+    private static long reportedDrops;
+    private static Path target;
+    private static Writer output = STDERR;
+
+    static {
+        for (int i = 0; i < CAPACITY; i++) RING[i] = new LogEvent(i);
+        WRITER = Thread.ofPlatform().name("log-writer").daemon().start(AsyncLog::write);
+        Runtime.getRuntime().addShutdownHook(Thread.ofPlatform().name("log-flush").unstarted(AsyncLog::shutdown));
+    }
+
+    private AsyncLog() {}
+
+    // the level applies at once, the writer moves to the file before its next batch
+    public static void configure(Level level,
+                                 Path logFile) {
+        threshold = Objects.requireNonNull(level).toInt();
+        file = logFile;
+        LockSupport.unpark(WRITER);
+    }
+
+    public static long getDropped() {
+        return DROPPED.sum();
+    }
+
+    public static long getWritten() {
+        return written;
+    }
+
+    static boolean isEnabled(Level level) {
+        return level.toInt() >= threshold;
+    }
+
+    // never blocks, an event that finds the ring full is dropped and counted
+    // arguments are rendered later on the writer thread, so they must not be mutated after the call
+    static void publish(Level level,
+                        String logger,
+                        String message,
+                        Object[] arguments,
+                        Throwable throwable) {
+        LogEvent event;
+        long position;
+        while (true) {
+            position = TAIL.get();
+            event = RING[(int) position & MASK];
+            long lag = event.sequence - position;
+            if (lag < 0L) {
+                DROPPED.increment();
+                return;
+            }
+            if (lag == 0L && TAIL.compareAndSet(position, position + 1)) break;
+        }
+
+        var thread = Thread.currentThread();
+        var context = RequestContext.current();
+        event.time = System.currentTimeMillis();
+        event.level = level;
+        event.logger = logger;
+        event.thread = thread.getName();
+        event.threadId = thread.threadId();
+        event.message = message;
+        event.arguments = arguments;
+        event.throwable = throwable;
+        event.requestId = context == null ? 0L : context.getId();
+        event.route = context == null ? null : context.getRoute();
+        event.user = context == null ? null : context.getUser();
+        event.sequence = position + 1;
+        if (sleeping) LockSupport.unpark(WRITER);
+    }
+
+    private static void write() {
+        var builder = new StringBuilder(1 << 16);
+        while (true) {
+            // read before draining, everything published before the shutdown still gets written
+            boolean stopping = !running;
+            if (!Objects.equals(file, target)) open(file);
+
+            int events = 0;
+            for (var event = RING[(int) head & MASK]; events < BATCH_SIZE && event.sequence == head + 1; event = RING[(int) head & MASK]) {
+                format(builder, event);
+                event.clear();
+                event.sequence = head + CAPACITY;
+                head++;
+                events++;
+            }
+            long drops = DROPPED.sum();
+            if (drops != reportedDrops) {
+                formatDrops(builder, drops - reportedDrops);
+                reportedDrops = drops;
+            }
+            if (!builder.isEmpty()) {
+                flush(builder);
+                builder.setLength(0);
+                written += events;
+            }
+
+            if (events == BATCH_SIZE) continue;
+            if (stopping) {
+                close();
+                return;
+            }
+            sleeping = true;
+            if (RING[(int) head & MASK].sequence != head + 1) LockSupport.parkNanos(IDLE_NANOS);
+            sleeping = false;
+        }
+    }
+
+    private static void open(Path logFile) {
+        close();
+        target = logFile;
+        output = STDERR;
+        if (logFile == null) return;
+        try {
+            if (logFile.getParent() != null) Files.createDirectories(logFile.getParent());
+            output = Files.newBufferedWriter(logFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("Opening log file " + logFile + " failed, logging to stderr: " + e);
+        }
+    }
+
+    // a batch the file refuses still reaches stderr
+    private static void flush(StringBuilder builder) {
+        try {
+            output.append(builder).flush();
+        } catch (IOException e) {
+            System.err.println("Writing log file " + target + " failed: " + e);
+            System.err.append(builder).flush();
+        }
+    }
+
+    private static void close() {
+        try {
+            if (output == STDERR) {
+                STDERR.flush();
+            } else {
+                output.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Closing log file " + target + " failed: " + e);
+        }
+    }
+
+    private static void shutdown() {
+        running = false;
+        LockSupport.unpark(WRITER);
+        try {
+            WRITER.join(SHUTDOWN_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // one key=value line per event, the stack trace is escaped into the line
+    private static void format(StringBuilder builder,
+                               LogEvent event) {
+        int start = builder.length();
+        try {
+            builder.append("time=").append(Instant.ofEpochMilli(event.time)).append(" level=").append(event.level).append(" thread=");
+            if (event.thread.isEmpty()) {
+                builder.append('#').append(event.threadId);
+            } else {
+                value(builder, event.thread);
+            }
+            value(builder.append(" logger="), event.logger);
+            if (event.requestId != 0L) builder.append(" request=").append(event.requestId);
+            if (event.route != null) value(builder.append(" route="), event.route);
+            if (event.user != null) value(builder.append(" user="), event.user);
+            value(builder.append(" msg="), event.arguments == null || event.arguments.length == 0 ?
+                    event.message : MessageFormatter.basicArrayFormat(event.message, event.arguments));
+            if (event.throwable != null) {
+                value(builder.append(" error="), event.throwable.toString());
+                var stack = new StringWriter();
+                event.throwable.printStackTrace(new PrintWriter(stack));
+                value(builder.append(" stack="), stack.toString());
+            }
+        } catch (RuntimeException e) {
+            builder.setLength(start);
+            builder.append("time=").append(Instant.ofEpochMilli(event.time)).append(" level=ERROR thread=log-writer logger=").append(LOGGER);
+            value(builder.append(" msg="), "Formatting an event of " + event.logger + " failed");
+            value(builder.append(" error="), e.toString());
+        }
+        builder.append('\n');
+    }
+
+    private static void formatDrops(StringBuilder builder,
+                                    long drops) {
+        builder.append("time=").append(Instant.now()).append(" level=WARN thread=log-writer logger=").append(LOGGER)
+                .append(" msg=\"Log buffer full, events dropped\" dropped=").append(drops).append('\n');
+    }
+
+    // quoted only when the value would otherwise break the key=value syntax
+    private static void value(StringBuilder builder,
+                              String value) {
+        if (value == null) {
+            builder.append("null");
+            return;
+        }
+        boolean quote = value.isEmpty();
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c <= ' ' || c == '"' || c == '=' || c == '\\';
+        }
+        if (!quote) {
+            builder.append(value);
+            return;
+        }
+        builder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> builder.append("\\\"");
+                case '\\' -> builder.append("\\\\");
+                case '\n' -> builder.append("\\n");
+                case '\r' -> builder.append("\\r");
+                case '\t' -> builder.append("\\t");
+                default -> builder.append(c);
+            }
+        }
+        builder.append('"');
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.logging;
+
+import org.slf4j.event.Level;
+
+// a preallocated slot of the ring buffer, the sequence tells whether producers or the writer own it
+final class LogEvent {
+    volatile long sequence;
+    long time;
+    Level level;
+    String logger;
+    String thread;
+    long threadId;
+    String message;
+    Object[] arguments;
+    Throwable throwable;
+    long requestId;
+    String route;
+    String user;
+
+    LogEvent(long sequence) {
+        this.sequence = sequence;
+    }
+
+    // drops the references so a consumed slot does not keep request objects alive
+    void clear() {
+        level = null;
+        logger = null;
+        thread = null;
+        message = null;
+        arguments = null;
+        throwable = null;
+        route = null;
+        user = null;
+    }
+}
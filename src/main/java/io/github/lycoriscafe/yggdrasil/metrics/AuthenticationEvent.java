@@ -0,0 +1,45 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("yggdrasil.Authentication")
+@Label("Authentication")
+@Category("Yggdrasil")
+@Description("Access token check made by AuthenticationService.authenticate")
+@Enabled(false)
+@StackTrace(false)
+public final class AuthenticationEvent extends Event {
+    @Label("Route")
+    public String route;
+
+    @Label("Priority")
+    public String priority;
+
+    @Label("Role")
+    public String role;
+
+    @Label("Outcome")
+    public String outcome;
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.metrics;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// log-linear buckets over microseconds: 16 linear steps per power of two keeps the error within 1/16
+final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 36;
+    static final int BUCKET_COUNT = ((MAX_EXPONENT - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + SUB_BUCKETS;
+    private static final int STRIPES = Math.min(8, Integer.highestOneBit(Runtime.getRuntime().availableProcessors()));
+    // Prometheus bounds, 4 per power of two from 256 us to 16.8 s, so histogram_quantile interpolates within 25%
+    private static final int BOUNDS_PER_POWER_BITS = 2;
+    private static final int FIRST_BOUND_EXPONENT = 8;
+    private static final int LAST_BOUND_EXPONENT = 24;
+    private static final int[] BOUND_INDEXES = new int[((LAST_BOUND_EXPONENT - FIRST_BOUND_EXPONENT) << BOUNDS_PER_POWER_BITS) + 1];
+    // the le labels in seconds
+    static final String[] BOUNDS = new String[BOUND_INDEXES.length];
+
+    static {
+        // every bound sits on the lower edge of a log-linear bucket, so the cumulative counts are exact
+        for (int i = 0; i < BOUND_INDEXES.length; i++) {
+            int exponent = FIRST_BOUND_EXPONENT + (i >>> BOUNDS_PER_POWER_BITS);
+            int step = i & ((1 << BOUNDS_PER_POWER_BITS) - 1);
+            long micros = (long) ((1 << BOUNDS_PER_POWER_BITS) + step) << (exponent - BOUNDS_PER_POWER_BITS);
+            BOUND_INDEXES[i] = index(micros);
+            BOUNDS[i] = BigDecimal.valueOf(micros, 6).stripTrailingZeros().toPlainString();
+        }
+    }
+
+    // stripes are whole rows of buckets so threads on different stripes never share a cache line
+    private final AtomicLongArray counts = new AtomicLongArray(STRIPES * BUCKET_COUNT);
+    private final LongAdder sumNanos = new LongAdder();
+    // counts of every interval rotate() has drained, guarded by this
+    private final long[] retired = new long[BUCKET_COUNT];
+
+    void record(long nanos) {
+        int stripe = (int) (Thread.currentThread().threadId() & (STRIPES - 1));
+        counts.incrementAndGet(stripe * BUCKET_COUNT + index(TimeUnit.NANOSECONDS.toMicros(nanos)));
+        sumNanos.add(nanos);
+    }
+
+    static int index(long micros) {
+        if (micros < SUB_BUCKETS) return (int) Math.max(0L, micros);
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent > MAX_EXPONENT) return BUCKET_COUNT - 1;
+        int shift = exponent - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((micros >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    // midpoint of the bucket, in microseconds
+    static long value(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long lowerBound = (long) (SUB_BUCKETS + (index & (SUB_BUCKETS - 1))) << shift;
+        return lowerBound + ((1L << shift) >>> 1);
+    }
+
+    // drains every stripe into a snapshot of the interval that just ended, recording continues meanwhile
+    synchronized Snapshot rotate() {
+        long[] merged = new long[BUCKET_COUNT];
+        long total = 0L;
+        for (int i = 0; i < counts.length(); i++) {
+            long bucketCount = counts.getAndSet(i, 0L);
+            merged[i % BUCKET_COUNT] += bucketCount;
+            total += bucketCount;
+        }
+        for (int i = 0; i < BUCKET_COUNT; i++) retired[i] += merged[i];
+        return new Snapshot(merged, total);
+    }
+
+    // cumulative counts per Prometheus bound since startup, the last element is the total count
+    synchronized long[] cumulativeCounts() {
+        long[] buckets = retired.clone();
+        for (int i = 0; i < counts.length(); i++) buckets[i % BUCKET_COUNT] += counts.get(i);
+        long[] cumulative = new long[BOUNDS.length + 1];
+        long total = 0L;
+        int bound = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            while (bound < BOUNDS.length && BOUND_INDEXES[bound] <= i) cumulative[bound++] = total;
+            total += buckets[i];
+        }
+        while (bound < BOUNDS.length) cumulative[bound++] = total;
+        cumulative[BOUNDS.length] = total;
+        return cumulative;
+    }
+
+    long sumNanos() {
+        return sumNanos.sum();
+    }
+
+    record Snapshot(long[] counts,
+                    long total) {
+        // nearest-rank percentile in microseconds, -1 when the interval saw nothing
+        long percentile(double quantile) {
+            if (total == 0L) return -1L;
+            long rank = Math.max(1L, (long) Math.ceil(quantile * total));
+            long seen = 0L;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return value(i);
+            }
+            return value(counts.length - 1);
+        }
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.metrics;
+
+import io.github.lycoriscafe.yggdrasil.commons.ReadCoalescer;
+import io.github.lycoriscafe.yggdrasil.configuration.AdmissionController;
+import io.github.lycoriscafe.yggdrasil.configuration.DatabaseGate;
+import io.github.lycoriscafe.yggdrasil.configuration.YggdrasilConfig;
+import io.github.lycoriscafe.yggdrasil.logging.AsyncLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class Metrics {
+    private static final Logger logger = LoggerFactory.getLogger(Metrics.class);
+    private static final Map<String, LatencyHistogram[]> REQUESTS = new ConcurrentHashMap<>();
+    private static final Map<String, OperationStats[]> OPERATIONS = new ConcurrentHashMap<>();
+
+    private Metrics() {}
+
+    // the hot path only touches striped counters, maps are consulted with get() and filled once per key
+    static void recordRequest(String route,
+                              long[] phaseNanos) {
+        var histograms = REQUESTS.get(route);
+        if (histograms == null) histograms = REQUESTS.computeIfAbsent(route, key -> newHistograms());
+        for (Phase phase : Phase.values()) {
+            long nanos = phaseNanos[phase.ordinal()];
+            if (phase == Phase.TOTAL || nanos > 0L) histograms[phase.ordinal()].record(nanos);
+        }
+    }
+
+    private static LatencyHistogram[] newHistograms() {
+        var histograms = new LatencyHistogram[Phase.values().length];
+        for (int i = 0; i < histograms.length; i++) histograms[i] = new LatencyHistogram();
+        return histograms;
+    }
+
+    public static void recordOperation(Class<?> entity,
+                                       Operation operation,
+                                       long nanos) {
+        var stats = OPERATIONS.get(entity.getSimpleName());
+        if (stats == null) stats = OPERATIONS.computeIfAbsent(entity.getSimpleName(), key -> OperationStats.forEachOperation());
+        stats[operation.ordinal()].record(nanos);
+    }
+
+    public static ScheduledExecutorService startReporting(long intervalMillis) {
+        var executor = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("latency-report").daemon().factory());
+        executor.scheduleAtFixedRate(Metrics::report, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        return executor;
+    }
+
+    private static void report() {
+        try {
+            for (var entry : new TreeMap<>(REQUESTS).entrySet()) {
+                var snapshots = new LatencyHistogram.Snapshot[Phase.values().length];
+                for (Phase phase : Phase.values()) snapshots[phase.ordinal()] = entry.getValue()[phase.ordinal()].rotate();
+                long requests = snapshots[Phase.TOTAL.ordinal()].total();
+                if (requests == 0L) continue;
+
+                var summary = new StringBuilder();
+                for (Phase phase : Phase.values()) {
+                    var snapshot = snapshots[phase.ordinal()];
+                    if (snapshot.total() == 0L) continue;
+                    summary.append(' ').append(phase).append(" p50=").append(millis(snapshot.percentile(0.5)))
+                            .append(" p99=").append(millis(snapshot.percentile(0.99)))
+                            .append(" p999=").append(millis(snapshot.percentile(0.999)));
+                }
+                logger.info("Latency {} n={}{} (ms)", entry.getKey(), requests, summary);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Latency report failed", e);
+        }
+    }
+
+    private static String millis(long micros) {
+        return String.format("%.2f", micros / 1000.0);
+    }
+
+    public static String scrape() {
+        var builder = new StringBuilder(16 * 1024);
+        writeRequests(builder);
+        writeBudgets(builder);
+        writeOperations(builder);
+        writePools(builder);
+        writeCaches(builder);
+        writeLogging(builder);
+        writeJvm(builder);
+        return builder.toString();
+    }
+
+    // cumulative buckets, so histogram_quantile works over any range and across instances
+    // per-interval percentiles only go to the periodic latency log
+    private static void writeRequests(StringBuilder builder) {
+        var requests = new TreeMap<>(REQUESTS);
+        header(builder, "yggdrasil_http_request_duration_seconds", "histogram", "Endpoint latency by route");
+        for (var entry : requests.entrySet()) {
+            histogram(builder, "yggdrasil_http_request_duration_seconds", "route=\"" + escape(entry.getKey()) + "\"",
+                    entry.getValue()[Phase.TOTAL.ordinal()]);
+        }
+        header(builder, "yggdrasil_http_request_phase_duration_seconds", "histogram", "Endpoint latency by route and phase");
+        for (var entry : requests.entrySet()) {
+            for (Phase phase : Phase.values()) {
+                // a phase the route never went through would only add empty series
+                if (phase == Phase.TOTAL || entry.getValue()[phase.ordinal()].sumNanos() == 0L) continue;
+                histogram(builder, "yggdrasil_http_request_phase_duration_seconds",
+                        "route=\"" + escape(entry.getKey()) + "\",phase=\"" + phase + "\"", entry.getValue()[phase.ordinal()]);
+            }
+        }
+    }
+
+    private static void histogram(StringBuilder builder,
+                                  String name,
+                                  String labels,
+                                  LatencyHistogram histogram) {
+        long[] cumulative = histogram.cumulativeCounts();
+        for (int i = 0; i < LatencyHistogram.BOUNDS.length; i++) {
+            sample(builder, name + "_bucket", labels + ",le=\"" + LatencyHistogram.BOUNDS[i] + "\"", cumulative[i]);
+        }
+        long count = cumulative[cumulative.length - 1];
+        sample(builder, name + "_bucket", labels + ",le=\"+Inf\"", count);
+        sample(builder, name + "_sum", labels, seconds(histogram.sumNanos()));
+        sample(builder, name + "_count", labels, count);
+    }
+
+    private static void writeBudgets(StringBuilder builder) {
+        header(builder, "yggdrasil_round_trip_budget", "gauge", "Statements a request to the route may run");
+        for (var entry : new TreeMap<>(RoundTripBudget.getBudgets()).entrySet()) {
+            sample(builder, "yggdrasil_round_trip_budget", "route=\"" + escape(entry.getKey()) + "\"", entry.getValue());
+        }
+        header(builder, "yggdrasil_round_trip_budget_exceeded_total", "counter", "Requests that ran more statements than their route budget");
+        for (var entry : new TreeMap<>(RoundTripBudget.getExceeded()).entrySet()) {
+            sample(builder, "yggdrasil_round_trip_budget_exceeded_total", "route=\"" + escape(entry.getKey()) + "\"", entry.getValue());
+        }
+    }
+
+    private static void writeOperations(StringBuilder builder) {
+        var operations = new TreeMap<>(OPERATIONS);
+        header(builder, "yggdrasil_db_operations_total", "counter", "CommonService operations by entity and operation");
+        for (var entry : operations.entrySet()) {
+            for (Operation operation : Operation.values()) {
+                long count = entry.getValue()[operation.ordinal()].count.sum();
+                if (count > 0) sample(builder, "yggdrasil_db_operations_total", operationLabels(entry.getKey(), operation), count);
+            }
+        }
+        header(builder, "yggdrasil_db_operation_seconds_total", "counter", "Time spent in CommonService operations");
+        for (var entry : operations.entrySet()) {
+            for (Operation operation : Operation.values()) {
+                var stats = entry.getValue()[operation.ordinal()];
+                if (stats.count.sum() > 0) {
+                    sample(builder, "yggdrasil_db_operation_seconds_total", operationLabels(entry.getKey(), operation), seconds(stats.nanos.sum()));
+                }
+            }
+        }
+    }
+
+    private static void writePools(StringBuilder builder) {
+        Map<DatabaseGate, String> gates = new IdentityHashMap<>();
+        YggdrasilConfig.getDatabaseGates().values().forEach(gate -> gates.put(gate, gate.getDataSource().getPoolName()));
+        if (YggdrasilConfig.getReplicaGate() != null) {
+            gates.put(YggdrasilConfig.getReplicaGate(), YggdrasilConfig.getReplicaGate().getDataSource().getPoolName());
+        }
+        Set<Map.Entry<DatabaseGate, String>> entries = gates.entrySet();
+
+        header(builder, "yggdrasil_pool_connections", "gauge", "Hikari pool connections by state");
+        for (var entry : entries) {
+            var pool = entry.getKey().getDataSource().getHikariPoolMXBean();
+            String label = "pool=\"" + escape(entry.getValue()) + "\"";
+            sample(builder, "yggdrasil_pool_connections", label + ",state=\"active\"", pool.getActiveConnections());
+            sample(builder, "yggdrasil_pool_connections", label + ",state=\"idle\"", pool.getIdleConnections());
+            sample(builder, "yggdrasil_pool_connections", label + ",state=\"total\"", pool.getTotalConnections());
+        }
+        header(builder, "yggdrasil_pool_threads_awaiting", "gauge", "Threads waiting on the Hikari pool");
+        for (var entry : entries) {
+            sample(builder, "yggdrasil_pool_threads_awaiting", "pool=\"" + escape(entry.getValue()) + "\"",
+                    entry.getKey().getDataSource().getHikariPoolMXBean().getThreadsAwaitingConnection());
+        }
+        header(builder, "yggdrasil_pool_maximum_size", "gauge", "Current maximum pool size");
+        for (var entry : entries) {
+            sample(builder, "yggdrasil_pool_maximum_size", "pool=\"" + escape(entry.getValue()) + "\"", entry.getKey().getMaximumPermits());
+        }
+        header(builder, "yggdrasil_pool_queued", "gauge", "Callers queued at the connection gate");
+        for (var entry : entries) {
+            sample(builder, "yggdrasil_pool_queued", "pool=\"" + escape(entry.getValue()) + "\"", entry.getKey().getQueueLength());
+        }
+        header(builder, "yggdrasil_pool_acquired_total", "counter", "Connections handed out by the gate");
+        for (var entry : entries) {
+            sample(builder, "yggdrasil_pool_acquired_total", "pool=\"" + escape(entry.getValue()) + "\"", entry.getKey().getAcquiredCount());
+        }
+        header(builder, "yggdrasil_pool_timeouts_total", "counter", "Connection requests that timed out");
+        for (var entry : entries) {
+            sample(builder, "yggdrasil_pool_timeouts_total", "pool=\"" + escape(entry.getValue()) + "\"", entry.getKey().getTimeoutCount());
+        }
+        header(builder, "yggdrasil_pool_wait_seconds_total", "counter", "Time spent waiting for connections");
+        for (var entry : entries) {
+            sample(builder, "yggdrasil_pool_wait_seconds_total", "pool=\"" + escape(entry.getValue()) + "\"", seconds(entry.getKey().getWaitNanos()));
+        }
+        header(builder, "yggdrasil_pool_hold_seconds_total", "counter", "Time connections were held by callers");
+        for (var entry : entries) {
+            sample(builder, "yggdrasil_pool_hold_seconds_total", "pool=\"" + escape(entry.getValue()) + "\"", seconds(entry.getKey().getHoldNanos()));
+        }
+        header(builder, "yggdrasil_admission_rejected_total", "counter", "Requests shed by admission control");
+        sample(builder, "yggdrasil_admission_rejected_total", null, AdmissionController.getRejectedCount());
+    }
+
+    private static void writeCaches(StringBuilder builder) {
+        header(builder, "yggdrasil_read_coalesced_total", "counter", "Reads answered by an identical in-flight read");
+        sample(builder, "yggdrasil_read_coalesced_total", null, ReadCoalescer.getCoalescedReads());
+        header(builder, "yggdrasil_read_in_flight", "gauge", "Distinct reads currently executing");
+        sample(builder, "yggdrasil_read_in_flight", null, ReadCoalescer.getInFlightReads());
+    }
+
+    private static void writeLogging(StringBuilder builder) {
+        header(builder, "yggdrasil_log_events_total", "counter", "Log events written by the log writer");
+        sample(builder, "yggdrasil_log_events_total", null, AsyncLog.getWritten());
+        header(builder, "yggdrasil_log_dropped_total", "counter", "Log events dropped because the log buffer was full");
+        sample(builder, "yggdrasil_log_dropped_total", null, AsyncLog.getDropped());
+    }
+
+    private static void writeJvm(StringBuilder builder) {
+        var collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        header(builder, "jvm_gc_collections_total", "counter", "Garbage collections by collector");
+        for (GarbageCollectorMXBean collector : collectors) {
+            sample(builder, "jvm_gc_collections_total", "gc=\"" + escape(collector.getName()) + "\"", collector.getCollectionCount());
+        }
+        header(builder, "jvm_gc_collection_seconds_total", "counter", "Time spent in garbage collection by collector");
+        for (GarbageCollectorMXBean collector : collectors) {
+            sample(builder, "jvm_gc_collection_seconds_total", "gc=\"" + escape(collector.getName()) + "\"", collector.getCollectionTime() / 1000.0);
+        }
+
+        var memory = ManagementFactory.getMemoryMXBean();
+        header(builder, "jvm_memory_bytes", "gauge", "JVM memory by area");
+        memory(builder, "heap", memory.getHeapMemoryUsage());
+        memory(builder, "nonheap", memory.getNonHeapMemoryUsage());
+
+        header(builder, "jvm_threads_live", "gauge", "Live platform threads");
+        sample(builder, "jvm_threads_live", null, ManagementFactory.getThreadMXBean().getThreadCount());
+    }
+
+    private static void memory(StringBuilder builder,
+                               String area,
+                               MemoryUsage usage) {
+        sample(builder, "jvm_memory_bytes", "area=\"" + area + "\",kind=\"used\"", usage.getUsed());
+        sample(builder, "jvm_memory_bytes", "area=\"" + area + "\",kind=\"committed\"", usage.getCommitted());
+        if (usage.getMax() >= 0) sample(builder, "jvm_memory_bytes", "area=\"" + area + "\",kind=\"max\"", usage.getMax());
+    }
+
+    private static String operationLabels(String entity,
+                                          Operation operation) {
+        return "entity=\"" + escape(entity) + "\",operation=\"" + operation + "\"";
+    }
+
+    private static void header(StringBuilder builder,
+                               String name,
+                               String type,
+                               String help) {
+        builder.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        builder.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder builder,
+                               String name,
+                               String labels,
+                               Object value) {
+        builder.append(name);
+        if (labels != null) builder.append('{').append(labels).append('}');
+        builder.append(' ').append(value).append('\n');
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1_000_000_000.0;
+    }
+
+    private static String escape(String value) {
+        return Objects.requireNonNull(value).replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static final class OperationStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        private static OperationStats[] forEachOperation() {
+            var stats = new OperationStats[Operation.values().length];
+            for (int i = 0; i < stats.length; i++) stats[i] = new OperationStats();
+            return stats;
+        }
+
+        private void record(long duration) {
+            count.increment();
+            nanos.add(duration);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.metrics;
+
+import io.github.lycoriscafe.nexus.http.core.HttpEndpoint;
+import io.github.lycoriscafe.nexus.http.core.headers.auth.AuthScheme;
+import io.github.lycoriscafe.nexus.http.core.headers.auth.Authenticated;
+import io.github.lycoriscafe.nexus.http.core.headers.auth.scheme.bearer.BearerAuthorization;
+import io.github.lycoriscafe.nexus.http.core.headers.content.Content;
+import io.github.lycoriscafe.nexus.http.core.requestMethods.annotations.GET;
+import io.github.lycoriscafe.nexus.http.engine.reqResManager.httpReq.HttpGetRequest;
+import io.github.lycoriscafe.nexus.http.engine.reqResManager.httpReq.HttpRequest;
+import io.github.lycoriscafe.nexus.http.engine.reqResManager.httpRes.HttpResponse;
+import io.github.lycoriscafe.yggdrasil.authentication.AuthenticationService;
+import io.github.lycoriscafe.yggdrasil.authentication.Role;
+import io.github.lycoriscafe.yggdrasil.configuration.Priority;
+import io.github.lycoriscafe.yggdrasil.configuration.Utils;
+import io.github.lycoriscafe.yggdrasil.configuration.YggdrasilConfig;
+import io.github.lycoriscafe.yggdrasil.rest.admin.AccessLevel;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.Set;
+
+@HttpEndpoint("/metrics")
+@Authenticated
+public final class MetricsEndpoint {
+    private static final int DEFAULT_QUERY_LIMIT = 50;
+
+    @GET("/")
+    public static HttpResponse scrape(HttpGetRequest req,
+                                      HttpResponse res) {
+        try (var context = RequestContext.open("/metrics", res)) {
+            if (!isScraper(req)) {
+                var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), null, Priority.HIGH);
+                if (auth != null) return auth;
+            }
+            return res.setContent(new Content("text/plain; version=0.0.4", Metrics.scrape()));
+        }
+    }
+
+    @GET("/queries")
+    public static HttpResponse queries(HttpGetRequest req,
+                                       HttpResponse res) {
+        try (var context = RequestContext.open("/metrics/queries", res)) {
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER), Priority.HIGH);
+            if (auth != null) return auth;
+
+            try {
+                String sortBy = req.getParameters() == null ? null : req.getParameters().get("sort");
+                int limit = req.getParameters() == null || !req.getParameters().containsKey("limit") ?
+                        DEFAULT_QUERY_LIMIT : Integer.parseInt(req.getParameters().get("limit"));
+                return res.setContent(new Content("application/json", Utils.getGson().toJson(QueryStatistics.getTopQueries(sortBy, limit))));
+            } catch (IllegalArgumentException e) {
+                return res.setContent(new Content("application/json", Utils.getGson().toJson(Map.of("error", e.getMessage()))));
+            }
+        }
+    }
+
+    // a scraper presents the shared metricsToken instead of a user session
+    private static boolean isScraper(HttpRequest req) {
+        String token = YggdrasilConfig.getMetricsToken();
+        if (token == null || req.getAuthorization() == null || req.getAuthorization().getAuthScheme() != AuthScheme.BEARER) return false;
+        String accessToken = ((BearerAuthorization) req.getAuthorization()).getAccessToken();
+        return accessToken != null && MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8), accessToken.getBytes(StandardCharsets.UTF_8));
+    }
+}
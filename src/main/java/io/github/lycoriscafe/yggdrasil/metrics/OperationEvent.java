@@ -0,0 +1,45 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("yggdrasil.Operation")
+@Label("CommonService Operation")
+@Category({"Yggdrasil", "Database"})
+@Description("A create, read, update, delete, export or import through CommonService")
+@Enabled(false)
+@StackTrace(false)
+public final class OperationEvent extends Event {
+    @Label("Entity")
+    public String entity;
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("SQL Fingerprint")
+    public String fingerprint;
+
+    @Label("Rows")
+    public long rows;
+}
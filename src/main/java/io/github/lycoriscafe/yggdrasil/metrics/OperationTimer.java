@@ -0,0 +1,62 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.metrics;
+
+import java.util.Objects;
+
+public final class OperationTimer {
+    private final Class<?> entity;
+    private final Operation operation;
+    private final long start;
+    private final OperationEvent event = new OperationEvent();
+    private String sql;
+    private long rows;
+
+    private OperationTimer(Class<?> entity,
+                           Operation operation) {
+        this.entity = Objects.requireNonNull(entity);
+        this.operation = Objects.requireNonNull(operation);
+        this.start = System.nanoTime();
+        event.begin();
+    }
+
+    public static OperationTimer start(Class<?> entity,
+                                       Operation operation) {
+        return new OperationTimer(entity, operation);
+    }
+
+    public OperationTimer setSql(String sql) {
+        this.sql = sql;
+        return this;
+    }
+
+    public OperationTimer setRows(long rows) {
+        this.rows = rows;
+        return this;
+    }
+
+    public void stop() {
+        Metrics.recordOperation(entity, operation, System.nanoTime() - start);
+        event.end();
+        if (!event.shouldCommit()) return;
+        event.entity = entity.getSimpleName();
+        event.operation = operation.toString();
+        event.fingerprint = sql == null ? null : QueryStatistics.fingerprint(sql);
+        event.rows = rows;
+        event.commit();
+    }
+}
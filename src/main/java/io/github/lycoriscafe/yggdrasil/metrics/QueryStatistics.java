@@ -0,0 +1,236 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.metrics;
+
+import io.github.lycoriscafe.yggdrasil.configuration.YggdrasilConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+public final class QueryStatistics {
+    private static final Logger logger = LoggerFactory.getLogger(QueryStatistics.class);
+    private static final int FINGERPRINT_CACHE_LIMIT = 10_000;
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^'\\\\]|\\\\.|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\bIN\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Map<String, String> FINGERPRINTS = new ConcurrentHashMap<>();
+    private static final Map<String, Stats> STATISTICS = new ConcurrentHashMap<>();
+
+    private QueryStatistics() {}
+
+    // every statement handed out by the connection gate reports its timing and rows here
+    public static PreparedStatement track(PreparedStatement statement,
+                                          String sql) {
+        Objects.requireNonNull(statement);
+        String fingerprint = fingerprint(sql);
+        var parameters = new Parameters();
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                        parameters.bind(index, args[1]);
+                    } else if (name.equals("clearParameters")) {
+                        parameters.clear();
+                    } else if (name.startsWith("execute")) {
+                        return execute(statement, method, args, sql, fingerprint, parameters);
+                    }
+                    return invoke(statement, method, args);
+                });
+    }
+
+    private static Object execute(PreparedStatement statement,
+                                  Method method,
+                                  Object[] args,
+                                  String sql,
+                                  String fingerprint,
+                                  Parameters parameters) throws Throwable {
+        long start = System.nanoTime();
+        Object result = null;
+        Stats stats = null;
+        try {
+            result = invoke(statement, method, args);
+        } finally {
+            long nanos = System.nanoTime() - start;
+            // looked up per execution, a statement outliving its fingerprint's eviction must not feed a detached entry
+            stats = stats(fingerprint, nanos);
+            if (stats != null) stats.record(nanos, affectedRows(result));
+            RequestContext.statement(nanos, fingerprint);
+            long threshold = YggdrasilConfig.getSlowQueryThreshold();
+            if (threshold >= 0 && nanos >= TimeUnit.MILLISECONDS.toNanos(threshold)) {
+                logger.warn("Slow query ({} ms): {} parameters={}", TimeUnit.NANOSECONDS.toMillis(nanos), sql, redact(parameters));
+            }
+        }
+        return result instanceof ResultSet resultSet && stats != null ? countRows(resultSet, stats) : result;
+    }
+
+    private static ResultSet countRows(ResultSet resultSet,
+                                       Stats stats) {
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(resultSet, method, args);
+                    if (method.getName().equals("next") && Boolean.TRUE.equals(result)) stats.rows.increment();
+                    return result;
+                });
+    }
+
+    private static long affectedRows(Object result) {
+        return switch (result) {
+            case Integer count -> Math.max(0, count);
+            case Long count -> Math.max(0L, count);
+            case int[] counts -> Arrays.stream(counts).filter(count -> count > 0).sum();
+            case long[] counts -> Arrays.stream(counts).filter(count -> count > 0).sum();
+            case null, default -> 0L;
+        };
+    }
+
+    private static Object invoke(Object target,
+                                 Method method,
+                                 Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // values are never logged, only their shape, since tokens and personal details are bound as parameters
+    private static String redact(Parameters parameters) {
+        var redacted = new StringBuilder("[");
+        for (int i = 0; i < parameters.size; i++) {
+            if (i > 0) redacted.append(", ");
+            Object value = parameters.values[i];
+            switch (value) {
+                case null -> redacted.append("null");
+                case Number number -> redacted.append(number);
+                case Boolean bool -> redacted.append(bool);
+                case CharSequence text -> redacted.append("'***' (").append(text.length()).append(" chars)");
+                default -> redacted.append(value.getClass().getSimpleName());
+            }
+        }
+        return redacted.append(']').toString();
+    }
+
+    static String fingerprint(String sql) {
+        var fingerprint = FINGERPRINTS.get(sql);
+        if (fingerprint != null) return fingerprint;
+
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = PLACEHOLDER_LIST.matcher(normalized).replaceAll("IN (?+)");
+        normalized = WHITESPACE.matcher(normalized).replaceAll(" ").strip();
+        // once full, SQL not cached yet is normalized on every call rather than clearing the entries hot statements hit
+        if (FINGERPRINTS.size() < FINGERPRINT_CACHE_LIMIT) FINGERPRINTS.putIfAbsent(sql, normalized);
+        return normalized;
+    }
+
+    // null when the table is full and the execution is not worth a slot
+    private static Stats stats(String fingerprint,
+                               long nanos) {
+        var stats = STATISTICS.get(fingerprint);
+        if (stats != null) return stats;
+        synchronized (STATISTICS) {
+            stats = STATISTICS.get(fingerprint);
+            if (stats != null) return stats;
+            // a newcomer only displaces the cheapest fingerprint when it already costs more,
+            // otherwise newcomers starting at zero would keep evicting each other
+            if (STATISTICS.size() >= YggdrasilConfig.getQueryStatisticsLimit()) {
+                var cheapest = STATISTICS.entrySet().stream()
+                        .min(Comparator.comparingLong(entry -> entry.getValue().totalNanos.sum()));
+                if (cheapest.isEmpty() || cheapest.get().getValue().totalNanos.sum() >= nanos) return null;
+                STATISTICS.remove(cheapest.get().getKey());
+            }
+            stats = new Stats();
+            STATISTICS.put(fingerprint, stats);
+            return stats;
+        }
+    }
+
+    public static List<QuerySummary> getTopQueries(String sortBy,
+                                                   int limit) {
+        Comparator<QuerySummary> order = switch (sortBy == null ? "time" : sortBy) {
+            case "count" -> Comparator.comparingLong(QuerySummary::count);
+            case "rows" -> Comparator.comparingLong(QuerySummary::rows);
+            case "time" -> Comparator.comparingDouble(QuerySummary::totalMillis);
+            default -> throw new IllegalArgumentException("Unsupported sort '" + sortBy + "'");
+        };
+        List<QuerySummary> summaries = new ArrayList<>();
+        STATISTICS.forEach((fingerprint, stats) -> summaries.add(stats.summarize(fingerprint)));
+        summaries.sort(order.reversed());
+        return summaries.subList(0, Math.min(Math.max(0, limit), summaries.size()));
+    }
+
+    public record QuerySummary(String fingerprint,
+                               long count,
+                               double totalMillis,
+                               double maxMillis,
+                               long rows) {}
+
+    private static final class Parameters {
+        private Object[] values = new Object[0];
+        // highest index bound so far, the array grows ahead of it
+        private int size;
+
+        private void bind(int index,
+                          Object value) {
+            if (index < 1) return;
+            if (index > values.length) values = Arrays.copyOf(values, Math.max(index, values.length * 2));
+            values[index - 1] = value;
+            size = Math.max(size, index);
+        }
+
+        private void clear() {
+            Arrays.fill(values, 0, size, null);
+            size = 0;
+        }
+    }
+
+    private static final class Stats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+        private final LongAdder rows = new LongAdder();
+
+        private void record(long nanos,
+                            long affectedRows) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            rows.add(affectedRows);
+        }
+
+        private QuerySummary summarize(String fingerprint) {
+            return new QuerySummary(fingerprint, count.sum(), totalNanos.sum() / 1_000_000.0, maxNanos.get() / 1_000_000.0, rows.sum());
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.metrics;
+
+import io.github.lycoriscafe.nexus.http.core.headers.Header;
+import io.github.lycoriscafe.nexus.http.engine.reqResManager.httpRes.HttpResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class RequestContext implements AutoCloseable {
+    private static final ThreadLocal<RequestContext> CURRENT = new ThreadLocal<>();
+    private static final int MAX_TIMING_ENTRIES = 50;
+    private static final int MAX_FINGERPRINTS = 100;
+    private static final AtomicLong IDS = new AtomicLong();
+
+    private final long id;
+    private final String route;
+    private final HttpResponse response;
+    private final long start;
+    private final RequestContext previous;
+    private final long[] phaseNanos = new long[Phase.values().length];
+    // only allocated for routes with a round-trip budget, the fingerprints explain a violation
+    private final Integer budget;
+    private final List<String> fingerprints;
+    private int roundTrips;
+    private int statements;
+    // only allocated once an admin asks for Server-Timing on this request
+    private StringBuilder timings;
+    private int timingEntries;
+    // set once authentication succeeds, tags the log events of the request
+    private String user;
+
+    private RequestContext(String route,
+                           HttpResponse response) {
+        this.id = IDS.incrementAndGet();
+        this.route = route;
+        this.response = response;
+        this.start = System.nanoTime();
+        this.previous = CURRENT.get();
+        this.budget = RoundTripBudget.get(route);
+        this.fingerprints = budget == null ? null : new ArrayList<>();
+    }
+
+    public static RequestContext open(String route) {
+        return open(route, null);
+    }
+
+    // opened first thing in every endpoint method, closing it records the request
+    public static RequestContext open(String route,
+                                      HttpResponse response) {
+        var context = new RequestContext(Objects.requireNonNull(route), response);
+        CURRENT.set(context);
+        return context;
+    }
+
+    public static RequestContext current() {
+        return CURRENT.get();
+    }
+
+    // work a request hands to another thread while it waits, such as opening an export cursor, still counts towards it
+    public static void attach(RequestContext context) {
+        if (context == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(context);
+        }
+    }
+
+    public static void detach() {
+        CURRENT.remove();
+    }
+
+    // work done outside a request, such as streaming export rows, is not attributed to any route
+    public static void record(Phase phase,
+                              long nanos) {
+        var context = CURRENT.get();
+        if (context != null) context.phaseNanos[phase.ordinal()] += nanos;
+    }
+
+    public static void roundTrip() {
+        var context = CURRENT.get();
+        if (context != null) context.roundTrips++;
+    }
+
+    public static void statement(long nanos,
+                                 String fingerprint) {
+        var context = CURRENT.get();
+        if (context == null) return;
+        context.roundTrips++;
+        context.statements++;
+        if (context.fingerprints != null && context.fingerprints.size() < MAX_FINGERPRINTS) context.fingerprints.add(fingerprint);
+        if (context.timings != null) context.addTiming("sql-" + context.statements, nanos, fingerprint);
+    }
+
+    public static void timing(String name,
+                              long nanos,
+                              String description) {
+        var context = CURRENT.get();
+        if (context != null && context.timings != null) context.addTiming(name, nanos, description);
+    }
+
+    public static void setUser(String user) {
+        var context = CURRENT.get();
+        if (context != null) context.user = user;
+    }
+
+    public static void enableTiming() {
+        var context = CURRENT.get();
+        if (context != null && context.timings == null) context.timings = new StringBuilder();
+    }
+
+    private void addTiming(String name,
+                           long nanos,
+                           String description) {
+        if (timingEntries++ >= MAX_TIMING_ENTRIES) return;
+        if (!timings.isEmpty()) timings.append(", ");
+        timings.append(name);
+        if (description != null) {
+            timings.append(";desc=\"").append(description.replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+        }
+        if (nanos >= 0) timings.append(";dur=").append(String.format("%.3f", nanos / 1_000_000.0));
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getRoute() {
+        return route;
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getPhaseNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    public int getRoundTrips() {
+        return roundTrips;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    @Override
+    public void close() {
+        phaseNanos[Phase.TOTAL.ordinal()] = System.nanoTime() - start;
+        Metrics.recordRequest(route, phaseNanos);
+        if (budget != null) RoundTripBudget.check(route, budget, statements, fingerprints);
+        if (timings != null && response != null) response.addHeader(new Header("Server-Timing", serverTiming()));
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    private String serverTiming() {
+        var header = new StringBuilder();
+        for (Phase phase : Phase.values()) {
+            if (phase != Phase.TOTAL && phaseNanos[phase.ordinal()] == 0L) continue;
+            header.append(phase).append(";dur=").append(String.format("%.3f", phaseNanos[phase.ordinal()] / 1_000_000.0)).append(", ");
+        }
+        header.append("db-round-trips;desc=\"").append(roundTrips).append('"');
+        if (!timings.isEmpty()) header.append(", ").append(timings);
+        return header.toString();
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class RoundTripBudget {
+    private static final Logger logger = LoggerFactory.getLogger(RoundTripBudget.class);
+    private static final String BUDGETS_RESOURCE = "/round-trip-budgets.properties";
+    private static final String OVERRIDE_PREFIX = "roundTripBudget.";
+    private static final Map<String, Integer> BUDGETS = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> EXCEEDED = new ConcurrentHashMap<>();
+
+    private RoundTripBudget() {}
+
+    // packaged budgets first, then roundTripBudget.<route> entries of yggdrasil.properties, a negative value drops the budget
+    public static void load(Properties yggdrasilProperties) throws IOException {
+        Properties budgets = new Properties();
+        try (var inputStream = RoundTripBudget.class.getResourceAsStream(BUDGETS_RESOURCE)) {
+            if (inputStream != null) budgets.load(inputStream);
+        }
+        for (String name : yggdrasilProperties.stringPropertyNames()) {
+            if (name.startsWith(OVERRIDE_PREFIX)) budgets.setProperty(name.substring(OVERRIDE_PREFIX.length()), yggdrasilProperties.getProperty(name));
+        }
+
+        BUDGETS.clear();
+        for (String route : budgets.stringPropertyNames()) {
+            int budget = Integer.parseInt(budgets.getProperty(route).strip());
+            if (budget >= 0) BUDGETS.put(route, budget);
+        }
+    }
+
+    static Integer get(String route) {
+        return BUDGETS.get(route);
+    }
+
+    // the repeated fingerprints in the warning are what points at an N+1
+    static void check(String route,
+                      int budget,
+                      int statements,
+                      List<String> fingerprints) {
+        if (statements <= budget) return;
+        EXCEEDED.computeIfAbsent(route, key -> new LongAdder()).increment();
+        if (!logger.isWarnEnabled()) return;
+
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (String fingerprint : fingerprints) counts.merge(fingerprint, 1, Integer::sum);
+        var summary = new StringBuilder();
+        counts.forEach((fingerprint, count) -> summary.append("\n  ").append(count).append("x ").append(fingerprint));
+        logger.warn("{} ran {} statements, budget is {}:{}", route, statements, budget, summary);
+    }
+
+    public static Map<String, Integer> getBudgets() {
+        return Map.copyOf(BUDGETS);
+    }
+
+    public static Map<String, Long> getExceeded() {
+        Map<String, Long> exceeded = new LinkedHashMap<>();
+        EXCEEDED.forEach((route, count) -> exceeded.put(route, count.sum()));
+        return exceeded;
+    }
+}
@@ -31,6 +31,7 @@ import io.github.lycoriscafe.yggdrasil.commons.CommonService;
 import io.github.lycoriscafe.yggdrasil.commons.ResponseModel;
 import io.github.lycoriscafe.yggdrasil.commons.SearchModel;
 import io.github.lycoriscafe.yggdrasil.configuration.Utils;
+import io.github.lycoriscafe.yggdrasil.metrics.RequestContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,15 +47,17 @@ public final class AdminEndpoint {
     @ExpectContent("application/json")
     public static HttpResponse read(HttpPostRequest req,
                                     HttpResponse res) {
-        var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER));
-        if (auth != null) return auth;
+        try (var context = RequestContext.open("/admin/read", res)) {
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER));
+            if (auth != null) return auth;
 
-        try {
-            SearchModel searchModel = SearchModel.fromJson(new String((byte[]) req.getContent().getData()));
-            return res.setContent(CommonService.read(Admin.class, AdminService.class, searchModel).parse());
-        } catch (Exception e) {
-            e.printStackTrace(System.err);
-            return res.setContent(new ResponseModel<Admin>().setError("Internal system error").parse());
+            try {
+                SearchModel searchModel = SearchModel.fromJson(new String((byte[]) req.getContent().getData()));
+                return res.setContent(CommonService.read(Admin.class, AdminService.class, searchModel).parse());
+            } catch (Exception e) {
+                logger.error("Request failed", e);
+                return res.setContent(new ResponseModel<Admin>().setError("Internal system error").parse());
+            }
         }
     }
 
@@ -62,20 +65,22 @@ public final class AdminEndpoint {
     @ExpectContent("application/json")
     public static HttpResponse create(HttpPostRequest req,
                                       HttpResponse res) {
-        var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER));
-        if (auth != null) return auth;
+        try (var context = RequestContext.open("/admin/create", res)) {
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER));
+            if (auth != null) return auth;
 
-        try {
-            Admin instance = Utils.getGson().fromJson(new String((byte[]) req.getContent().getData()), Admin.class);
-            ResponseModel<Admin> response = CommonService.create(Admin.class, AdminService.class, instance);
-            if (response.isSuccess()) {
-                AuthenticationService.addAuthentication(
-                        new Authentication(Role.ADMIN, response.getData().getFirst().getId(), "A" + response.getData().getFirst().getId()));
+            try {
+                Admin instance = Utils.getGson().fromJson(new String((byte[]) req.getContent().getData()), Admin.class);
+                ResponseModel<Admin> response = CommonService.create(Admin.class, AdminService.class, instance);
+                if (response.isSuccess()) {
+                    AuthenticationService.addAuthentication(
+                            new Authentication(Role.ADMIN, response.getData().getFirst().getId(), "A" + response.getData().getFirst().getId()));
+                }
+                return res.setContent(response.parse());
+            } catch (Exception e) {
+                logger.error("Request failed", e);
+                return res.setContent(new ResponseModel<Admin>().setError("Internal system error").parse());
             }
-            return res.setContent(response.parse());
-        } catch (Exception e) {
-            e.printStackTrace(System.err);
-            return res.setContent(new ResponseModel<Admin>().setError("Internal system error").parse());
         }
     }
 
@@ -83,37 +88,41 @@ public final class AdminEndpoint {
     @ExpectContent("application/json")
     public static HttpResponse update(HttpPutRequest req,
                                       HttpResponse res) {
-        var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER));
-        if (auth != null) return auth;
+        try (var context = RequestContext.open("/admin/update", res)) {
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER));
+            if (auth != null) return auth;
 
-        try {
-            Admin instance = Utils.getGson().fromJson(new String((byte[]) req.getContent().getData()), Admin.class);
-            return res.setContent(CommonService.update(Admin.class, AdminService.class, instance).parse());
-        } catch (Exception e) {
-            e.printStackTrace(System.err);
-            return res.setContent(new ResponseModel<Admin>().setError("Internal system error").parse());
+            try {
+                Admin instance = Utils.getGson().fromJson(new String((byte[]) req.getContent().getData()), Admin.class);
+                return res.setContent(CommonService.update(Admin.class, AdminService.class, instance).parse());
+            } catch (Exception e) {
+                logger.error("Request failed", e);
+                return res.setContent(new ResponseModel<Admin>().setError("Internal system error").parse());
+            }
         }
     }
 
     @DELETE("/delete")
     public static HttpResponse delete(HttpDeleteRequest req,
                                       HttpResponse res) {
-        var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER));
-        if (auth != null) return auth;
+        try (var context = RequestContext.open("/admin/delete", res)) {
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER));
+            if (auth != null) return auth;
 
-        if (req.getParameters() == null || !req.getParameters().containsKey("id")) {
-            return res.setContent(new ResponseModel<Admin>().setError("Required parameter 'id' is missing").parse());
-        }
-        try {
-            BigInteger id = new BigInteger(req.getParameters().get("id"));
-            ResponseModel<Admin> response = CommonService.delete(Admin.class, id);
-            if (response.isSuccess()) {
-                AuthenticationService.deleteAuthentication(Role.ADMIN, id);
+            if (req.getParameters() == null || !req.getParameters().containsKey("id")) {
+                return res.setContent(new ResponseModel<Admin>().setError("Required parameter 'id' is missing").parse());
+            }
+            try {
+                BigInteger id = new BigInteger(req.getParameters().get("id"));
+                ResponseModel<Admin> response = CommonService.delete(Admin.class, id);
+                if (response.isSuccess()) {
+                    AuthenticationService.deleteAuthentication(Role.ADMIN, id);
+                }
+                return res.setContent(response.parse());
+            } catch (Exception e) {
+                logger.error("Request failed", e);
+                return res.setContent(new ResponseModel<Admin>().setError("Internal system error").parse());
             }
-            return res.setContent(response.parse());
-        } catch (Exception e) {
-            e.printStackTrace(System.err);
-            return res.setContent(new ResponseModel<Admin>().setError("Internal system error").parse());
         }
     }
 
@@ -121,27 +130,33 @@ public final class AdminEndpoint {
     @ExpectContent("application/x-www-form-urlencoded")
     public static HttpResponse resetPassword(HttpPatchRequest req,
                                              HttpResponse res) {
-        var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN),
-                req.getParameters() == null ? null : Set.of(AccessLevel.SUPERUSER));
-        if (auth != null) return auth;
-        return res.setContent(AuthenticationService.updateAuthentication(req, Role.ADMIN, req.getParameters() == null).parse());
+        try (var context = RequestContext.open("/admin/resetPassword", res)) {
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN),
+                    req.getParameters() == null ? null : Set.of(AccessLevel.SUPERUSER));
+            if (auth != null) return auth;
+            return res.setContent(AuthenticationService.updateAuthentication(req, Role.ADMIN, req.getParameters() == null).parse());
+        }
     }
 
     @PATCH("/logout")
     @ExpectContent("none")
     public static HttpResponse logout(HttpPatchRequest req,
                                       HttpResponse res) {
-        var isSelf = req.getParameters() == null || (req.getParameters().containsKey("userId") && req.getParameters().get("userId").equals("0"));
-        var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), isSelf ? null : Set.of(AccessLevel.SUPERUSER));
-        if (auth != null) return auth;
-        return res.setContent(DeviceService.removeDevice(req, Role.ADMIN, isSelf).parse());
+        try (var context = RequestContext.open("/admin/logout", res)) {
+            var isSelf = req.getParameters() == null || (req.getParameters().containsKey("userId") && req.getParameters().get("userId").equals("0"));
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), isSelf ? null : Set.of(AccessLevel.SUPERUSER));
+            if (auth != null) return auth;
+            return res.setContent(DeviceService.removeDevice(req, Role.ADMIN, isSelf).parse());
+        }
     }
 
     @GET("/devices")
     public static HttpResponse getDevices(HttpGetRequest req,
                                           HttpResponse res) {
-        var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), null);
-        if (auth != null) return auth;
-        return res.setContent(new Content("application/json", DeviceService.getDevices(req)));
+        try (var context = RequestContext.open("/admin/devices", res)) {
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), null);
+            if (auth != null) return auth;
+            return res.setContent(new Content("application/json", DeviceService.getDevices(req)));
+        }
     }
 }
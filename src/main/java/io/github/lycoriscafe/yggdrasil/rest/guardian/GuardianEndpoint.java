@@ -18,10 +18,12 @@ package io.github.lycoriscafe.yggdrasil.rest.guardian;
 
 import io.github.lycoriscafe.nexus.http.core.HttpEndpoint;
 import io.github.lycoriscafe.nexus.http.core.headers.auth.Authenticated;
+import io.github.lycoriscafe.nexus.http.core.headers.content.Content;
 import io.github.lycoriscafe.nexus.http.core.headers.content.ExpectContent;
 import io.github.lycoriscafe.nexus.http.core.requestMethods.annotations.DELETE;
 import io.github.lycoriscafe.nexus.http.core.requestMethods.annotations.POST;
 import io.github.lycoriscafe.nexus.http.core.requestMethods.annotations.PUT;
+import io.github.lycoriscafe.nexus.http.core.statusCodes.HttpStatusCode;
 import io.github.lycoriscafe.nexus.http.engine.reqResManager.httpReq.HttpDeleteRequest;
 import io.github.lycoriscafe.nexus.http.engine.reqResManager.httpReq.HttpPostRequest;
 import io.github.lycoriscafe.nexus.http.engine.reqResManager.httpReq.HttpPutRequest;
@@ -29,9 +31,15 @@ import io.github.lycoriscafe.nexus.http.engine.reqResManager.httpRes.HttpRespons
 import io.github.lycoriscafe.yggdrasil.authentication.AuthenticationService;
 import io.github.lycoriscafe.yggdrasil.authentication.Role;
 import io.github.lycoriscafe.yggdrasil.commons.CommonService;
+import io.github.lycoriscafe.yggdrasil.commons.ExportFormat;
+import io.github.lycoriscafe.yggdrasil.commons.ImportModel;
+import io.github.lycoriscafe.yggdrasil.commons.ImportResult;
+import io.github.lycoriscafe.yggdrasil.commons.RequestBody;
 import io.github.lycoriscafe.yggdrasil.commons.ResponseModel;
 import io.github.lycoriscafe.yggdrasil.commons.SearchModel;
+import io.github.lycoriscafe.yggdrasil.configuration.Priority;
 import io.github.lycoriscafe.yggdrasil.configuration.Utils;
+import io.github.lycoriscafe.yggdrasil.metrics.RequestContext;
 import io.github.lycoriscafe.yggdrasil.rest.admin.AccessLevel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,15 +56,46 @@ public final class GuardianEndpoint {
     @ExpectContent("application/json")
     public static HttpResponse read(HttpPostRequest req,
                                     HttpResponse res) {
-        var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN, Role.TEACHER, Role.STUDENT), null);
-        if (auth != null) return auth;
-
-        try {
-            SearchModel searchModel = SearchModel.fromJson(new String((byte[]) req.getContent().getData()));
-            return res.setContent(CommonService.read(Guardian.class, GuardianService.class, searchModel).parse());
-        } catch (Exception e) {
-            e.printStackTrace(System.err);
-            return res.setContent(new ResponseModel<Guardian>().setError(e.getMessage()).parse());
+        try (var context = RequestContext.open("/guardian/read", res)) {
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN, Role.TEACHER, Role.STUDENT), null);
+            if (auth != null) return auth;
+
+            try {
+                SearchModel searchModel = SearchModel.fromJson(new String((byte[]) req.getContent().getData()));
+                return res.setContent(CommonService.read(Guardian.class, GuardianService.class, searchModel).parse());
+            } catch (Exception e) {
+                logger.error("Request failed", e);
+                return res.setContent(new ResponseModel<Guardian>().setError(e.getMessage()).parse());
+            }
+        }
+    }
+
+    @POST("/export")
+    @ExpectContent("application/json")
+    public static HttpResponse export(HttpPostRequest req,
+                                      HttpResponse res) {
+        try (var context = RequestContext.open("/guardian/export", res)) {
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.GUARDIAN), Priority.LOW);
+            if (auth != null) return auth;
+
+            String formatName = req.getParameters() == null ? null : req.getParameters().get("format");
+            ExportFormat format = formatName == null ? ExportFormat.NDJSON : ExportFormat.of(formatName);
+            if (format == null) {
+                return res.setStatusCode(HttpStatusCode.BAD_REQUEST).setContent(new ResponseModel<Guardian>()
+                        .setError("Unsupported 'format', use one of: " + ExportFormat.supported()).parse());
+            }
+
+            try {
+                SearchModel searchModel = SearchModel.fromJson(new String((byte[]) req.getContent().getData()));
+                return res.setContent(new Content(format.getContentType(),
+                        CommonService.export(Guardian.class, GuardianService.class, searchModel, format)));
+            } catch (IllegalArgumentException e) {
+                // unknown searchBy or orderBy fields, rejected before any row is read
+                return res.setStatusCode(HttpStatusCode.BAD_REQUEST).setContent(new ResponseModel<Guardian>().setError(e.getMessage()).parse());
+            } catch (Exception e) {
+                logger.error("Request failed", e);
+                return res.setContent(new ResponseModel<Guardian>().setError(e.getMessage()).parse());
+            }
         }
     }
 
@@ -64,15 +103,37 @@ public final class GuardianEndpoint {
     @ExpectContent("application/json")
     public static HttpResponse create(HttpPostRequest req,
                                       HttpResponse res) {
-        var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.GUARDIAN));
-        if (auth != null) return auth;
-
-        try {
-            Guardian instance = Utils.getGson().fromJson(new String((byte[]) req.getContent().getData()), Guardian.class);
-            return res.setContent(CommonService.create(Guardian.class, GuardianService.class, instance).parse());
-        } catch (Exception e) {
-            e.printStackTrace(System.err);
-            return res.setContent(new ResponseModel<Guardian>().setError(e.getMessage()).parse());
+        try (var context = RequestContext.open("/guardian/create", res)) {
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.GUARDIAN));
+            if (auth != null) return auth;
+
+            try {
+                Guardian instance = Utils.getGson().fromJson(new String((byte[]) req.getContent().getData()), Guardian.class);
+                return res.setContent(CommonService.create(Guardian.class, GuardianService.class, instance).parse());
+            } catch (Exception e) {
+                logger.error("Request failed", e);
+                return res.setContent(new ResponseModel<Guardian>().setError(e.getMessage()).parse());
+            }
+        }
+    }
+
+    @POST("/import")
+    @ExpectContent("text/csv")
+    public static HttpResponse importCsv(HttpPostRequest req,
+                                         HttpResponse res) {
+        try (var context = RequestContext.open("/guardian/import", res)) {
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.GUARDIAN), Priority.LOW);
+            if (auth != null) return auth;
+
+            try (var body = RequestBody.of(req);
+                 var reader = body.getReader()) {
+                var importModel = new ImportModel<Guardian>()
+                        .setUniqueFields(Set.of("nic"));
+                return res.setContent(CommonService.importCsv(Guardian.class, GuardianService.class, reader, importModel).parse());
+            } catch (Exception e) {
+                logger.error("Request failed", e);
+                return res.setContent(new ImportResult().setError(e.getMessage()).parse());
+            }
         }
     }
 
@@ -80,33 +141,37 @@ public final class GuardianEndpoint {
     @ExpectContent("application/json")
     public static HttpResponse update(HttpPutRequest req,
                                       HttpResponse res) {
-        var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.GUARDIAN));
-        if (auth != null) return auth;
-
-        try {
-            Guardian instance = Utils.getGson().fromJson(new String((byte[]) req.getContent().getData()), Guardian.class);
-            return res.setContent(CommonService.update(Guardian.class, GuardianService.class, instance).parse());
-        } catch (Exception e) {
-            e.printStackTrace(System.err);
-            return res.setContent(new ResponseModel<Guardian>().setError(e.getMessage()).parse());
+        try (var context = RequestContext.open("/guardian/update", res)) {
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.GUARDIAN));
+            if (auth != null) return auth;
+
+            try {
+                Guardian instance = Utils.getGson().fromJson(new String((byte[]) req.getContent().getData()), Guardian.class);
+                return res.setContent(CommonService.update(Guardian.class, GuardianService.class, instance).parse());
+            } catch (Exception e) {
+                logger.error("Request failed", e);
+                return res.setContent(new ResponseModel<Guardian>().setError(e.getMessage()).parse());
+            }
         }
     }
 
     @DELETE("/delete")
     public static HttpResponse delete(HttpDeleteRequest req,
                                       HttpResponse res) {
-        var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.GUARDIAN));
-        if (auth != null) return auth;
+        try (var context = RequestContext.open("/guardian/delete", res)) {
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.GUARDIAN));
+            if (auth != null) return auth;
 
-        if (req.getParameters() == null || !req.getParameters().containsKey("id")) {
-            return res.setContent(new ResponseModel<Guardian>().setError("Required parameter 'id' is missing").parse());
-        }
-        try {
-            BigInteger id = new BigInteger(req.getParameters().get("id"));
-            return res.setContent(CommonService.delete(Guardian.class, id).parse());
-        } catch (Exception e) {
-            e.printStackTrace(System.err);
-            return res.setContent(new ResponseModel<Guardian>().setError(e.getMessage()).parse());
+            if (req.getParameters() == null || !req.getParameters().containsKey("id")) {
+                return res.setContent(new ResponseModel<Guardian>().setError("Required parameter 'id' is missing").parse());
+            }
+            try {
+                BigInteger id = new BigInteger(req.getParameters().get("id"));
+                return res.setContent(CommonService.delete(Guardian.class, id).parse());
+            } catch (Exception e) {
+                logger.error("Request failed", e);
+                return res.setContent(new ResponseModel<Guardian>().setError(e.getMessage()).parse());
+            }
         }
     }
 }
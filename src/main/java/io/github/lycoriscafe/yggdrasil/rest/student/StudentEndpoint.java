@@ -21,6 +21,7 @@ import io.github.lycoriscafe.nexus.http.core.headers.auth.Authenticated;
 import io.github.lycoriscafe.nexus.http.core.headers.content.Content;
 import io.github.lycoriscafe.nexus.http.core.headers.content.ExpectContent;
 import io.github.lycoriscafe.nexus.http.core.requestMethods.annotations.*;
+import io.github.lycoriscafe.nexus.http.core.statusCodes.HttpStatusCode;
 import io.github.lycoriscafe.nexus.http.engine.reqResManager.httpReq.*;
 import io.github.lycoriscafe.nexus.http.engine.reqResManager.httpRes.HttpResponse;
 import io.github.lycoriscafe.yggdrasil.authentication.Authentication;
@@ -28,14 +29,23 @@ import io.github.lycoriscafe.yggdrasil.authentication.AuthenticationService;
 import io.github.lycoriscafe.yggdrasil.authentication.DeviceService;
 import io.github.lycoriscafe.yggdrasil.authentication.Role;
 import io.github.lycoriscafe.yggdrasil.commons.CommonService;
+import io.github.lycoriscafe.yggdrasil.commons.ExportFormat;
+import io.github.lycoriscafe.yggdrasil.commons.ImportModel;
+import io.github.lycoriscafe.yggdrasil.commons.ImportResult;
+import io.github.lycoriscafe.yggdrasil.commons.RequestBody;
 import io.github.lycoriscafe.yggdrasil.commons.ResponseModel;
 import io.github.lycoriscafe.yggdrasil.commons.SearchModel;
+import io.github.lycoriscafe.yggdrasil.configuration.Priority;
 import io.github.lycoriscafe.yggdrasil.configuration.Utils;
+import io.github.lycoriscafe.yggdrasil.metrics.RequestContext;
 import io.github.lycoriscafe.yggdrasil.rest.admin.AccessLevel;
+import io.github.lycoriscafe.yggdrasil.rest.classroom.Classroom;
+import io.github.lycoriscafe.yggdrasil.rest.guardian.Guardian;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigInteger;
+import java.util.Map;
 import java.util.Set;
 
 @HttpEndpoint("/student")
@@ -47,15 +57,46 @@ public final class StudentEndpoint {
     @ExpectContent("application/json")
     public static HttpResponse read(HttpPostRequest req,
                                     HttpResponse res) {
-        var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN, Role.TEACHER, Role.STUDENT), null);
-        if (auth != null) return auth;
-
-        try {
-            SearchModel searchModel = SearchModel.fromJson(new String((byte[]) req.getContent().getData()));
-            return res.setContent(CommonService.read(Student.class, StudentService.class, searchModel).parse());
-        } catch (Exception e) {
-            e.printStackTrace(System.err);
-            return res.setContent(new ResponseModel<Student>().setError(e.getMessage()).parse());
+        try (var context = RequestContext.open("/student/read", res)) {
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN, Role.TEACHER, Role.STUDENT), null);
+            if (auth != null) return auth;
+
+            try {
+                SearchModel searchModel = SearchModel.fromJson(new String((byte[]) req.getContent().getData()));
+                return res.setContent(CommonService.read(Student.class, StudentService.class, searchModel).parse());
+            } catch (Exception e) {
+                logger.error("Request failed", e);
+                return res.setContent(new ResponseModel<Student>().setError(e.getMessage()).parse());
+            }
+        }
+    }
+
+    @POST("/export")
+    @ExpectContent("application/json")
+    public static HttpResponse export(HttpPostRequest req,
+                                      HttpResponse res) {
+        try (var context = RequestContext.open("/student/export", res)) {
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.STUDENT), Priority.LOW);
+            if (auth != null) return auth;
+
+            String formatName = req.getParameters() == null ? null : req.getParameters().get("format");
+            ExportFormat format = formatName == null ? ExportFormat.NDJSON : ExportFormat.of(formatName);
+            if (format == null) {
+                return res.setStatusCode(HttpStatusCode.BAD_REQUEST).setContent(new ResponseModel<Student>()
+                        .setError("Unsupported 'format', use one of: " + ExportFormat.supported()).parse());
+            }
+
+            try {
+                SearchModel searchModel = SearchModel.fromJson(new String((byte[]) req.getContent().getData()));
+                return res.setContent(new Content(format.getContentType(),
+                        CommonService.export(Student.class, StudentService.class, searchModel, format)));
+            } catch (IllegalArgumentException e) {
+                // unknown searchBy or orderBy fields, rejected before any row is read
+                return res.setStatusCode(HttpStatusCode.BAD_REQUEST).setContent(new ResponseModel<Student>().setError(e.getMessage()).parse());
+            } catch (Exception e) {
+                logger.error("Request failed", e);
+                return res.setContent(new ResponseModel<Student>().setError(e.getMessage()).parse());
+            }
         }
     }
 
@@ -63,20 +104,44 @@ public final class StudentEndpoint {
     @ExpectContent("application/json")
     public static HttpResponse create(HttpPostRequest req,
                                       HttpResponse res) {
-        var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.STUDENT));
-        if (auth != null) return auth;
-
-        try {
-            Student instance = Utils.getGson().fromJson(new String((byte[]) req.getContent().getData()), Student.class);
-            ResponseModel<Student> response = CommonService.create(Student.class, StudentService.class, instance);
-            if (response.isSuccess()) {
-                AuthenticationService.addAuthentication(
-                        new Authentication(Role.STUDENT, response.getData().getFirst().getId(), "S" + response.getData().getFirst().getId()));
+        try (var context = RequestContext.open("/student/create", res)) {
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.STUDENT));
+            if (auth != null) return auth;
+
+            try {
+                Student instance = Utils.getGson().fromJson(new String((byte[]) req.getContent().getData()), Student.class);
+                ResponseModel<Student> response = CommonService.create(Student.class, StudentService.class, instance);
+                if (response.isSuccess()) {
+                    AuthenticationService.addAuthentication(
+                            new Authentication(Role.STUDENT, response.getData().getFirst().getId(), "S" + response.getData().getFirst().getId()));
+                }
+                return res.setContent(response.parse());
+            } catch (Exception e) {
+                logger.error("Request failed", e);
+                return res.setContent(new ResponseModel<Student>().setError(e.getMessage()).parse());
+            }
+        }
+    }
+
+    @POST("/import")
+    @ExpectContent("text/csv")
+    public static HttpResponse importCsv(HttpPostRequest req,
+                                         HttpResponse res) {
+        try (var context = RequestContext.open("/student/import", res)) {
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.STUDENT), Priority.LOW);
+            if (auth != null) return auth;
+
+            try (var body = RequestBody.of(req);
+                 var reader = body.getReader()) {
+                var importModel = new ImportModel<Student>()
+                        .setUniqueFields(Set.of("nic"))
+                        .setReferences(Map.of("guardianId", Guardian.class, "classroomId", Classroom.class))
+                        .setProvisioner(instances -> AuthenticationService.defaultAuthentications(Role.STUDENT, instances));
+                return res.setContent(CommonService.importCsv(Student.class, StudentService.class, reader, importModel).parse());
+            } catch (Exception e) {
+                logger.error("Request failed", e);
+                return res.setContent(new ImportResult().setError(e.getMessage()).parse());
             }
-            return res.setContent(response.parse());
-        } catch (Exception e) {
-            e.printStackTrace(System.err);
-            return res.setContent(new ResponseModel<Student>().setError(e.getMessage()).parse());
         }
     }
 
@@ -84,37 +149,41 @@ public final class StudentEndpoint {
     @ExpectContent("application/json")
     public static HttpResponse update(HttpPutRequest req,
                                       HttpResponse res) {
-        var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.STUDENT));
-        if (auth != null) return auth;
-
-        try {
-            Student instance = Utils.getGson().fromJson(new String((byte[]) req.getContent().getData()), Student.class);
-            return res.setContent(CommonService.update(Student.class, StudentService.class, instance).parse());
-        } catch (Exception e) {
-            e.printStackTrace(System.err);
-            return res.setContent(new ResponseModel<Student>().setError(e.getMessage()).parse());
+        try (var context = RequestContext.open("/student/update", res)) {
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.STUDENT));
+            if (auth != null) return auth;
+
+            try {
+                Student instance = Utils.getGson().fromJson(new String((byte[]) req.getContent().getData()), Student.class);
+                return res.setContent(CommonService.update(Student.class, StudentService.class, instance).parse());
+            } catch (Exception e) {
+                logger.error("Request failed", e);
+                return res.setContent(new ResponseModel<Student>().setError(e.getMessage()).parse());
+            }
         }
     }
 
     @DELETE("/delete")
     public static HttpResponse delete(HttpDeleteRequest req,
                                       HttpResponse res) {
-        var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.STUDENT));
-        if (auth != null) return auth;
+        try (var context = RequestContext.open("/student/delete", res)) {
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.STUDENT));
+            if (auth != null) return auth;
 
-        if (req.getParameters() == null || !req.getParameters().containsKey("id")) {
-            return res.setContent(new ResponseModel<Student>().setError("Required parameter 'id' is missing").parse());
-        }
-        try {
-            BigInteger id = new BigInteger(req.getParameters().get("id"));
-            ResponseModel<Student> response = CommonService.delete(Student.class, id);
-            if (response.isSuccess()) {
-                AuthenticationService.deleteAuthentication(Role.STUDENT, id);
+            if (req.getParameters() == null || !req.getParameters().containsKey("id")) {
+                return res.setContent(new ResponseModel<Student>().setError("Required parameter 'id' is missing").parse());
+            }
+            try {
+                BigInteger id = new BigInteger(req.getParameters().get("id"));
+                ResponseModel<Student> response = CommonService.delete(Student.class, id);
+                if (response.isSuccess()) {
+                    AuthenticationService.deleteAuthentication(Role.STUDENT, id);
+                }
+                return res.setContent(response.parse());
+            } catch (Exception e) {
+                logger.error("Request failed", e);
+                return res.setContent(new ResponseModel<Student>().setError(e.getMessage()).parse());
             }
-            return res.setContent(response.parse());
-        } catch (Exception e) {
-            e.printStackTrace(System.err);
-            return res.setContent(new ResponseModel<Student>().setError(e.getMessage()).parse());
         }
     }
 
@@ -122,28 +191,34 @@ public final class StudentEndpoint {
     @ExpectContent("application/x-www-form-urlencoded")
     public static HttpResponse resetPassword(HttpPatchRequest req,
                                              HttpResponse res) {
-        var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN, Role.STUDENT),
-                req.getParameters() == null ? null : Set.of(AccessLevel.SUPERUSER, AccessLevel.STUDENT));
-        if (auth != null) return auth;
-        return res.setContent(AuthenticationService.updateAuthentication(req, Role.STUDENT, req.getParameters() == null).parse());
+        try (var context = RequestContext.open("/student/resetPassword", res)) {
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN, Role.STUDENT),
+                    req.getParameters() == null ? null : Set.of(AccessLevel.SUPERUSER, AccessLevel.STUDENT));
+            if (auth != null) return auth;
+            return res.setContent(AuthenticationService.updateAuthentication(req, Role.STUDENT, req.getParameters() == null).parse());
+        }
     }
 
     @PATCH("/logout")
     @ExpectContent("none")
     public static HttpResponse logout(HttpPatchRequest req,
                                       HttpResponse res) {
-        var isSelf = req.getParameters() == null || (req.getParameters().containsKey("userId") && req.getParameters().get("userId").equals("0"));
-        var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN, Role.STUDENT),
-                isSelf ? null : Set.of(AccessLevel.SUPERUSER, AccessLevel.STUDENT));
-        if (auth != null) return auth;
-        return res.setContent(DeviceService.removeDevice(req, Role.STUDENT, isSelf).parse());
+        try (var context = RequestContext.open("/student/logout", res)) {
+            var isSelf = req.getParameters() == null || (req.getParameters().containsKey("userId") && req.getParameters().get("userId").equals("0"));
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN, Role.STUDENT),
+                    isSelf ? null : Set.of(AccessLevel.SUPERUSER, AccessLevel.STUDENT));
+            if (auth != null) return auth;
+            return res.setContent(DeviceService.removeDevice(req, Role.STUDENT, isSelf).parse());
+        }
     }
 
     @GET("/devices")
     public static HttpResponse getDevices(HttpGetRequest req,
                                           HttpResponse res) {
-        var auth = AuthenticationService.authenticate(req, Set.of(Role.STUDENT), null);
-        if (auth != null) return auth;
-        return res.setContent(new Content("application/json", DeviceService.getDevices(req)));
+        try (var context = RequestContext.open("/student/devices", res)) {
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.STUDENT), null);
+            if (auth != null) return auth;
+            return res.setContent(new Content("application/json", DeviceService.getDevices(req)));
+        }
     }
 }
@@ -18,18 +18,23 @@ package io.github.lycoriscafe.yggdrasil.rest.student.attendance;
 
 import io.github.lycoriscafe.nexus.http.core.HttpEndpoint;
 import io.github.lycoriscafe.nexus.http.core.headers.auth.Authenticated;
+import io.github.lycoriscafe.nexus.http.core.headers.content.Content;
 import io.github.lycoriscafe.nexus.http.core.headers.content.ExpectContent;
 import io.github.lycoriscafe.nexus.http.core.requestMethods.annotations.DELETE;
 import io.github.lycoriscafe.nexus.http.core.requestMethods.annotations.POST;
+import io.github.lycoriscafe.nexus.http.core.statusCodes.HttpStatusCode;
 import io.github.lycoriscafe.nexus.http.engine.reqResManager.httpReq.HttpDeleteRequest;
 import io.github.lycoriscafe.nexus.http.engine.reqResManager.httpReq.HttpPostRequest;
 import io.github.lycoriscafe.nexus.http.engine.reqResManager.httpRes.HttpResponse;
 import io.github.lycoriscafe.yggdrasil.authentication.AuthenticationService;
 import io.github.lycoriscafe.yggdrasil.authentication.Role;
 import io.github.lycoriscafe.yggdrasil.commons.CommonService;
+import io.github.lycoriscafe.yggdrasil.commons.ExportFormat;
 import io.github.lycoriscafe.yggdrasil.commons.ResponseModel;
 import io.github.lycoriscafe.yggdrasil.commons.SearchModel;
+import io.github.lycoriscafe.yggdrasil.configuration.Priority;
 import io.github.lycoriscafe.yggdrasil.configuration.Utils;
+import io.github.lycoriscafe.yggdrasil.metrics.RequestContext;
 import io.github.lycoriscafe.yggdrasil.rest.admin.AccessLevel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,15 +51,46 @@ public final class StudentAttendanceEndpoint {
     @ExpectContent("application/json")
     public static HttpResponse read(HttpPostRequest req,
                                     HttpResponse res) {
-        var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN, Role.TEACHER, Role.STUDENT), null);
-        if (auth != null) return auth;
+        try (var context = RequestContext.open("/student/attendance/read", res)) {
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN, Role.TEACHER, Role.STUDENT), null, Priority.HIGH);
+            if (auth != null) return auth;
 
-        try {
-            SearchModel searchModel = SearchModel.fromJson(new String((byte[]) req.getContent().getData()));
-            return res.setContent(CommonService.read(StudentAttendance.class, StudentAttendanceService.class, searchModel).parse());
-        } catch (Exception e) {
-            e.printStackTrace(System.err);
-            return res.setContent(new ResponseModel<StudentAttendance>().setError(e.getMessage()).parse());
+            try {
+                SearchModel searchModel = SearchModel.fromJson(new String((byte[]) req.getContent().getData()));
+                return res.setContent(CommonService.read(StudentAttendance.class, StudentAttendanceService.class, searchModel).parse());
+            } catch (Exception e) {
+                logger.error("Request failed", e);
+                return res.setContent(new ResponseModel<StudentAttendance>().setError(e.getMessage()).parse());
+            }
+        }
+    }
+
+    @POST("/export")
+    @ExpectContent("application/json")
+    public static HttpResponse export(HttpPostRequest req,
+                                      HttpResponse res) {
+        try (var context = RequestContext.open("/student/attendance/export", res)) {
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.STUDENT), Priority.LOW);
+            if (auth != null) return auth;
+
+            String formatName = req.getParameters() == null ? null : req.getParameters().get("format");
+            ExportFormat format = formatName == null ? ExportFormat.NDJSON : ExportFormat.of(formatName);
+            if (format == null) {
+                return res.setStatusCode(HttpStatusCode.BAD_REQUEST).setContent(new ResponseModel<StudentAttendance>()
+                        .setError("Unsupported 'format', use one of: " + ExportFormat.supported()).parse());
+            }
+
+            try {
+                SearchModel searchModel = SearchModel.fromJson(new String((byte[]) req.getContent().getData()));
+                return res.setContent(new Content(format.getContentType(),
+                        CommonService.export(StudentAttendance.class, StudentAttendanceService.class, searchModel, format)));
+            } catch (IllegalArgumentException e) {
+                // unknown searchBy or orderBy fields, rejected before any row is read
+                return res.setStatusCode(HttpStatusCode.BAD_REQUEST).setContent(new ResponseModel<StudentAttendance>().setError(e.getMessage()).parse());
+            } catch (Exception e) {
+                logger.error("Request failed", e);
+                return res.setContent(new ResponseModel<StudentAttendance>().setError(e.getMessage()).parse());
+            }
         }
     }
 
@@ -62,33 +98,37 @@ public final class StudentAttendanceEndpoint {
     @ExpectContent("application/json")
     public static HttpResponse create(HttpPostRequest req,
                                       HttpResponse res) {
-        var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.STUDENT));
-        if (auth != null) return auth;
+        try (var context = RequestContext.open("/student/attendance/create", res)) {
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.STUDENT), Priority.HIGH);
+            if (auth != null) return auth;
 
-        try {
-            StudentAttendance instance = Utils.getGson().fromJson(new String((byte[]) req.getContent().getData()), StudentAttendance.class);
-            return res.setContent(CommonService.create(StudentAttendance.class, StudentAttendanceService.class, instance).parse());
-        } catch (Exception e) {
-            e.printStackTrace(System.err);
-            return res.setContent(new ResponseModel<StudentAttendance>().setError(e.getMessage()).parse());
+            try {
+                StudentAttendance instance = Utils.getGson().fromJson(new String((byte[]) req.getContent().getData()), StudentAttendance.class);
+                return res.setContent(CommonService.create(StudentAttendance.class, StudentAttendanceService.class, instance).parse());
+            } catch (Exception e) {
+                logger.error("Request failed", e);
+                return res.setContent(new ResponseModel<StudentAttendance>().setError(e.getMessage()).parse());
+            }
         }
     }
 
     @DELETE("/delete")
     public static HttpResponse delete(HttpDeleteRequest req,
                                       HttpResponse res) {
-        var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.STUDENT));
-        if (auth != null) return auth;
+        try (var context = RequestContext.open("/student/attendance/delete", res)) {
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.STUDENT), Priority.HIGH);
+            if (auth != null) return auth;
 
-        if (req.getParameters() == null || !req.getParameters().containsKey("id")) {
-            return res.setContent(new ResponseModel<StudentAttendance>().setError("Required parameter 'id' is missing").parse());
-        }
-        try {
-            BigInteger id = new BigInteger(req.getParameters().get("id"));
-            return res.setContent(CommonService.delete(StudentAttendance.class, id).parse());
-        } catch (Exception e) {
-            e.printStackTrace(System.err);
-            return res.setContent(new ResponseModel<StudentAttendance>().setError(e.getMessage()).parse());
+            if (req.getParameters() == null || !req.getParameters().containsKey("id")) {
+                return res.setContent(new ResponseModel<StudentAttendance>().setError("Required parameter 'id' is missing").parse());
+            }
+            try {
+                BigInteger id = new BigInteger(req.getParameters().get("id"));
+                return res.setContent(CommonService.delete(StudentAttendance.class, id).parse());
+            } catch (Exception e) {
+                logger.error("Request failed", e);
+                return res.setContent(new ResponseModel<StudentAttendance>().setError(e.getMessage()).parse());
+            }
         }
     }
 }
@@ -32,6 +32,7 @@ import io.github.lycoriscafe.yggdrasil.commons.CommonService;
 import io.github.lycoriscafe.yggdrasil.commons.ResponseModel;
 import io.github.lycoriscafe.yggdrasil.commons.SearchModel;
 import io.github.lycoriscafe.yggdrasil.configuration.Utils;
+import io.github.lycoriscafe.yggdrasil.metrics.RequestContext;
 import io.github.lycoriscafe.yggdrasil.rest.admin.AccessLevel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,15 +49,17 @@ public final class StudentSubjectJoinEndpoint {
     @ExpectContent("application/json")
     public static HttpResponse read(HttpPostRequest req,
                                     HttpResponse res) {
-        var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN, Role.TEACHER, Role.STUDENT), null);
-        if (auth != null) return auth;
+        try (var context = RequestContext.open("/student/subject/read", res)) {
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN, Role.TEACHER, Role.STUDENT), null);
+            if (auth != null) return auth;
 
-        try {
-            SearchModel searchModel = SearchModel.fromJson(new String((byte[]) req.getContent().getData()));
-            return res.setContent(CommonService.read(StudentSubjectJoin.class, StudentSubjectJoinService.class, searchModel).parse());
-        } catch (Exception e) {
-            e.printStackTrace(System.err);
-            return res.setContent(new ResponseModel<StudentSubjectJoin>().setError(e.getMessage()).parse());
+            try {
+                SearchModel searchModel = SearchModel.fromJson(new String((byte[]) req.getContent().getData()));
+                return res.setContent(CommonService.read(StudentSubjectJoin.class, StudentSubjectJoinService.class, searchModel).parse());
+            } catch (Exception e) {
+                logger.error("Request failed", e);
+                return res.setContent(new ResponseModel<StudentSubjectJoin>().setError(e.getMessage()).parse());
+            }
         }
     }
 
@@ -64,15 +67,17 @@ public final class StudentSubjectJoinEndpoint {
     @ExpectContent("application/json")
     public static HttpResponse create(HttpPostRequest req,
                                       HttpResponse res) {
-        var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.STUDENT));
-        if (auth != null) return auth;
+        try (var context = RequestContext.open("/student/subject/create", res)) {
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.STUDENT));
+            if (auth != null) return auth;
 
-        try {
-            StudentSubjectJoin instance = Utils.getGson().fromJson(new String((byte[]) req.getContent().getData()), StudentSubjectJoin.class);
-            return res.setContent(CommonService.create(StudentSubjectJoin.class, StudentSubjectJoinService.class, instance).parse());
-        } catch (Exception e) {
-            e.printStackTrace(System.err);
-            return res.setContent(new ResponseModel<StudentSubjectJoin>().setError(e.getMessage()).parse());
+            try {
+                StudentSubjectJoin instance = Utils.getGson().fromJson(new String((byte[]) req.getContent().getData()), StudentSubjectJoin.class);
+                return res.setContent(CommonService.create(StudentSubjectJoin.class, StudentSubjectJoinService.class, instance).parse());
+            } catch (Exception e) {
+                logger.error("Request failed", e);
+                return res.setContent(new ResponseModel<StudentSubjectJoin>().setError(e.getMessage()).parse());
+            }
         }
     }
 
@@ -80,33 +85,37 @@ public final class StudentSubjectJoinEndpoint {
     @ExpectContent("application/json")
     public static HttpResponse update(HttpPutRequest req,
                                       HttpResponse res) {
-        var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.STUDENT));
-        if (auth != null) return auth;
+        try (var context = RequestContext.open("/student/subject/update", res)) {
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.STUDENT));
+            if (auth != null) return auth;
 
-        try {
-            StudentSubjectJoin instance = Utils.getGson().fromJson(new String((byte[]) req.getContent().getData()), StudentSubjectJoin.class);
-            return res.setContent(CommonService.update(StudentSubjectJoin.class, StudentSubjectJoinService.class, instance).parse());
-        } catch (Exception e) {
-            e.printStackTrace(System.err);
-            return res.setContent(new ResponseModel<StudentSubjectJoin>().setError(e.getMessage()).parse());
+            try {
+                StudentSubjectJoin instance = Utils.getGson().fromJson(new String((byte[]) req.getContent().getData()), StudentSubjectJoin.class);
+                return res.setContent(CommonService.update(StudentSubjectJoin.class, StudentSubjectJoinService.class, instance).parse());
+            } catch (Exception e) {
+                logger.error("Request failed", e);
+                return res.setContent(new ResponseModel<StudentSubjectJoin>().setError(e.getMessage()).parse());
+            }
         }
     }
 
     @DELETE("/delete")
     public static HttpResponse delete(HttpDeleteRequest req,
                                       HttpResponse res) {
-        var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.STUDENT));
-        if (auth != null) return auth;
+        try (var context = RequestContext.open("/student/subject/delete", res)) {
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.STUDENT));
+            if (auth != null) return auth;
 
-        if (req.getParameters() == null || !req.getParameters().containsKey("id")) {
-            return res.setContent(new ResponseModel<StudentSubjectJoin>().setError("Required parameter 'id' is missing").parse());
-        }
-        try {
-            BigInteger id = new BigInteger(req.getParameters().get("id"));
-            return res.setContent(CommonService.delete(StudentSubjectJoin.class, id).parse());
-        } catch (Exception e) {
-            e.printStackTrace(System.err);
-            return res.setContent(new ResponseModel<StudentSubjectJoin>().setError(e.getMessage()).parse());
+            if (req.getParameters() == null || !req.getParameters().containsKey("id")) {
+                return res.setContent(new ResponseModel<StudentSubjectJoin>().setError("Required parameter 'id' is missing").parse());
+            }
+            try {
+                BigInteger id = new BigInteger(req.getParameters().get("id"));
+                return res.setContent(CommonService.delete(StudentSubjectJoin.class, id).parse());
+            } catch (Exception e) {
+                logger.error("Request failed", e);
+                return res.setContent(new ResponseModel<StudentSubjectJoin>().setError(e.getMessage()).parse());
+            }
         }
     }
 }
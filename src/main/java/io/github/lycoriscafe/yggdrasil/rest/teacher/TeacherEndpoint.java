@@ -21,6 +21,7 @@ import io.github.lycoriscafe.nexus.http.core.headers.auth.Authenticated;
 import io.github.lycoriscafe.nexus.http.core.headers.content.Content;
 import io.github.lycoriscafe.nexus.http.core.headers.content.ExpectContent;
 import io.github.lycoriscafe.nexus.http.core.requestMethods.annotations.*;
+import io.github.lycoriscafe.nexus.http.core.statusCodes.HttpStatusCode;
 import io.github.lycoriscafe.nexus.http.engine.reqResManager.httpReq.*;
 import io.github.lycoriscafe.nexus.http.engine.reqResManager.httpRes.HttpResponse;
 import io.github.lycoriscafe.yggdrasil.authentication.Authentication;
@@ -28,9 +29,15 @@ import io.github.lycoriscafe.yggdrasil.authentication.AuthenticationService;
 import io.github.lycoriscafe.yggdrasil.authentication.DeviceService;
 import io.github.lycoriscafe.yggdrasil.authentication.Role;
 import io.github.lycoriscafe.yggdrasil.commons.CommonService;
+import io.github.lycoriscafe.yggdrasil.commons.ExportFormat;
+import io.github.lycoriscafe.yggdrasil.commons.ImportModel;
+import io.github.lycoriscafe.yggdrasil.commons.ImportResult;
+import io.github.lycoriscafe.yggdrasil.commons.RequestBody;
 import io.github.lycoriscafe.yggdrasil.commons.ResponseModel;
 import io.github.lycoriscafe.yggdrasil.commons.SearchModel;
+import io.github.lycoriscafe.yggdrasil.configuration.Priority;
 import io.github.lycoriscafe.yggdrasil.configuration.Utils;
+import io.github.lycoriscafe.yggdrasil.metrics.RequestContext;
 import io.github.lycoriscafe.yggdrasil.rest.admin.AccessLevel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,15 +54,46 @@ public final class TeacherEndpoint {
     @ExpectContent("application/json")
     public static HttpResponse read(HttpPostRequest req,
                                     HttpResponse res) {
-        var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN, Role.TEACHER, Role.STUDENT), null);
-        if (auth != null) return auth;
-
-        try {
-            SearchModel searchModel = SearchModel.fromJson(new String((byte[]) req.getContent().getData()));
-            return res.setContent(CommonService.read(Teacher.class, TeacherService.class, searchModel).parse());
-        } catch (Exception e) {
-            e.printStackTrace(System.err);
-            return res.setContent(new ResponseModel<Teacher>().setError(e.getMessage()).parse());
+        try (var context = RequestContext.open("/teacher/read", res)) {
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN, Role.TEACHER, Role.STUDENT), null);
+            if (auth != null) return auth;
+
+            try {
+                SearchModel searchModel = SearchModel.fromJson(new String((byte[]) req.getContent().getData()));
+                return res.setContent(CommonService.read(Teacher.class, TeacherService.class, searchModel).parse());
+            } catch (Exception e) {
+                logger.error("Request failed", e);
+                return res.setContent(new ResponseModel<Teacher>().setError(e.getMessage()).parse());
+            }
+        }
+    }
+
+    @POST("/export")
+    @ExpectContent("application/json")
+    public static HttpResponse export(HttpPostRequest req,
+                                      HttpResponse res) {
+        try (var context = RequestContext.open("/teacher/export", res)) {
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.TEACHER), Priority.LOW);
+            if (auth != null) return auth;
+
+            String formatName = req.getParameters() == null ? null : req.getParameters().get("format");
+            ExportFormat format = formatName == null ? ExportFormat.NDJSON : ExportFormat.of(formatName);
+            if (format == null) {
+                return res.setStatusCode(HttpStatusCode.BAD_REQUEST).setContent(new ResponseModel<Teacher>()
+                        .setError("Unsupported 'format', use one of: " + ExportFormat.supported()).parse());
+            }
+
+            try {
+                SearchModel searchModel = SearchModel.fromJson(new String((byte[]) req.getContent().getData()));
+                return res.setContent(new Content(format.getContentType(),
+                        CommonService.export(Teacher.class, TeacherService.class, searchModel, format)));
+            } catch (IllegalArgumentException e) {
+                // unknown searchBy or orderBy fields, rejected before any row is read
+                return res.setStatusCode(HttpStatusCode.BAD_REQUEST).setContent(new ResponseModel<Teacher>().setError(e.getMessage()).parse());
+            } catch (Exception e) {
+                logger.error("Request failed", e);
+                return res.setContent(new ResponseModel<Teacher>().setError(e.getMessage()).parse());
+            }
         }
     }
 
@@ -63,20 +101,43 @@ public final class TeacherEndpoint {
     @ExpectContent("application/json")
     public static HttpResponse create(HttpPostRequest req,
                                       HttpResponse res) {
-        var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.TEACHER));
-        if (auth != null) return auth;
-
-        try {
-            Teacher instance = Utils.getGson().fromJson(new String((byte[]) req.getContent().getData()), Teacher.class);
-            ResponseModel<Teacher> response = CommonService.create(Teacher.class, TeacherService.class, instance);
-            if (response.isSuccess()) {
-                AuthenticationService.addAuthentication(
-                        new Authentication(Role.TEACHER, response.getData().getFirst().getId(), "T" + response.getData().getFirst().getId()));
+        try (var context = RequestContext.open("/teacher/create", res)) {
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.TEACHER));
+            if (auth != null) return auth;
+
+            try {
+                Teacher instance = Utils.getGson().fromJson(new String((byte[]) req.getContent().getData()), Teacher.class);
+                ResponseModel<Teacher> response = CommonService.create(Teacher.class, TeacherService.class, instance);
+                if (response.isSuccess()) {
+                    AuthenticationService.addAuthentication(
+                            new Authentication(Role.TEACHER, response.getData().getFirst().getId(), "T" + response.getData().getFirst().getId()));
+                }
+                return res.setContent(response.parse());
+            } catch (Exception e) {
+                logger.error("Request failed", e);
+                return res.setContent(new ResponseModel<Teacher>().setError(e.getMessage()).parse());
+            }
+        }
+    }
+
+    @POST("/import")
+    @ExpectContent("text/csv")
+    public static HttpResponse importCsv(HttpPostRequest req,
+                                         HttpResponse res) {
+        try (var context = RequestContext.open("/teacher/import", res)) {
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.TEACHER), Priority.LOW);
+            if (auth != null) return auth;
+
+            try (var body = RequestBody.of(req);
+                 var reader = body.getReader()) {
+                var importModel = new ImportModel<Teacher>()
+                        .setUniqueFields(Set.of("nic", "email", "contactNo"))
+                        .setProvisioner(instances -> AuthenticationService.defaultAuthentications(Role.TEACHER, instances));
+                return res.setContent(CommonService.importCsv(Teacher.class, TeacherService.class, reader, importModel).parse());
+            } catch (Exception e) {
+                logger.error("Request failed", e);
+                return res.setContent(new ImportResult().setError(e.getMessage()).parse());
             }
-            return res.setContent(response.parse());
-        } catch (Exception e) {
-            e.printStackTrace(System.err);
-            return res.setContent(new ResponseModel<Teacher>().setError(e.getMessage()).parse());
         }
     }
 
@@ -84,37 +145,41 @@ public final class TeacherEndpoint {
     @ExpectContent("application/json")
     public static HttpResponse update(HttpPutRequest req,
                                       HttpResponse res) {
-        var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.TEACHER));
-        if (auth != null) return auth;
-
-        try {
-            Teacher instance = Utils.getGson().fromJson(new String((byte[]) req.getContent().getData()), Teacher.class);
-            return res.setContent(CommonService.update(Teacher.class, TeacherService.class, instance).parse());
-        } catch (Exception e) {
-            e.printStackTrace(System.err);
-            return res.setContent(new ResponseModel<Teacher>().setError(e.getMessage()).parse());
+        try (var context = RequestContext.open("/teacher/update", res)) {
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.TEACHER));
+            if (auth != null) return auth;
+
+            try {
+                Teacher instance = Utils.getGson().fromJson(new String((byte[]) req.getContent().getData()), Teacher.class);
+                return res.setContent(CommonService.update(Teacher.class, TeacherService.class, instance).parse());
+            } catch (Exception e) {
+                logger.error("Request failed", e);
+                return res.setContent(new ResponseModel<Teacher>().setError(e.getMessage()).parse());
+            }
         }
     }
 
     @DELETE("/delete")
     public static HttpResponse delete(HttpDeleteRequest req,
                                       HttpResponse res) {
-        var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.TEACHER));
-        if (auth != null) return auth;
+        try (var context = RequestContext.open("/teacher/delete", res)) {
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN), Set.of(AccessLevel.SUPERUSER, AccessLevel.TEACHER));
+            if (auth != null) return auth;
 
-        if (req.getParameters() == null || !req.getParameters().containsKey("id")) {
-            return res.setContent(new ResponseModel<Teacher>().setError("Required parameter 'id' is missing").parse());
-        }
-        try {
-            BigInteger id = new BigInteger(req.getParameters().get("id"));
-            ResponseModel<Teacher> response = CommonService.delete(Teacher.class, id);
-            if (response.isSuccess()) {
-                AuthenticationService.deleteAuthentication(Role.TEACHER, id);
+            if (req.getParameters() == null || !req.getParameters().containsKey("id")) {
+                return res.setContent(new ResponseModel<Teacher>().setError("Required parameter 'id' is missing").parse());
+            }
+            try {
+                BigInteger id = new BigInteger(req.getParameters().get("id"));
+                ResponseModel<Teacher> response = CommonService.delete(Teacher.class, id);
+                if (response.isSuccess()) {
+                    AuthenticationService.deleteAuthentication(Role.TEACHER, id);
+                }
+                return res.setContent(response.parse());
+            } catch (Exception e) {
+                logger.error("Request failed", e);
+                return res.setContent(new ResponseModel<Teacher>().setError(e.getMessage()).parse());
             }
-            return res.setContent(response.parse());
-        } catch (Exception e) {
-            e.printStackTrace(System.err);
-            return res.setContent(new ResponseModel<Teacher>().setError(e.getMessage()).parse());
         }
     }
 
@@ -122,28 +187,34 @@ public final class TeacherEndpoint {
     @ExpectContent("application/x-www-form-urlencoded")
     public static HttpResponse resetPassword(HttpPatchRequest req,
                                              HttpResponse res) {
-        var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN, Role.TEACHER),
-                req.getParameters() == null ? null : Set.of(AccessLevel.SUPERUSER, AccessLevel.TEACHER));
-        if (auth != null) return auth;
-        return res.setContent(AuthenticationService.updateAuthentication(req, Role.TEACHER, req.getParameters() == null).parse());
+        try (var context = RequestContext.open("/teacher/resetPassword", res)) {
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN, Role.TEACHER),
+                    req.getParameters() == null ? null : Set.of(AccessLevel.SUPERUSER, AccessLevel.TEACHER));
+            if (auth != null) return auth;
+            return res.setContent(AuthenticationService.updateAuthentication(req, Role.TEACHER, req.getParameters() == null).parse());
+        }
     }
 
     @PATCH("/logout")
     @ExpectContent("none")
     public static HttpResponse logout(HttpPatchRequest req,
                                       HttpResponse res) {
-        var isSelf = req.getParameters() == null || (req.getParameters().containsKey("userId") && req.getParameters().get("userId").equals("0"));
-        var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN, Role.TEACHER),
-                isSelf ? null : Set.of(AccessLevel.SUPERUSER, AccessLevel.TEACHER));
-        if (auth != null) return auth;
-        return res.setContent(DeviceService.removeDevice(req, Role.TEACHER, isSelf).parse());
+        try (var context = RequestContext.open("/teacher/logout", res)) {
+            var isSelf = req.getParameters() == null || (req.getParameters().containsKey("userId") && req.getParameters().get("userId").equals("0"));
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.ADMIN, Role.TEACHER),
+                    isSelf ? null : Set.of(AccessLevel.SUPERUSER, AccessLevel.TEACHER));
+            if (auth != null) return auth;
+            return res.setContent(DeviceService.removeDevice(req, Role.TEACHER, isSelf).parse());
+        }
     }
 
     @GET("/devices")
     public static HttpResponse getDevices(HttpGetRequest req,
                                           HttpResponse res) {
-        var auth = AuthenticationService.authenticate(req, Set.of(Role.TEACHER), null);
-        if (auth != null) return auth;
-        return res.setContent(new Content("application/json", DeviceService.getDevices(req)));
+        try (var context = RequestContext.open("/teacher/devices", res)) {
+            var auth = AuthenticationService.authenticate(req, Set.of(Role.TEACHER), null);
+            if (auth != null) return auth;
+            return res.setContent(new Content("application/json", DeviceService.getDevices(req)));
+        }
     }
 }
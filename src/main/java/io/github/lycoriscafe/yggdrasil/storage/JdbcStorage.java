@@ -0,0 +1,586 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.storage;
+
+import io.github.lycoriscafe.yggdrasil.authentication.Authentication;
+import io.github.lycoriscafe.yggdrasil.authentication.Device;
+import io.github.lycoriscafe.yggdrasil.authentication.Role;
+import io.github.lycoriscafe.yggdrasil.authentication.TokenType;
+import io.github.lycoriscafe.yggdrasil.commons.Entity;
+import io.github.lycoriscafe.yggdrasil.commons.EntityService;
+import io.github.lycoriscafe.yggdrasil.commons.ImportModel;
+import io.github.lycoriscafe.yggdrasil.commons.SearchModel;
+import io.github.lycoriscafe.yggdrasil.configuration.ReplicaRouter;
+import io.github.lycoriscafe.yggdrasil.configuration.Utils;
+import io.github.lycoriscafe.yggdrasil.configuration.Workload;
+import io.github.lycoriscafe.yggdrasil.metrics.OperationTimer;
+import io.github.lycoriscafe.yggdrasil.metrics.RequestContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public final class JdbcStorage implements Storage {
+    private static final Logger logger = LoggerFactory.getLogger(JdbcStorage.class);
+    static final String SELECT_AUTHENTICATION = "SELECT * FROM authentication WHERE role = ? AND userId = ?";
+    static final String SELECT_USER_DEVICES = "SELECT * FROM device WHERE role = ? AND userid = ?";
+
+    @Override
+    public <T extends Entity, U extends EntityService<T>> BigInteger insert(Class<T> entity,
+                                                                            Class<U> entityService,
+                                                                            T instance,
+                                                                            OperationTimer timer) throws SQLException, ReflectiveOperationException {
+        String query = insertQuery(entity);
+        timer.setSql(query);
+        try (var connection = Utils.getDatabaseConnection(Workload.WRITE);
+             var statement = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+            Method method = entityService.getMethod("toDatabase", PreparedStatement.class, entity, boolean.class);
+            method.invoke(null, statement, instance, false);
+            int rows = statement.executeUpdate();
+            timer.setRows(rows);
+            if (rows != 1) {
+                connection.rollback();
+                return null;
+            }
+            try (var resultSet = statement.getGeneratedKeys()) {
+                if (!resultSet.next()) {
+                    connection.rollback();
+                    return null;
+                }
+                connection.commit();
+                return new BigInteger(resultSet.getString(1));
+            }
+        }
+    }
+
+    @Override
+    public <T extends Entity, U extends EntityService<T>> Page<T> select(Class<T> entity,
+                                                                         Class<U> entityService,
+                                                                         SearchModel searchModel,
+                                                                         boolean primary,
+                                                                         OperationTimer timer) throws SQLException, ReflectiveOperationException {
+        String[] queries = pageQueries(entity, searchModel);
+        timer.setSql(queries[0]);
+
+        try (var connection = ReplicaRouter.getConnection(Workload.READ, primary)) {
+            var page = page(connection, entity, entityService, searchModel, queries);
+            timer.setRows(page.data().size());
+            connection.commit();
+            return page;
+        }
+    }
+
+    static <T extends Entity, U extends EntityService<T>> Page<T> page(Connection connection,
+                                                                       Class<T> entity,
+                                                                       Class<U> entityService,
+                                                                       SearchModel searchModel,
+                                                                       String[] queries) throws SQLException, ReflectiveOperationException {
+        try (var statement = connection.prepareStatement(queries[0]);
+             var generableResultsStatement = connection.prepareStatement(queries[1]);
+             var resultsOffsetStatement = connection.prepareStatement(queries[2])) {
+            int nextParamIndex = bindFilter(searchModel, statement, generableResultsStatement, resultsOffsetStatement);
+            statement.setString(nextParamIndex, searchModel.getResultsFrom().toString());
+            resultsOffsetStatement.setString(nextParamIndex++, searchModel.getResultsFrom().toString());
+            statement.setString(nextParamIndex, searchModel.getResultsOffset().toString());
+            resultsOffsetStatement.setString(nextParamIndex, searchModel.getResultsOffset().toString());
+
+            try (var resultSet = statement.executeQuery();
+                 var generableResultsResultSet = generableResultsStatement.executeQuery();
+                 var resultsOffsetResultSet = resultsOffsetStatement.executeQuery()) {
+                long mapStart = System.nanoTime();
+                List<T> data = mapRows(entity, entityService, resultSet);
+                RequestContext.timing("map", System.nanoTime() - mapStart, entity.getSimpleName());
+
+                if (!generableResultsResultSet.next() || !resultsOffsetResultSet.next()) {
+                    throw new SQLException("COUNT(1) returned no rows");
+                }
+                return new Page<>(data, new BigInteger(generableResultsResultSet.getString(1)),
+                        new BigInteger(resultsOffsetResultSet.getString(1)));
+            }
+        }
+    }
+
+    @Override
+    public <T extends Entity, U extends EntityService<T>> long scan(Class<T> entity,
+                                                                    Class<U> entityService,
+                                                                    SearchModel searchModel,
+                                                                    boolean primary,
+                                                                    RowSink<T> sink,
+                                                                    OperationTimer timer) throws SQLException, ReflectiveOperationException, IOException {
+        String query = selectQuery(entity, searchModel);
+        timer.setSql(query);
+        long rows = 0L;
+        // rows are streamed from a forward-only cursor instead of being buffered by the driver
+        try (var connection = ReplicaRouter.getConnection(Workload.BULK, primary);
+             var statement = connection.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            connection.setReadOnly(true);
+            statement.setFetchSize(Integer.MIN_VALUE);
+            bindFilter(searchModel, statement);
+            Method method = entityService.getMethod("fromDatabase", ResultSet.class, entity);
+            try (var resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    T instance = entity.getConstructor().newInstance();
+                    method.invoke(null, resultSet, instance);
+                    try {
+                        sink.accept(instance);
+                    } catch (IOException e) {
+                        // closing a streaming result set reads every remaining row, the server has to stop sending them first
+                        cancel(statement);
+                        throw e;
+                    }
+                    rows++;
+                }
+            }
+            connection.commit();
+        } finally {
+            timer.setRows(rows);
+        }
+        return rows;
+    }
+
+    private static void cancel(Statement statement) {
+        try {
+            statement.cancel();
+        } catch (SQLException e) {
+            logger.warn("Cancelling a statement failed", e);
+        }
+    }
+
+    @Override
+    public <T extends Entity, U extends EntityService<T>> int update(Class<T> entity,
+                                                                     Class<U> entityService,
+                                                                     T instance,
+                                                                     OperationTimer timer) throws SQLException, ReflectiveOperationException {
+        String query = updateQuery(entity);
+        timer.setSql(query);
+
+        try (var connection = Utils.getDatabaseConnection(Workload.WRITE);
+             var statement = connection.prepareStatement(query)) {
+            Method method = entityService.getMethod("toDatabase", PreparedStatement.class, entity, boolean.class);
+            method.invoke(null, statement, instance, true);
+            int rows = statement.executeUpdate();
+            timer.setRows(rows);
+            if (rows != 1) {
+                connection.rollback();
+                return rows;
+            }
+            connection.commit();
+            return rows;
+        }
+    }
+
+    @Override
+    public int delete(Class<? extends Entity> entity,
+                      BigInteger id,
+                      OperationTimer timer) throws SQLException {
+        String query = "DELETE FROM " + entity.getSimpleName() + " WHERE id = ?";
+        timer.setSql(query);
+        try (var connection = Utils.getDatabaseConnection(Workload.WRITE);
+             var statement = connection.prepareStatement(query)) {
+            statement.setString(1, id.toString());
+            int rows = statement.executeUpdate();
+            timer.setRows(rows);
+            if (rows != 1) {
+                connection.rollback();
+                return rows;
+            }
+            connection.commit();
+            return rows;
+        }
+    }
+
+    @Override
+    public Set<String> findExisting(Class<? extends Entity> entity,
+                                    String column,
+                                    List<String> values) throws SQLException {
+        Set<String> existing = new HashSet<>();
+        if (values.isEmpty()) return existing;
+
+        StringBuilder query = new StringBuilder("SELECT ").append(column).append(" FROM ").append(entity.getSimpleName())
+                .append(" WHERE ").append(column).append(" IN (");
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) query.append(", ");
+            query.append("?");
+        }
+        query.append(")");
+        try (var connection = Utils.getDatabaseConnection(Workload.BULK);
+             var statement = connection.prepareStatement(query.toString())) {
+            for (int i = 0; i < values.size(); i++) statement.setString(i + 1, values.get(i));
+            try (var resultSet = statement.executeQuery()) {
+                while (resultSet.next()) existing.add(resultSet.getString(1));
+            }
+            connection.commit();
+        }
+        return existing;
+    }
+
+    @Override
+    public <T extends Entity, U extends EntityService<T>> void insertAll(Class<T> entity,
+                                                                         Class<U> entityService,
+                                                                         List<T> instances,
+                                                                         ImportModel.Provisioner<T> provisioner) throws SQLException, ReflectiveOperationException {
+        Method method = entityService.getMethod("toDatabase", PreparedStatement.class, entity, boolean.class);
+        Field idField = entity.getDeclaredField("id");
+        idField.setAccessible(true);
+        try (var connection = Utils.getDatabaseConnection(Workload.BULK)) {
+            try (var statement = connection.prepareStatement(insertQuery(entity), Statement.RETURN_GENERATED_KEYS)) {
+                for (T instance : instances) {
+                    method.invoke(null, statement, instance, false);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                try (var resultSet = statement.getGeneratedKeys()) {
+                    for (T instance : instances) {
+                        if (!resultSet.next()) throw new SQLException("Generated key missing");
+                        idField.set(instance, new BigInteger(resultSet.getString(1)));
+                    }
+                }
+                if (provisioner != null) insertAuthentications(connection, provisioner.provision(instances));
+                connection.commit();
+            } catch (SQLException | ReflectiveOperationException | RuntimeException e) {
+                connection.rollback();
+                for (T instance : instances) idField.set(instance, null);
+                throw e;
+            }
+        }
+    }
+
+    private static void insertAuthentications(Connection connection,
+                                              List<Authentication> authentications) throws SQLException {
+        if (authentications.isEmpty()) return;
+        try (var statement = connection.prepareStatement("INSERT INTO authentication VALUES(?, ?, ?)")) {
+            for (Authentication authentication : authentications) {
+                statement.setString(1, authentication.getRole().toString());
+                statement.setString(2, authentication.getUserId().toString());
+                statement.setString(3, authentication.getPassword());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    @Override
+    public Authentication getAuthentication(Role role,
+                                            BigInteger userId) throws SQLException {
+        Authentication auth;
+        try (var connection = Utils.getDatabaseConnection(Workload.AUTH);
+             var statement = connection.prepareStatement(SELECT_AUTHENTICATION)) {
+            statement.setString(1, role.toString());
+            statement.setString(2, userId.toString());
+            auth = deserializeAuthentication(statement.executeQuery());
+            connection.commit();
+        }
+        return auth;
+    }
+
+    @Override
+    public boolean addAuthentication(Authentication authentication) throws SQLException {
+        try (var connection = Utils.getDatabaseConnection(Workload.AUTH);
+             var statement = connection.prepareStatement("INSERT INTO authentication VALUES(?, ?, ?)")) {
+            statement.setString(1, authentication.getRole().toString());
+            statement.setString(2, authentication.getUserId().toString());
+            statement.setString(3, authentication.getPassword());
+            return commitIfSingleRow(connection, statement.executeUpdate());
+        }
+    }
+
+    @Override
+    public boolean updateAuthentication(Authentication authentication) throws SQLException {
+        try (var connection = Utils.getDatabaseConnection(Workload.AUTH);
+             var statement = connection.prepareStatement("UPDATE authentication SET password = ? WHERE role = ? AND userId = ?")) {
+            statement.setString(1, authentication.getPassword());
+            statement.setString(2, authentication.getRole().toString());
+            statement.setString(3, authentication.getUserId().toString());
+            return commitIfSingleRow(connection, statement.executeUpdate());
+        }
+    }
+
+    @Override
+    public boolean deleteAuthentication(Role role,
+                                        BigInteger userId) throws SQLException {
+        try (var connection = Utils.getDatabaseConnection(Workload.AUTH);
+             var statement = connection.prepareStatement("DELETE FROM authentication WHERE role = ? AND userId = ?")) {
+            statement.setString(1, role.toString());
+            statement.setString(2, userId.toString());
+            return commitIfSingleRow(connection, statement.executeUpdate());
+        }
+    }
+
+    @Override
+    public List<Device> getDevices(Role role,
+                                   BigInteger userId) throws SQLException {
+        List<Device> devices;
+        try (var connection = Utils.getDatabaseConnection(Workload.AUTH);
+             var statement = connection.prepareStatement(SELECT_USER_DEVICES)) {
+            statement.setString(1, role.toString());
+            statement.setString(2, userId.toString());
+            devices = deserializeDevices(statement.executeQuery());
+            connection.commit();
+        }
+        return devices;
+    }
+
+    @Override
+    public List<Device> getDevices(TokenType tokenType,
+                                   String token) throws SQLException {
+        List<Device> devices;
+        try (var connection = Utils.getDatabaseConnection(Workload.AUTH);
+             var statement = connection.prepareStatement(selectDevicesQuery(tokenType))) {
+            statement.setString(1, token);
+            devices = deserializeDevices(statement.executeQuery());
+            connection.commit();
+        }
+        return devices;
+    }
+
+    // the authentication row is locked first, so concurrent logins of one user queue up instead of racing for the last slot
+    @Override
+    public boolean addDevice(Device device,
+                             int maxDevices) throws SQLException {
+        try (var connection = Utils.getDatabaseConnection(Workload.AUTH)) {
+            try (var statement = connection.prepareStatement("SELECT userId FROM authentication WHERE role = ? AND userId = ? FOR UPDATE")) {
+                statement.setString(1, device.getRole().toString());
+                statement.setString(2, device.getUserId().toString());
+                try (var resultSet = statement.executeQuery()) {
+                    if (!resultSet.next()) {
+                        connection.rollback();
+                        return false;
+                    }
+                }
+            }
+
+            // ids grow with every login, so the oldest devices come first like in the in-memory storage
+            List<String> refreshTokens = new ArrayList<>();
+            try (var statement = connection.prepareStatement("SELECT refreshToken FROM device WHERE role = ? AND userId = ? ORDER BY id FOR UPDATE")) {
+                statement.setString(1, device.getRole().toString());
+                statement.setString(2, device.getUserId().toString());
+                try (var resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) refreshTokens.add(resultSet.getString("refreshToken"));
+                }
+            }
+            int excess = refreshTokens.size() - maxDevices + 1;
+            if (excess > 0) {
+                try (var statement = connection.prepareStatement("DELETE FROM device WHERE refreshToken = BINARY ?")) {
+                    for (int i = 0; i < excess; i++) {
+                        statement.setString(1, refreshTokens.get(i));
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+            }
+
+            try (var statement = connection.prepareStatement("INSERT INTO device (role, userId, deviceName, accessToken, expires, refreshToken) " +
+                    "VALUES (?, ?, ?, ?, ?, ?)")) {
+                statement.setString(1, device.getRole().toString());
+                statement.setString(2, device.getUserId().toString());
+                statement.setString(3, device.getDeviceName());
+                statement.setString(4, device.getAccessToken());
+                statement.setLong(5, device.getExpires());
+                statement.setString(6, device.getRefreshToken());
+                return commitIfSingleRow(connection, statement.executeUpdate());
+            }
+        }
+    }
+
+    @Override
+    public int removeDevices(Role role,
+                             BigInteger userId) throws SQLException {
+        try (var connection = Utils.getDatabaseConnection(Workload.AUTH);
+             var statement = connection.prepareStatement("DELETE FROM device WHERE role = ? AND userid = ?")) {
+            statement.setString(1, role.toString());
+            statement.setString(2, userId.toString());
+            int rows = statement.executeUpdate();
+            connection.commit();
+            return rows;
+        }
+    }
+
+    @Override
+    public boolean removeDevice(TokenType tokenType,
+                                String token) throws SQLException {
+        try (var connection = Utils.getDatabaseConnection(Workload.AUTH);
+             var statement = connection.prepareStatement("DELETE FROM device WHERE " + tokenType + " = BINARY ?")) {
+            statement.setString(1, token);
+            return commitIfSingleRow(connection, statement.executeUpdate());
+        }
+    }
+
+    @Override
+    public boolean updateDevice(Device device) throws SQLException {
+        try (var connection = Utils.getDatabaseConnection(Workload.AUTH);
+             var statement = connection.prepareStatement("UPDATE device SET accessToken = ?, expires = ? WHERE refreshToken = BINARY ?")) {
+            statement.setString(1, device.getAccessToken());
+            statement.setLong(2, device.getExpires());
+            statement.setString(3, device.getRefreshToken());
+            return commitIfSingleRow(connection, statement.executeUpdate());
+        }
+    }
+
+    private static boolean commitIfSingleRow(Connection connection,
+                                             int rows) throws SQLException {
+        if (rows != 1) {
+            connection.rollback();
+            return false;
+        }
+        connection.commit();
+        return true;
+    }
+
+    public static <T extends Entity, U extends EntityService<T>> List<T> mapRows(Class<T> entity,
+                                                                                 Class<U> entityService,
+                                                                                 ResultSet resultSet) throws ReflectiveOperationException, SQLException {
+        Method method = entityService.getMethod("fromDatabase", ResultSet.class, entity);
+        List<T> data = new ArrayList<>();
+        while (resultSet.next()) {
+            T instance = entity.getConstructor().newInstance();
+            method.invoke(null, resultSet, instance);
+            data.add(instance);
+        }
+        return data;
+    }
+
+    static String selectQuery(Class<? extends Entity> entity,
+                              SearchModel searchModel) {
+        StringBuilder query = new StringBuilder("SELECT * FROM ").append(entity.getSimpleName());
+        appendFilter(query, searchModel);
+        return query.toString();
+    }
+
+    // the page, the count of all matches and the count of the page
+    static String[] pageQueries(Class<? extends Entity> entity,
+                                SearchModel searchModel) {
+        String query = selectQuery(entity, searchModel);
+        String page = query + " LIMIT ?, ?";
+        return new String[]{page, query.replaceFirst("\\*", "COUNT(1)"), "SELECT COUNT(1) FROM (" + page + ") AS resultsOffset"};
+    }
+
+    static String updateQuery(Class<? extends Entity> entity) {
+        StringBuilder query = new StringBuilder("UPDATE ").append(entity.getSimpleName()).append(" SET ");
+        for (int i = 0; i < entity.getDeclaredFields().length; i++) {
+            if (i > 1) query.append(", ");
+            if (i == 0) continue;
+            query.append(entity.getDeclaredFields()[i].getName()).append(" = ?");
+        }
+        query.append(" WHERE id = ?");
+        return query.toString();
+    }
+
+    static String insertQuery(Class<? extends Entity> entity) {
+        StringBuilder query = new StringBuilder("INSERT INTO ").append(entity.getSimpleName()).append(" (");
+        for (int i = 0; i < entity.getDeclaredFields().length; i++) {
+            if (i > 0) query.append(", ");
+            query.append(entity.getDeclaredFields()[i].getName());
+        }
+        query.append(") VALUES (");
+        for (int i = 0; i < entity.getDeclaredFields().length; i++) {
+            if (i > 0) query.append(", ");
+            query.append("?");
+        }
+        query.append(")");
+        return query.toString();
+    }
+
+    private static void appendFilter(StringBuilder query,
+                                     SearchModel searchModel) {
+        if (searchModel.getSearchBy() != null) {
+            query.append(" WHERE ");
+            List<String> fields = searchModel.getSearchBy().keySet().stream().toList();
+            for (int i = 0; i < fields.size(); i++) {
+                if (i > 0) query.append(" AND ");
+                List<String> values = searchModel.getSearchBy().get(fields.get(i)).keySet().stream().toList();
+                for (int j = 0; j < values.size(); j++) {
+                    if (j > 0) query.append(" OR ");
+                    query.append(fields.get(i)).append(" LIKE ")
+                            .append(searchModel.getSearchBy().get(fields.get(i)).get(values.get(j)) ? " BINARY " : "")
+                            .append("?");
+                }
+            }
+        }
+        if (searchModel.getOrderBy() != null) {
+            query.append(" ORDER BY ");
+            for (int i = 0; i < searchModel.getOrderBy().size(); i++) {
+                if (i > 0) query.append(", ");
+                query.append(searchModel.getOrderBy().get(i));
+            }
+        }
+        if (searchModel.getAscending() != null) {
+            query.append(searchModel.getAscending() ? " ASC" : " DESC");
+        }
+    }
+
+    private static int bindFilter(SearchModel searchModel,
+                                  PreparedStatement... statements) throws SQLException {
+        int nextParamIndex = 1;
+        if (searchModel.getSearchBy() != null) {
+            for (String field : searchModel.getSearchBy().keySet()) {
+                for (String value : searchModel.getSearchBy().get(field).keySet()) {
+                    for (PreparedStatement statement : statements) statement.setString(nextParamIndex, value);
+                    nextParamIndex++;
+                }
+            }
+        }
+        return nextParamIndex;
+    }
+
+    static String selectDevicesQuery(TokenType tokenType) {
+        return "SELECT * FROM device WHERE " + tokenType + " = BINARY ?";
+    }
+
+    static List<Device> deserializeDevices(ResultSet resultSet) throws SQLException {
+        List<Device> devices = new ArrayList<>();
+        try (resultSet) {
+            while (resultSet.next()) {
+                devices.add(new Device(
+                        Role.valueOf(resultSet.getString("role")),
+                        new BigInteger(resultSet.getString("userId")),
+                        resultSet.getString("deviceName"),
+                        resultSet.getString("accessToken"),
+                        resultSet.getLong("expires"),
+                        resultSet.getString("refreshToken")
+                ).setLastLogin(LocalDateTime.parse(resultSet.getString("lastLogin"), Utils.getDateTimeFormatter())));
+            }
+        }
+        return devices;
+    }
+
+    static Authentication deserializeAuthentication(ResultSet resultSet) throws SQLException {
+        Authentication auth = null;
+        try (resultSet) {
+            if (resultSet.next()) {
+                auth = new Authentication(
+                        Role.valueOf(resultSet.getString("role")),
+                        new BigInteger(resultSet.getString("userId")),
+                        resultSet.getString("password")
+                );
+            }
+        }
+        return auth;
+    }
+}
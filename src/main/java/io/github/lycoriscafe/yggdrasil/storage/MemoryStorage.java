@@ -0,0 +1,461 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.storage;
+
+import io.github.lycoriscafe.yggdrasil.authentication.Authentication;
+import io.github.lycoriscafe.yggdrasil.authentication.Device;
+import io.github.lycoriscafe.yggdrasil.authentication.Role;
+import io.github.lycoriscafe.yggdrasil.authentication.TokenType;
+import io.github.lycoriscafe.yggdrasil.commons.Entity;
+import io.github.lycoriscafe.yggdrasil.commons.EntityService;
+import io.github.lycoriscafe.yggdrasil.commons.ImportModel;
+import io.github.lycoriscafe.yggdrasil.commons.SearchModel;
+import io.github.lycoriscafe.yggdrasil.configuration.Utils;
+import io.github.lycoriscafe.yggdrasil.metrics.OperationTimer;
+import io.github.lycoriscafe.yggdrasil.rest.admin.AccessLevel;
+import io.github.lycoriscafe.yggdrasil.rest.admin.Admin;
+import io.github.lycoriscafe.yggdrasil.rest.admin.AdminService;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.math.BigInteger;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static io.github.lycoriscafe.yggdrasil.storage.MemoryTable.IndexDefinition.hash;
+import static io.github.lycoriscafe.yggdrasil.storage.MemoryTable.IndexDefinition.sorted;
+import static io.github.lycoriscafe.yggdrasil.storage.MemoryTable.IndexDefinition.unique;
+
+// a MySQL stand-in for benchmarks and tests: same rows, filters and ordering, but no foreign keys and no durability
+public final class MemoryStorage implements Storage {
+    private static final String SUPERUSER_PASSWORD = "0ah66cwBDYMR1Gft+FRFe4y02jwep3Mmrsx19TLlI+c";
+    // the UNIQUE constraints of database.sql, plus the reference and date columns reads filter on
+    private static final Map<String, List<MemoryTable.IndexDefinition>> INDEXES = Map.ofEntries(
+            Map.entry("classroom", List.of(unique("teacherId"), unique("grade", "name"))),
+            Map.entry("guardian", List.of(unique("nic"))),
+            Map.entry("relief", List.of(unique("timetableId", "date"), hash("teacherId"), sorted("date"))),
+            Map.entry("student", List.of(unique("nic"), hash("guardianId"), hash("classroomId"))),
+            Map.entry("studentattendance", List.of(unique("studentId", "date"), hash("studentId"), sorted("date"))),
+            Map.entry("studentsubjectjoin", List.of(unique("studentId", "subjectId"), hash("studentId"), hash("subjectId"))),
+            Map.entry("subject", List.of(unique("grade", "shortName"), hash("teacherId"))),
+            Map.entry("teacher", List.of(unique("nic"), unique("email"), unique("contactNo"))),
+            Map.entry("teacherattendance", List.of(unique("teacherId", "date"), hash("teacherId"), sorted("date"))),
+            Map.entry("teachersubjectjoin", List.of(unique("teacherId", "subjectId"), hash("teacherId"), hash("subjectId"))),
+            Map.entry("timetable", List.of(hash("teacherId"), hash("subjectId"), hash("classroomId"))));
+
+    private final Map<Class<?>, MemoryTable> tables = new ConcurrentHashMap<>();
+    private final Map<UserKey, String> authentications = new ConcurrentHashMap<>();
+    private final Map<String, DeviceRow> devicesByAccessToken = new ConcurrentHashMap<>();
+    private final Map<String, DeviceRow> devicesByRefreshToken = new ConcurrentHashMap<>();
+    private final Map<UserKey, List<DeviceRow>> devicesByUser = new ConcurrentHashMap<>();
+    // authentication and device writes touch several indexes and cascade into each other
+    private final ReentrantLock accountLock = new ReentrantLock();
+
+    public MemoryStorage() {
+        // the superuser database.sql inserts, password SUPERUSER
+        try {
+            table(Admin.class).insert(toRow(Admin.class, AdminService.class, new Admin().setId(BigInteger.ONE)
+                    .setName("SUPERUSER").setAccessLevel(Set.of(AccessLevel.SUPERUSER)), false));
+            authentications.put(new UserKey(Role.ADMIN, BigInteger.ONE), SUPERUSER_PASSWORD);
+        } catch (SQLException | ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public <T extends Entity, U extends EntityService<T>> BigInteger insert(Class<T> entity,
+                                                                            Class<U> entityService,
+                                                                            T instance,
+                                                                            OperationTimer timer) throws SQLException, ReflectiveOperationException {
+        long id = table(entity).insert(toRow(entity, entityService, instance, false));
+        timer.setRows(1);
+        return BigInteger.valueOf(id);
+    }
+
+    @Override
+    public <T extends Entity, U extends EntityService<T>> Page<T> select(Class<T> entity,
+                                                                         Class<U> entityService,
+                                                                         SearchModel searchModel,
+                                                                         boolean primary,
+                                                                         OperationTimer timer) throws SQLException, ReflectiveOperationException {
+        var table = table(entity);
+        List<Object[]> rows = table.select(searchModel);
+        int from = (int) Math.min(searchModel.getResultsFrom().longValue(), rows.size());
+        int to = (int) Math.min((long) from + searchModel.getResultsOffset().longValue(), rows.size());
+        var resultSet = RowAdapters.cursor(table.getColumns(), table.getTypes(), rows.subList(from, to).iterator());
+        List<T> data = JdbcStorage.mapRows(entity, entityService, resultSet);
+        timer.setRows(data.size());
+        return new Page<>(data, BigInteger.valueOf(rows.size()), BigInteger.valueOf(data.size()));
+    }
+
+    @Override
+    public <T extends Entity, U extends EntityService<T>> long scan(Class<T> entity,
+                                                                    Class<U> entityService,
+                                                                    SearchModel searchModel,
+                                                                    boolean primary,
+                                                                    RowSink<T> sink,
+                                                                    OperationTimer timer) throws SQLException, ReflectiveOperationException, IOException {
+        var table = table(entity);
+        Method method = entityService.getMethod("fromDatabase", ResultSet.class, entity);
+        var resultSet = RowAdapters.cursor(table.getColumns(), table.getTypes(), table.select(searchModel).iterator());
+        long rows = 0L;
+        try {
+            while (resultSet.next()) {
+                T instance = entity.getConstructor().newInstance();
+                method.invoke(null, resultSet, instance);
+                sink.accept(instance);
+                rows++;
+            }
+        } finally {
+            timer.setRows(rows);
+        }
+        return rows;
+    }
+
+    @Override
+    public <T extends Entity, U extends EntityService<T>> int update(Class<T> entity,
+                                                                     Class<U> entityService,
+                                                                     T instance,
+                                                                     OperationTimer timer) throws SQLException, ReflectiveOperationException {
+        int rows = table(entity).update(toRow(entity, entityService, instance, true));
+        timer.setRows(rows);
+        return rows;
+    }
+
+    @Override
+    public int delete(Class<? extends Entity> entity,
+                      BigInteger id,
+                      OperationTimer timer) throws SQLException {
+        int rows = id.bitLength() < Long.SIZE ? table(entity).delete(id.longValue()) : 0;
+        timer.setRows(rows);
+        return rows;
+    }
+
+    @Override
+    public Set<String> findExisting(Class<? extends Entity> entity,
+                                    String column,
+                                    List<String> values) throws SQLException {
+        return table(entity).findExisting(column, values);
+    }
+
+    @Override
+    public <T extends Entity, U extends EntityService<T>> void insertAll(Class<T> entity,
+                                                                         Class<U> entityService,
+                                                                         List<T> instances,
+                                                                         ImportModel.Provisioner<T> provisioner) throws SQLException, ReflectiveOperationException {
+        List<Object[]> rows = new ArrayList<>(instances.size());
+        for (T instance : instances) rows.add(toRow(entity, entityService, instance, false));
+        var table = table(entity);
+        long[] ids = table.insertAll(rows);
+
+        Field idField = entity.getDeclaredField("id");
+        idField.setAccessible(true);
+        for (int i = 0; i < instances.size(); i++) idField.set(instances.get(i), BigInteger.valueOf(ids[i]));
+        if (provisioner == null) return;
+
+        try {
+            accountLock.lock();
+            try {
+                List<Authentication> provisioned = provisioner.provision(instances);
+                Set<UserKey> keys = new HashSet<>();
+                for (Authentication authentication : provisioned) {
+                    var key = new UserKey(authentication.getRole(), authentication.getUserId());
+                    if (!keys.add(key) || authentications.containsKey(key)) throw duplicate(key);
+                }
+                for (Authentication authentication : provisioned) {
+                    authentications.put(new UserKey(authentication.getRole(), authentication.getUserId()), authentication.getPassword());
+                }
+            } finally {
+                accountLock.unlock();
+            }
+        } catch (SQLException | RuntimeException e) {
+            table.deleteAll(ids);
+            for (T instance : instances) idField.set(instance, null);
+            throw e;
+        }
+    }
+
+    @Override
+    public Authentication getAuthentication(Role role,
+                                            BigInteger userId) {
+        String password = authentications.get(new UserKey(role, userId));
+        return password == null ? null : new Authentication(role, userId, password);
+    }
+
+    @Override
+    public boolean addAuthentication(Authentication authentication) throws SQLException {
+        var key = new UserKey(authentication.getRole(), authentication.getUserId());
+        accountLock.lock();
+        try {
+            if (authentications.putIfAbsent(key, authentication.getPassword()) != null) throw duplicate(key);
+            return true;
+        } finally {
+            accountLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean updateAuthentication(Authentication authentication) {
+        var key = new UserKey(authentication.getRole(), authentication.getUserId());
+        return authentications.replace(key, authentication.getPassword()) != null;
+    }
+
+    @Override
+    public boolean deleteAuthentication(Role role,
+                                        BigInteger userId) {
+        var key = new UserKey(role, userId);
+        accountLock.lock();
+        try {
+            if (authentications.remove(key) == null) return false;
+            // ON DELETE CASCADE of device
+            removeDevices(key);
+            return true;
+        } finally {
+            accountLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Device> getDevices(Role role,
+                                   BigInteger userId) {
+        List<Device> devices = new ArrayList<>();
+        for (DeviceRow row : devicesByUser.getOrDefault(new UserKey(role, userId), List.of())) devices.add(row.toDevice());
+        return devices;
+    }
+
+    @Override
+    public List<Device> getDevices(TokenType tokenType,
+                                   String token) {
+        DeviceRow row = devices(tokenType).get(token);
+        return row == null ? new ArrayList<>() : new ArrayList<>(List.of(row.toDevice()));
+    }
+
+    @Override
+    public boolean addDevice(Device device,
+                             int maxDevices) throws SQLException {
+        var key = new UserKey(device.getRole(), device.getUserId());
+        var row = new DeviceRow(key, device.getDeviceName(), device.getAccessToken(), device.getExpires(), device.getRefreshToken(), now());
+        accountLock.lock();
+        try {
+            if (!authentications.containsKey(key)) return false;
+            if (devicesByAccessToken.containsKey(row.accessToken())) {
+                throw new SQLIntegrityConstraintViolationException("Duplicate entry for key 'device.accessToken'");
+            }
+            if (devicesByRefreshToken.containsKey(row.refreshToken())) {
+                throw new SQLIntegrityConstraintViolationException("Duplicate entry for key 'device.refreshToken'");
+            }
+            List<DeviceRow> existing = devicesByUser.getOrDefault(key, List.of());
+            for (int i = 0; i <= existing.size() - maxDevices; i++) unindex(existing.get(i));
+            index(row);
+            return true;
+        } finally {
+            accountLock.unlock();
+        }
+    }
+
+    @Override
+    public int removeDevices(Role role,
+                             BigInteger userId) {
+        accountLock.lock();
+        try {
+            return removeDevices(new UserKey(role, userId));
+        } finally {
+            accountLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean removeDevice(TokenType tokenType,
+                                String token) {
+        accountLock.lock();
+        try {
+            DeviceRow row = devices(tokenType).get(token);
+            if (row == null) return false;
+            unindex(row);
+            return true;
+        } finally {
+            accountLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean updateDevice(Device device) throws SQLException {
+        accountLock.lock();
+        try {
+            DeviceRow old = devicesByRefreshToken.get(device.getRefreshToken());
+            if (old == null) return false;
+            var row = new DeviceRow(old.user(), old.deviceName(), device.getAccessToken(), device.getExpires(), old.refreshToken(), now());
+            var holder = devicesByAccessToken.get(row.accessToken());
+            if (holder != null && holder != old) {
+                throw new SQLIntegrityConstraintViolationException("Duplicate entry for key 'device.accessToken'");
+            }
+            devicesByAccessToken.remove(old.accessToken(), old);
+            index(row, old);
+            return true;
+        } finally {
+            accountLock.unlock();
+        }
+    }
+
+    private Map<String, DeviceRow> devices(TokenType tokenType) {
+        return tokenType == TokenType.ACCESS_TOKEN ? devicesByAccessToken : devicesByRefreshToken;
+    }
+
+    private int removeDevices(UserKey key) {
+        List<DeviceRow> rows = devicesByUser.remove(key);
+        if (rows == null) return 0;
+        for (DeviceRow row : rows) {
+            devicesByAccessToken.remove(row.accessToken());
+            devicesByRefreshToken.remove(row.refreshToken());
+        }
+        return rows.size();
+    }
+
+    // the per-user lists are replaced, never mutated, so readers can iterate them without the lock
+    private void index(DeviceRow row) {
+        devicesByAccessToken.put(row.accessToken(), row);
+        devicesByRefreshToken.put(row.refreshToken(), row);
+        List<DeviceRow> rows = new ArrayList<>(devicesByUser.getOrDefault(row.user(), List.of()));
+        rows.add(row);
+        devicesByUser.put(row.user(), List.copyOf(rows));
+    }
+
+    // an updated device keeps its place among the user's devices
+    private void index(DeviceRow row,
+                       DeviceRow replaced) {
+        devicesByAccessToken.put(row.accessToken(), row);
+        devicesByRefreshToken.put(row.refreshToken(), row);
+        List<DeviceRow> rows = new ArrayList<>(devicesByUser.getOrDefault(row.user(), List.of()));
+        int position = rows.indexOf(replaced);
+        if (position < 0) rows.add(row);
+        else rows.set(position, row);
+        devicesByUser.put(row.user(), List.copyOf(rows));
+    }
+
+    private void unindex(DeviceRow row) {
+        devicesByAccessToken.remove(row.accessToken(), row);
+        devicesByRefreshToken.remove(row.refreshToken(), row);
+        List<DeviceRow> rows = new ArrayList<>(devicesByUser.getOrDefault(row.user(), List.of()));
+        rows.remove(row);
+        if (rows.isEmpty()) devicesByUser.remove(row.user());
+        else devicesByUser.put(row.user(), List.copyOf(rows));
+    }
+
+    private static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    private static SQLIntegrityConstraintViolationException duplicate(UserKey key) {
+        return new SQLIntegrityConstraintViolationException("Duplicate entry '" + key.role() + "-" + key.userId()
+                + "' for key 'authentication.PRIMARY'");
+    }
+
+    private static <T extends Entity, U extends EntityService<T>> Object[] toRow(Class<T> entity,
+                                                                                  Class<U> entityService,
+                                                                                  T instance,
+                                                                                  boolean isUpdate) throws SQLException, ReflectiveOperationException {
+        int columns = columnNames(entity).length;
+        var capture = RowAdapters.capture(columns);
+        Method method = entityService.getMethod("toDatabase", PreparedStatement.class, entity, boolean.class);
+        try {
+            method.invoke(null, capture.statement(), instance, isUpdate);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof SQLException sqlException) throw sqlException;
+            throw e;
+        }
+        Object[] values = capture.values();
+        if (!isUpdate) return values;
+        // an update binds the id last, after the other columns
+        Object[] row = new Object[columns];
+        row[0] = values[columns - 1];
+        System.arraycopy(values, 0, row, 1, columns - 1);
+        return row;
+    }
+
+    private MemoryTable table(Class<? extends Entity> entity) {
+        return tables.computeIfAbsent(entity, key -> {
+            String name = entity.getSimpleName().toLowerCase();
+            String[] columns = columnNames(entity);
+            Class<?>[] types = Arrays.stream(entity.getDeclaredFields()).map(Field::getType).toArray(Class<?>[]::new);
+            return new MemoryTable(name, columns, types, INDEXES.getOrDefault(name, List.of()), trigger(name, columns));
+        });
+    }
+
+    // the columns in the order insertQuery lists them
+    private static String[] columnNames(Class<? extends Entity> entity) {
+        Field[] fields = entity.getDeclaredFields();
+        String[] columns = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) columns[i] = fields[i].getName();
+        return columns;
+    }
+
+    // the BEFORE INSERT and BEFORE UPDATE triggers of database.sql
+    private static MemoryTable.Trigger trigger(String table,
+                                               String[] columns) {
+        List<String> names = Arrays.asList(columns);
+        return switch (table) {
+            case "studentattendance", "teacherattendance" -> new MemoryTable.Trigger() {
+                @Override
+                public void beforeInsert(Object[] row) {
+                    row[names.indexOf("date")] = LocalDate.now().format(Utils.getDateFormatter());
+                    row[names.indexOf("time")] = LocalTime.now().format(Utils.getTimeFormatter());
+                }
+            };
+            case "notification" -> new MemoryTable.Trigger() {
+                @Override
+                public void beforeInsert(Object[] row) {
+                    String now = now().format(Utils.getDateTimeFormatter());
+                    row[names.indexOf("createTimestamp")] = now;
+                    row[names.indexOf("updateTimestamp")] = now;
+                }
+
+                @Override
+                public void beforeUpdate(Object[] old,
+                                         Object[] row) {
+                    row[names.indexOf("createTimestamp")] = old[names.indexOf("createTimestamp")];
+                    row[names.indexOf("updateTimestamp")] = now().format(Utils.getDateTimeFormatter());
+                }
+            };
+            default -> MemoryTable.Trigger.NONE;
+        };
+    }
+
+    private record UserKey(Role role,
+                           BigInteger userId) {}
+
+    private record DeviceRow(UserKey user,
+                             String deviceName,
+                             String accessToken,
+                             long expires,
+                             String refreshToken,
+                             LocalDateTime lastLogin) {
+        private Device toDevice() {
+            return new Device(user.role(), user.userId(), deviceName, accessToken, expires, refreshToken).setLastLogin(lastLogin);
+        }
+    }
+}
@@ -0,0 +1,480 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.storage;
+
+import io.github.lycoriscafe.yggdrasil.commons.SearchModel;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLSyntaxErrorException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// one table of MemoryStorage: rows in a sorted primary index, secondary hash or sorted indexes on key columns
+final class MemoryTable {
+    private final String name;
+    private final String[] columns;
+    private final Class<?>[] types;
+    private final Map<String, Integer> columnIndex = new HashMap<>();
+    private final ConcurrentSkipListMap<Long, Object[]> rows = new ConcurrentSkipListMap<>();
+    private final List<Index> indexes = new ArrayList<>();
+    private final Index[] columnIndexes;
+    private final Trigger trigger;
+    private final AtomicLong nextId = new AtomicLong(1L);
+    // writers are serialized per table, readers never block
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    MemoryTable(String name,
+                String[] columns,
+                Class<?>[] types,
+                List<IndexDefinition> definitions,
+                Trigger trigger) {
+        this.name = name;
+        this.columns = columns;
+        this.types = types;
+        this.trigger = trigger;
+        for (int i = 0; i < columns.length; i++) columnIndex.put(columns[i].toLowerCase(), i);
+        columnIndexes = new Index[columns.length];
+        for (IndexDefinition definition : definitions) {
+            int[] indexColumns = new int[definition.columns().size()];
+            for (int i = 0; i < indexColumns.length; i++) {
+                Integer column = columnIndex.get(definition.columns().get(i).toLowerCase());
+                if (column == null) throw new IllegalArgumentException("Unknown column '" + definition.columns().get(i) + "' in " + name);
+                indexColumns[i] = column;
+            }
+            var index = new Index(definition, indexColumns);
+            indexes.add(index);
+            if (indexColumns.length == 1 && columnIndexes[indexColumns[0]] == null) columnIndexes[indexColumns[0]] = index;
+        }
+    }
+
+    Map<String, Integer> getColumns() {
+        return columnIndex;
+    }
+
+    // the Java type of each column's entity field
+    Class<?>[] getTypes() {
+        return types;
+    }
+
+    long insert(Object[] row) throws SQLException {
+        writeLock.lock();
+        try {
+            return insertLocked(row);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // all or nothing, returns the ids in the order of the rows
+    long[] insertAll(List<Object[]> batch) throws SQLException {
+        long[] ids = new long[batch.size()];
+        writeLock.lock();
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                try {
+                    ids[i] = insertLocked(batch.get(i));
+                } catch (SQLException | RuntimeException e) {
+                    for (int j = 0; j < i; j++) deleteLocked(ids[j]);
+                    throw e;
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        return ids;
+    }
+
+    // row[0] holds the id of the row to replace
+    int update(Object[] row) throws SQLException {
+        long id = toId(row[0]);
+        writeLock.lock();
+        try {
+            Object[] old = rows.get(id);
+            if (old == null) return 0;
+            row[0] = old[0];
+            trigger.beforeUpdate(old, row);
+            checkUnique(row, id);
+            for (Index index : indexes) index.remove(old, id);
+            rows.put(id, row);
+            for (Index index : indexes) index.add(row, id);
+            return 1;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    int delete(long id) {
+        writeLock.lock();
+        try {
+            return deleteLocked(id) ? 1 : 0;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    void deleteAll(long[] ids) {
+        writeLock.lock();
+        try {
+            for (long id : ids) deleteLocked(id);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private long insertLocked(Object[] row) throws SQLException {
+        if (row.length != columns.length) throw new SQLException("Column count doesn't match value count");
+        trigger.beforeInsert(row);
+        long id = row[0] == null ? nextId.get() : toId(row[0]);
+        if (rows.containsKey(id)) throw new SQLIntegrityConstraintViolationException("Duplicate entry '" + id + "' for key '" + name + ".PRIMARY'");
+        checkUnique(row, id);
+        row[0] = id;
+        rows.put(id, row);
+        for (Index index : indexes) index.add(row, id);
+        nextId.accumulateAndGet(id + 1, Math::max);
+        return id;
+    }
+
+    private boolean deleteLocked(long id) {
+        Object[] old = rows.remove(id);
+        if (old == null) return false;
+        for (Index index : indexes) index.remove(old, id);
+        return true;
+    }
+
+    private void checkUnique(Object[] row,
+                             long id) throws SQLIntegrityConstraintViolationException {
+        for (Index index : indexes) {
+            if (!index.definition.unique()) continue;
+            String key = index.key(row);
+            if (key == null) continue;
+            Set<Long> ids = index.entries.get(key);
+            if (ids == null) continue;
+            for (Long existing : ids) {
+                if (existing != id) {
+                    throw new SQLIntegrityConstraintViolationException("Duplicate entry '" + key.replace('\u0000', '-')
+                            + "' for key '" + name + "." + String.join("_", index.definition.columns()) + "'");
+                }
+            }
+        }
+    }
+
+    // matching rows in result order, the same rows and order the JDBC engine's query would return
+    List<Object[]> select(SearchModel searchModel) throws SQLException {
+        List<Condition> conditions = conditions(searchModel);
+        List<Object[]> result = new ArrayList<>();
+        for (Object[] row : candidates(conditions)) {
+            if (matches(row, conditions)) result.add(row);
+        }
+
+        if (searchModel.getOrderBy() != null && !searchModel.getOrderBy().isEmpty()) {
+            result.sort(comparator(searchModel.getOrderBy(), searchModel.getAscending() == null || searchModel.getAscending()));
+        }
+        return result;
+    }
+
+    // exact, case-insensitive matches the way `column IN (...)` compares them
+    Set<String> findExisting(String column,
+                             List<String> values) throws SQLException {
+        int position = column(column);
+        Set<String> existing = new HashSet<>();
+        for (String value : values) {
+            Collection<Object[]> candidates;
+            if (position == 0) {
+                Object[] row = isNumber(value) ? rows.get(Long.parseLong(value)) : null;
+                candidates = row == null ? List.of() : List.<Object[]>of(row);
+            } else if (columnIndexes[position] != null) {
+                candidates = rows(columnIndexes[position].entries.getOrDefault(value.toLowerCase(Locale.ROOT), Set.of()));
+            } else {
+                candidates = rows.values();
+            }
+            for (Object[] row : candidates) {
+                String stored = RowAdapters.toString(row[position]);
+                if (stored != null && stored.equalsIgnoreCase(value)) {
+                    existing.add(value);
+                    break;
+                }
+            }
+        }
+        return existing;
+    }
+
+    private List<Condition> conditions(SearchModel searchModel) throws SQLException {
+        if (searchModel.getSearchBy() == null) return List.of();
+        List<Condition> conditions = new ArrayList<>();
+        for (var field : searchModel.getSearchBy().entrySet()) {
+            List<Like> patterns = new ArrayList<>();
+            for (var value : field.getValue().entrySet()) patterns.add(new Like(value.getKey(), value.getValue()));
+            conditions.add(new Condition(column(field.getKey()), patterns));
+        }
+        return conditions;
+    }
+
+    // narrows the scan through the first condition an index can answer, candidates still go through every condition
+    private Collection<Object[]> candidates(List<Condition> conditions) {
+        for (Condition condition : conditions) {
+            Set<Long> ids = new TreeSet<>();
+            for (Like pattern : condition.patterns()) {
+                String exact = pattern.getExact();
+                if (condition.column() == 0 && exact != null && isNumber(exact)) {
+                    ids.add(Long.parseLong(exact));
+                    continue;
+                }
+                Index index = columnIndexes[condition.column()];
+                if (index == null) {
+                    ids = null;
+                    break;
+                }
+                if (exact != null) {
+                    ids.addAll(index.entries.getOrDefault(exact.toLowerCase(Locale.ROOT), Set.of()));
+                } else if (pattern.getPrefix() != null && index.entries instanceof NavigableMap<String, Set<Long>> sorted) {
+                    String prefix = pattern.getPrefix().toLowerCase(Locale.ROOT);
+                    sorted.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values().forEach(ids::addAll);
+                } else {
+                    ids = null;
+                    break;
+                }
+            }
+            if (ids != null) return rows(ids);
+        }
+        return rows.values();
+    }
+
+    private List<Object[]> rows(Set<Long> ids) {
+        List<Object[]> candidates = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Object[] row = rows.get(id);
+            if (row != null) candidates.add(row);
+        }
+        return candidates;
+    }
+
+    private static boolean matches(Object[] row,
+                                   List<Condition> conditions) {
+        for (Condition condition : conditions) {
+            String value = RowAdapters.toString(row[condition.column()]);
+            if (value == null) return false;
+            boolean matched = false;
+            for (Like pattern : condition.patterns()) {
+                if (pattern.matches(value)) {
+                    matched = true;
+                    break;
+                }
+            }
+            if (!matched) return false;
+        }
+        return true;
+    }
+
+    // the direction applies to the last column only, as in the ORDER BY clause JdbcStorage builds
+    private Comparator<Object[]> comparator(List<String> orderBy,
+                                            boolean ascending) throws SQLException {
+        Comparator<Object[]> comparator = null;
+        for (int i = 0; i < orderBy.size(); i++) {
+            int position = column(orderBy.get(i));
+            Comparator<Object[]> next = (left, right) -> compare(position, left[position], right[position]);
+            if (i == orderBy.size() - 1 && !ascending) next = next.reversed();
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        return comparator.thenComparing(row -> (Long) row[0]);
+    }
+
+    private int compare(int column,
+                        Object left,
+                        Object right) {
+        if (left == null || right == null) return left == null ? (right == null ? 0 : -1) : 1;
+        String leftString = RowAdapters.toString(left);
+        String rightString = RowAdapters.toString(right);
+        if (isNumeric(types[column])) return new BigDecimal(leftString).compareTo(new BigDecimal(rightString));
+        int result = leftString.compareToIgnoreCase(rightString);
+        return result != 0 ? result : leftString.compareTo(rightString);
+    }
+
+    private int column(String column) throws SQLSyntaxErrorException {
+        Integer position = columnIndex.get(column.toLowerCase());
+        if (position == null) throw new SQLSyntaxErrorException("Unknown column '" + column + "' in '" + name + "'");
+        return position;
+    }
+
+    private static boolean isNumeric(Class<?> type) {
+        return Number.class.isAssignableFrom(type) || type == Boolean.class || (type.isPrimitive() && type != char.class);
+    }
+
+    private static long toId(Object value) throws SQLException {
+        String string = RowAdapters.toString(value);
+        if (!isNumber(string)) throw new SQLException("Incorrect integer value '" + string + "' for column 'id'");
+        return Long.parseLong(string);
+    }
+
+    private static boolean isNumber(String value) {
+        if (value == null || value.isEmpty() || value.length() > 18) return false;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) < '0' || value.charAt(i) > '9') return false;
+        }
+        return true;
+    }
+
+    interface Trigger {
+        Trigger NONE = new Trigger() {};
+
+        default void beforeInsert(Object[] row) {}
+
+        default void beforeUpdate(Object[] old,
+                                  Object[] row) {}
+    }
+
+    record IndexDefinition(boolean unique,
+                           boolean sorted,
+                           List<String> columns) {
+        static IndexDefinition unique(String... columns) {
+            return new IndexDefinition(true, false, List.of(columns));
+        }
+
+        static IndexDefinition hash(String column) {
+            return new IndexDefinition(false, false, List.of(column));
+        }
+
+        static IndexDefinition sorted(String column) {
+            return new IndexDefinition(false, true, List.of(column));
+        }
+    }
+
+    private record Condition(int column,
+                             List<Like> patterns) {}
+
+    private static final class Index {
+        private final IndexDefinition definition;
+        private final int[] columns;
+        private final Map<String, Set<Long>> entries;
+
+        private Index(IndexDefinition definition,
+                      int[] columns) {
+            this.definition = definition;
+            this.columns = columns;
+            this.entries = definition.sorted() ? new ConcurrentSkipListMap<>() : new ConcurrentHashMap<>();
+        }
+
+        // keys follow the case-insensitive collation, NULLs are never indexed, as with UNIQUE in MySQL
+        private String key(Object[] row) {
+            if (columns.length == 1) {
+                String value = RowAdapters.toString(row[columns[0]]);
+                return value == null ? null : value.toLowerCase(Locale.ROOT);
+            }
+            StringBuilder key = new StringBuilder();
+            for (int i = 0; i < columns.length; i++) {
+                String value = RowAdapters.toString(row[columns[i]]);
+                if (value == null) return null;
+                if (i > 0) key.append('\u0000');
+                key.append(value.toLowerCase(Locale.ROOT));
+            }
+            return key.toString();
+        }
+
+        private void add(Object[] row,
+                         long id) {
+            String key = key(row);
+            if (key != null) entries.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+
+        private void remove(Object[] row,
+                            long id) {
+            String key = key(row);
+            if (key == null) return;
+            Set<Long> ids = entries.get(key);
+            if (ids == null) return;
+            ids.remove(id);
+            if (ids.isEmpty()) entries.remove(key, ids);
+        }
+    }
+
+    // LIKE with % and _, a backslash escapes either, case-insensitive unless BINARY
+    static final class Like {
+        private static final int ANY = -1;
+        private static final int ONE = -2;
+
+        private final boolean binary;
+        private final int[] tokens;
+        private final String exact;
+        private final String prefix;
+
+        Like(String pattern,
+             boolean binary) {
+            this.binary = binary;
+            String source = binary ? pattern : pattern.toLowerCase(Locale.ROOT);
+            int[] parsed = new int[source.length()];
+            int length = 0;
+            StringBuilder literal = new StringBuilder();
+            int wildcards = 0;
+            boolean trailingAny = false;
+            for (int i = 0; i < source.length(); i++) {
+                char c = source.charAt(i);
+                if (c == '\\' && i + 1 < source.length()) {
+                    parsed[length++] = source.charAt(++i);
+                    if (wildcards == 0) literal.append(source.charAt(i));
+                } else if (c == '%' || c == '_') {
+                    parsed[length++] = c == '%' ? ANY : ONE;
+                    wildcards++;
+                    trailingAny = c == '%' && i == source.length() - 1;
+                } else {
+                    parsed[length++] = c;
+                    if (wildcards == 0) literal.append(c);
+                }
+            }
+            tokens = Arrays.copyOf(parsed, length);
+            exact = wildcards == 0 ? literal.toString() : null;
+            prefix = wildcards == 1 && trailingAny ? literal.toString() : null;
+        }
+
+        // the value when the pattern has no wildcards
+        String getExact() {
+            return exact;
+        }
+
+        // the literal part when the pattern is that literal followed by a single %
+        String getPrefix() {
+            return prefix;
+        }
+
+        boolean matches(String value) {
+            String subject = binary ? value : value.toLowerCase(Locale.ROOT);
+            int token = 0;
+            int position = 0;
+            int anyToken = -1;
+            int anyPosition = 0;
+            while (position < subject.length()) {
+                if (token < tokens.length && (tokens[token] == ONE || tokens[token] == subject.charAt(position))) {
+                    token++;
+                    position++;
+                } else if (token < tokens.length && tokens[token] == ANY) {
+                    anyToken = token++;
+                    anyPosition = position;
+                } else if (anyToken >= 0) {
+                    token = anyToken + 1;
+                    position = ++anyPosition;
+                } else {
+                    return false;
+                }
+            }
+            while (token < tokens.length && tokens[token] == ANY) token++;
+            return token == tokens.length;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.storage;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Year;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+// the two ends of EntityService: a statement that records what toDatabase binds and a cursor fromDatabase can read
+final class RowAdapters {
+    private RowAdapters() {}
+
+    static Capture capture(int parameters) {
+        return new Capture(parameters);
+    }
+
+    static ResultSet cursor(Map<String, Integer> columns,
+                            Class<?>[] types,
+                            Iterator<Object[]> rows) {
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                new Cursor(columns, types, rows));
+    }
+
+    // MySQL hands booleans back as TINYINT, so that is what LIKE and getString see
+    static String toString(Object value) {
+        if (value == null) return null;
+        if (value instanceof Boolean bool) return bool ? "1" : "0";
+        return value.toString();
+    }
+
+    static final class Capture implements InvocationHandler {
+        private final Object[] values;
+        private final PreparedStatement statement;
+
+        private Capture(int parameters) {
+            values = new Object[parameters];
+            statement = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, this);
+        }
+
+        PreparedStatement statement() {
+            return statement;
+        }
+
+        // parameter values in binding order, index 0 holds parameter 1
+        Object[] values() {
+            return Arrays.copyOf(values, values.length);
+        }
+
+        @Override
+        public Object invoke(Object proxy,
+                             Method method,
+                             Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "setString", "setBoolean", "setInt", "setLong", "setObject" -> {
+                    set((Integer) args[0], args[1]);
+                    return null;
+                }
+                case "setNull" -> {
+                    set((Integer) args[0], null);
+                    return null;
+                }
+                case "clearParameters" -> {
+                    Arrays.fill(values, null);
+                    return null;
+                }
+                case "close" -> {
+                    return null;
+                }
+                case "isClosed" -> {
+                    return false;
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "toString" -> {
+                    return "RowAdapters.Capture" + Arrays.toString(values);
+                }
+                default -> throw new UnsupportedOperationException(method.getName());
+            }
+        }
+
+        private void set(int index,
+                         Object value) throws SQLException {
+            if (index < 1 || index > values.length) throw new SQLException("Parameter index out of range (" + index + ")");
+            values[index - 1] = value;
+        }
+    }
+
+    private static final class Cursor implements InvocationHandler {
+        private final Map<String, Integer> columns;
+        private final Class<?>[] types;
+        private final Iterator<Object[]> rows;
+        private Object[] row;
+        private boolean wasNull;
+        private boolean closed;
+
+        private Cursor(Map<String, Integer> columns,
+                       Class<?>[] types,
+                       Iterator<Object[]> rows) {
+            this.columns = columns;
+            this.types = types;
+            this.rows = rows;
+        }
+
+        @Override
+        public Object invoke(Object proxy,
+                             Method method,
+                             Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next" -> {
+                    if (closed) throw new SQLException("Result set closed");
+                    row = rows.hasNext() ? rows.next() : null;
+                    return row != null;
+                }
+                case "close" -> {
+                    closed = true;
+                    return null;
+                }
+                case "isClosed" -> {
+                    return closed;
+                }
+                case "wasNull" -> {
+                    return wasNull;
+                }
+                case "getString" -> {
+                    return RowAdapters.toString(value(args[0]));
+                }
+                case "getObject" -> {
+                    return value(args[0]);
+                }
+                case "getLong" -> {
+                    Object value = value(args[0]);
+                    return value == null ? 0L : value instanceof Number number ? number.longValue() : Long.parseLong(RowAdapters.toString(value));
+                }
+                case "getInt" -> {
+                    Object value = value(args[0]);
+                    return value == null ? 0 : value instanceof Number number ? number.intValue() : Integer.parseInt(RowAdapters.toString(value));
+                }
+                case "getBoolean" -> {
+                    Object value = value(args[0]);
+                    if (value == null) return false;
+                    if (value instanceof Boolean bool) return bool;
+                    String string = value.toString();
+                    return string.equals("1") || string.equalsIgnoreCase("true");
+                }
+                case "findColumn" -> {
+                    return index(args[0]) + 1;
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "toString" -> {
+                    return "RowAdapters.Cursor" + Arrays.toString(row);
+                }
+                default -> throw new UnsupportedOperationException(method.getName());
+            }
+        }
+
+        private Object value(Object column) throws SQLException {
+            if (closed) throw new SQLException("Result set closed");
+            if (row == null) throw new SQLException("Cursor not on a row");
+            int index = index(column);
+            Object value = row[index];
+            wasNull = value == null;
+            // Connector/J reports YEAR columns as dates (yearIsDateType)
+            if (value != null && types[index] == Year.class) return value + "-01-01";
+            return value;
+        }
+
+        private int index(Object column) throws SQLException {
+            if (column instanceof Integer index) return index - 1;
+            Integer index = columns.get(column.toString().toLowerCase());
+            if (index == null) throw new SQLException("Column '" + column + "' not found");
+            return index;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.storage;
+
+import io.github.lycoriscafe.yggdrasil.authentication.Authentication;
+import io.github.lycoriscafe.yggdrasil.authentication.Device;
+import io.github.lycoriscafe.yggdrasil.authentication.Role;
+import io.github.lycoriscafe.yggdrasil.authentication.TokenType;
+import io.github.lycoriscafe.yggdrasil.commons.Entity;
+import io.github.lycoriscafe.yggdrasil.commons.EntityService;
+import io.github.lycoriscafe.yggdrasil.commons.ImportModel;
+import io.github.lycoriscafe.yggdrasil.commons.SearchModel;
+import io.github.lycoriscafe.yggdrasil.metrics.OperationTimer;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Set;
+
+// rows cross this boundary through EntityService.toDatabase and EntityService.fromDatabase, whatever holds them
+public interface Storage {
+    // returns the generated id, null when no row was inserted
+    <T extends Entity, U extends EntityService<T>> BigInteger insert(Class<T> entity,
+                                                                     Class<U> entityService,
+                                                                     T instance,
+                                                                     OperationTimer timer) throws SQLException, ReflectiveOperationException;
+
+    // resultsFrom and resultsOffset of the search model must be set
+    <T extends Entity, U extends EntityService<T>> Page<T> select(Class<T> entity,
+                                                                  Class<U> entityService,
+                                                                  SearchModel searchModel,
+                                                                  boolean primary,
+                                                                  OperationTimer timer) throws SQLException, ReflectiveOperationException;
+
+    // every matching row in order, ignoring resultsFrom and resultsOffset, returns the number of rows passed to the sink
+    <T extends Entity, U extends EntityService<T>> long scan(Class<T> entity,
+                                                             Class<U> entityService,
+                                                             SearchModel searchModel,
+                                                             boolean primary,
+                                                             RowSink<T> sink,
+                                                             OperationTimer timer) throws SQLException, ReflectiveOperationException, IOException;
+
+    <T extends Entity, U extends EntityService<T>> int update(Class<T> entity,
+                                                              Class<U> entityService,
+                                                              T instance,
+                                                              OperationTimer timer) throws SQLException, ReflectiveOperationException;
+
+    int delete(Class<? extends Entity> entity,
+               BigInteger id,
+               OperationTimer timer) throws SQLException;
+
+    // the subset of values already present in the column
+    Set<String> findExisting(Class<? extends Entity> entity,
+                             String column,
+                             List<String> values) throws SQLException;
+
+    // all or nothing, the instances receive their ids and the provisioned authentications are added alongside
+    <T extends Entity, U extends EntityService<T>> void insertAll(Class<T> entity,
+                                                                  Class<U> entityService,
+                                                                  List<T> instances,
+                                                                  ImportModel.Provisioner<T> provisioner) throws SQLException, ReflectiveOperationException;
+
+    Authentication getAuthentication(Role role,
+                                     BigInteger userId) throws SQLException;
+
+    // passwords arrive hashed
+    boolean addAuthentication(Authentication authentication) throws SQLException;
+
+    boolean updateAuthentication(Authentication authentication) throws SQLException;
+
+    boolean deleteAuthentication(Role role,
+                                 BigInteger userId) throws SQLException;
+
+    List<Device> getDevices(Role role,
+                            BigInteger userId) throws SQLException;
+
+    List<Device> getDevices(TokenType tokenType,
+                            String token) throws SQLException;
+
+    // refresh tokens arrive hashed, the user's oldest devices are evicted in the same step so at most maxDevices remain
+    boolean addDevice(Device device,
+                      int maxDevices) throws SQLException;
+
+    int removeDevices(Role role,
+                      BigInteger userId) throws SQLException;
+
+    boolean removeDevice(TokenType tokenType,
+                         String token) throws SQLException;
+
+    // matched by refresh token, only the access token and its expiry change
+    boolean updateDevice(Device device) throws SQLException;
+
+    record Page<T extends Entity>(List<T> data,
+                                  BigInteger generableResults,
+                                  BigInteger resultsOffset) {}
+
+    @FunctionalInterface
+    interface RowSink<T extends Entity> {
+        void accept(T instance) throws IOException, ReflectiveOperationException;
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2025 Lycoris Café
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lycoriscafe.yggdrasil.storage;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.github.lycoriscafe.yggdrasil.authentication.Role;
+import io.github.lycoriscafe.yggdrasil.authentication.TokenType;
+import io.github.lycoriscafe.yggdrasil.commons.Entity;
+import io.github.lycoriscafe.yggdrasil.commons.EntityService;
+import io.github.lycoriscafe.yggdrasil.commons.ResponseModel;
+import io.github.lycoriscafe.yggdrasil.commons.ResponseShape;
+import io.github.lycoriscafe.yggdrasil.commons.SearchModel;
+import io.github.lycoriscafe.yggdrasil.configuration.DatabaseGate;
+import io.github.lycoriscafe.yggdrasil.configuration.Utils;
+import io.github.lycoriscafe.yggdrasil.configuration.YggdrasilConfig;
+import io.github.lycoriscafe.yggdrasil.rest.admin.Admin;
+import io.github.lycoriscafe.yggdrasil.rest.admin.AdminService;
+import io.github.lycoriscafe.yggdrasil.rest.classroom.Classroom;
+import io.github.lycoriscafe.yggdrasil.rest.classroom.ClassroomService;
+import io.github.lycoriscafe.yggdrasil.rest.guardian.Guardian;
+import io.github.lycoriscafe.yggdrasil.rest.guardian.GuardianService;
+import io.github.lycoriscafe.yggdrasil.rest.notification.Notification;
+import io.github.lycoriscafe.yggdrasil.rest.notification.NotificationService;
+import io.github.lycoriscafe.yggdrasil.rest.relief.Relief;
+import io.github.lycoriscafe.yggdrasil.rest.relief.ReliefService;
+import io.github.lycoriscafe.yggdrasil.rest.student.Student;
+import io.github.lycoriscafe.yggdrasil.rest.student.StudentService;
+import io.github.lycoriscafe.yggdrasil.rest.student.attendance.StudentAttendance;
+import io.github.lycoriscafe.yggdrasil.rest.student.attendance.StudentAttendanceService;
+import io.github.lycoriscafe.yggdrasil.rest.student.subject.StudentSubjectJoin;
+import io.github.lycoriscafe.yggdrasil.rest.student.subject.StudentSubjectJoinService;
+import io.github.lycoriscafe.yggdrasil.rest.subject.Subject;
+import io.github.lycoriscafe.yggdrasil.rest.subject.SubjectService;
+import io.github.lycoriscafe.yggdrasil.rest.teacher.Teacher;
+import io.github.lycoriscafe.yggdrasil.rest.teacher.TeacherService;
+import io.github.lycoriscafe.yggdrasil.rest.teacher.attendance.TeacherAttendance;
+import io.github.lycoriscafe.yggdrasil.rest.teacher.attendance.TeacherAttendanceService;
+import io.github.lycoriscafe.yggdrasil.rest.teacher.subject.TeacherSubjectJoin;
+import io.github.lycoriscafe.yggdrasil.rest.teacher.subject.TeacherSubjectJoinService;
+import io.github.lycoriscafe.yggdrasil.rest.timetable.Timetable;
+import io.github.lycoriscafe.yggdrasil.rest.timetable.TimetableService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// runs the SQL shapes of the endpoints before the port is bound, so the first requests meet compiled code and prepared statements
+public final class WarmUp {
+    private static final Logger logger = LoggerFactory.getLogger(WarmUp.class);
+    private static final List<Table<?, ?>> TABLES = List.of(
+            new Table<>(Admin.class, AdminService.class),
+            new Table<>(Classroom.class, ClassroomService.class),
+            new Table<>(Guardian.class, GuardianService.class),
+            new Table<>(Notification.class, NotificationService.class),
+            new Table<>(Relief.class, ReliefService.class),
+            new Table<>(Student.class, StudentService.class),
+            new Table<>(StudentAttendance.class, StudentAttendanceService.class),
+            new Table<>(StudentSubjectJoin.class, StudentSubjectJoinService.class),
+            new Table<>(Subject.class, SubjectService.class),
+            new Table<>(Teacher.class, TeacherService.class),
+            new Table<>(TeacherAttendance.class, TeacherAttendanceService.class),
+            new Table<>(TeacherSubjectJoin.class, TeacherSubjectJoinService.class),
+            new Table<>(Timetable.class, TimetableService.class));
+
+    // every pool runs the given rounds over all tables, spread over its connections
+    public static void run(int rounds) throws SQLException, ReflectiveOperationException {
+        if (!(YggdrasilConfig.getStorage() instanceof JdbcStorage)) {
+            logger.info("Warm-up skipped, the storage has no statement caches to prime");
+            return;
+        }
+        long start = System.nanoTime();
+        Set<HikariDataSource> dataSources = new LinkedHashSet<>();
+        for (DatabaseGate gate : YggdrasilConfig.getDatabaseGates().values()) dataSources.add(gate.getDataSource());
+        if (YggdrasilConfig.getReplicaGate() != null) dataSources.add(YggdrasilConfig.getReplicaGate().getDataSource());
+
+        int connections = 0;
+        for (HikariDataSource dataSource : dataSources) connections += run(dataSource, rounds);
+        logger.info("Warm-up of {} connections finished in {} ms", connections, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // the connections come straight from the pool, past the gate, so the warm-up shows up in no statistics
+    private static int run(HikariDataSource dataSource,
+                           int rounds) throws SQLException, ReflectiveOperationException {
+        List<Connection> connections = new ArrayList<>();
+        try {
+            // held all at once, so the pool opens every connection it may later hand out
+            for (int i = 0; i < dataSource.getMaximumPoolSize(); i++) connections.add(dataSource.getConnection());
+            int roundsPerConnection = Math.max(1, rounds / connections.size());
+            try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<?>> futures = new ArrayList<>();
+                for (Connection connection : connections) {
+                    futures.add(executor.submit(() -> {
+                        exercise(connection, roundsPerConnection);
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) await(future);
+            }
+        } finally {
+            for (Connection connection : connections) connection.close();
+        }
+        return connections.size();
+    }
+
+    private static void exercise(Connection connection,
+                                 int rounds) throws SQLException, ReflectiveOperationException {
+        // a replica connection is read-only, only the reads are primed there
+        boolean readOnly = connection.isReadOnly();
+        try {
+            for (int round = 0; round < rounds; round++) {
+                for (Table<?, ?> table : TABLES) table.exercise(connection, readOnly);
+                accounts(connection);
+            }
+        } finally {
+            connection.rollback();
+        }
+    }
+
+    // authentication runs on every request, these are the lookups behind it
+    private static void accounts(Connection connection) throws SQLException {
+        try (var statement = connection.prepareStatement(JdbcStorage.SELECT_AUTHENTICATION)) {
+            statement.setString(1, Role.ADMIN.toString());
+            statement.setString(2, BigInteger.ONE.toString());
+            JdbcStorage.deserializeAuthentication(statement.executeQuery());
+        }
+        try (var statement = connection.prepareStatement(JdbcStorage.SELECT_USER_DEVICES)) {
+            statement.setString(1, Role.ADMIN.toString());
+            statement.setString(2, BigInteger.ONE.toString());
+            JdbcStorage.deserializeDevices(statement.executeQuery());
+        }
+        for (TokenType tokenType : TokenType.values()) {
+            try (var statement = connection.prepareStatement(JdbcStorage.selectDevicesQuery(tokenType))) {
+                statement.setString(1, "");
+                JdbcStorage.deserializeDevices(statement.executeQuery());
+            }
+        }
+        connection.rollback();
+    }
+
+    private static void await(Future<?> future) throws SQLException, ReflectiveOperationException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted during warm-up", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException sqlException) throw sqlException;
+            if (e.getCause() instanceof ReflectiveOperationException reflectiveOperationException) throw reflectiveOperationException;
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private record Table<T extends Entity, U extends EntityService<T>>(Class<T> entity,
+                                                                        Class<U> entityService) {
+        private void exercise(Connection connection,
+                              boolean readOnly) throws SQLException, ReflectiveOperationException {
+            // a plain page and a lookup by id, the two reads every endpoint serves
+            List<T> rows = page(connection, new SearchModel());
+            if (!rows.isEmpty()) page(connection, new SearchModel().setSearchBy(Map.of("id", Map.of(rows.getFirst().getId().toString(), false))));
+            serialize(rows);
+            if (readOnly) {
+                connection.rollback();
+                return;
+            }
+
+            Method toDatabase = entityService.getMethod("toDatabase", PreparedStatement.class, entity, boolean.class);
+            // inserts are prepared and bound only, a rolled back insert would still use up an auto increment id
+            try (var statement = connection.prepareStatement(JdbcStorage.insertQuery(entity), Statement.RETURN_GENERATED_KEYS)) {
+                if (!rows.isEmpty()) toDatabase.invoke(null, statement, rows.getFirst(), false);
+            }
+            // the row is written back unchanged and rolled back right away, so other connections do not wait on its lock
+            try (var statement = connection.prepareStatement(JdbcStorage.updateQuery(entity))) {
+                if (!rows.isEmpty()) {
+                    toDatabase.invoke(null, statement, rows.getFirst(), true);
+                    statement.executeUpdate();
+                }
+            }
+            connection.rollback();
+        }
+
+        private List<T> page(Connection connection,
+                             SearchModel searchModel) throws SQLException, ReflectiveOperationException {
+            searchModel.setResultsFrom(BigInteger.ZERO).setResultsOffset(BigInteger.valueOf(YggdrasilConfig.getDefaultResultsOffset()));
+            return JdbcStorage.page(connection, entity, entityService, searchModel, JdbcStorage.pageQueries(entity, searchModel)).data();
+        }
+
+        // both response shapes out, and each row back in the way create and update bodies are read
+        private void serialize(List<T> rows) {
+            var response = new ResponseModel<T>().setData(rows).setSuccess(true);
+            response.parse();
+            response.setShape(ResponseShape.COLUMNAR).parse();
+            for (T row : rows) Utils.getGson().fromJson(Utils.getGson().toJson(row), entity);
+        }
+    }
+}
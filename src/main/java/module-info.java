@@ -1,7 +1,9 @@
 module Yggdrasil {
     requires com.google.gson;
     requires com.zaxxer.hikari;
+    requires java.management;
     requires java.sql;
+    requires jdk.jfr;
     requires io.github.lycoriscafe.nexus.http;
     requires jdk.jshell;
     requires org.slf4j;
@@ -10,6 +12,8 @@ module Yggdrasil {
     opens io.github.lycoriscafe.yggdrasil.authentication;
     opens io.github.lycoriscafe.yggdrasil.commons;
     opens io.github.lycoriscafe.yggdrasil.configuration;
+    opens io.github.lycoriscafe.yggdrasil.logging;
+    opens io.github.lycoriscafe.yggdrasil.metrics;
     opens io.github.lycoriscafe.yggdrasil.rest;
     opens io.github.lycoriscafe.yggdrasil.rest.admin;
     opens io.github.lycoriscafe.yggdrasil.rest.classroom;
@@ -24,4 +28,7 @@ module Yggdrasil {
     opens io.github.lycoriscafe.yggdrasil.rest.teacher.attendance;
     opens io.github.lycoriscafe.yggdrasil.rest.teacher.subject;
     opens io.github.lycoriscafe.yggdrasil.rest.timetable;
+    opens io.github.lycoriscafe.yggdrasil.storage;
+
+    provides org.slf4j.spi.SLF4JServiceProvider with io.github.lycoriscafe.yggdrasil.logging.LogProvider;
 }
\ No newline at end of file
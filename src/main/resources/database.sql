@@ -179,6 +179,7 @@ CREATE TABLE authentication
 # Device
 CREATE TABLE device
 (
+    id           BIGINT UNSIGNED AUTO_INCREMENT PRIMARY KEY,
     role         ENUM ('STUDENT', 'TEACHER', 'ADMIN') NOT NULL,
     userId       BIGINT UNSIGNED                      NOT NULL,
     deviceName   VARCHAR(20)           NOT NULL,